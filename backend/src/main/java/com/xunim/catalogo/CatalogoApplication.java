@@ -2,8 +2,11 @@ package com.xunim.catalogo;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 
-@SpringBootApplication
+// O pool R2DBC e interno ao ReactiveProductRepository: um ConnectionFactory automatico
+// desligaria o DataSource JDBC do JPA
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 public class CatalogoApplication {
 
     public static void main(String[] args) {
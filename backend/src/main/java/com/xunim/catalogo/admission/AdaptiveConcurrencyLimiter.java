@@ -0,0 +1,95 @@
+package com.xunim.catalogo.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concorrencia que se ajusta pela latencia das proprias requisicoes (algoritmo de gradiente).
+ *
+ * <p>Duas medias moveis acompanham a latencia: uma curta, das ultimas requisicoes, e uma longa, que
+ * representa o tempo sem fila. Enquanto a curta fica abaixo de {@code TOLERANCE} vezes a longa o limite
+ * cresce em raiz quadrada do limite atual; quando passa disso o limite e multiplicado pela razao entre
+ * as duas (no minimo metade), ate a fila dentro do servidor, a espera por conexao no checkout, voltar
+ * ao normal. Requisicoes alem do limite sao recusadas de imediato, em vez de esperarem e subirem a
+ * latencia de todas as outras.</p>
+ *
+ * <p>A vaga e um contador atomico; so a atualizacao do limite, uma vez por requisicao concluida,
+ * passa pelo monitor.</p>
+ */
+public class AdaptiveConcurrencyLimiter implements ConcurrencyLimiter {
+
+    // Peso de cada amostra: media curta ~ ultimas 10 requisicoes, longa ~ ultimas 500
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 500;
+    // Quanto a latencia recente pode passar da longa antes de o limite cair
+    private static final double TOLERANCE = 1.5;
+    // Fracao do novo limite aplicada a cada amostra, para uma requisicao lenta isolada nao derrubar o limite
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Expected 1 <= minLimit <= initialLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void release(long latencyNanos) {
+        int inFlightBeforeRelease = inFlight.getAndDecrement();
+        update(Math.max(1, latencyNanos), inFlightBeforeRelease);
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void update(long rttNanos, int inFlightBeforeRelease) {
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        }
+        // Depois de um periodo lento a media longa fica alta e o limite cresceria sem freio; decai ate a atual
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        // Com menos da metade das vagas em uso a latencia nao diz nada sobre o limite
+        if (inFlightBeforeRelease < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,63 @@
+package com.xunim.catalogo.admission;
+
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Admissao de requisicoes de um endpoint pelo {@link ConcurrencyLimiter}: sem vaga, a requisicao e
+ * recusada antes de chegar ao controller, com 503 e {@code Retry-After} pelo {@code GlobalExceptionHandler}.
+ * O tempo medido vai da entrada no controller ao fim da resposta.
+ *
+ * <p>Metricas por endpoint: {@code catalogo.admission.limit}, {@code catalogo.admission.inflight} e
+ * {@code catalogo.admission.rejected}.</p>
+ */
+public class AdmissionControlInterceptor implements HandlerInterceptor {
+
+    private final ConcurrencyLimiter limiter;
+    private final String method;
+    private final String rejectionMessage;
+    private final int retryAfterSeconds;
+    private final String startAttribute;
+    private final Counter rejected;
+
+    public AdmissionControlInterceptor(String endpoint, String method, ConcurrencyLimiter limiter,
+                                       String rejectionMessage, int retryAfterSeconds, MeterRegistry meterRegistry) {
+        this.limiter = limiter;
+        this.method = method;
+        this.rejectionMessage = rejectionMessage;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.startAttribute = AdmissionControlInterceptor.class.getName() + "." + endpoint;
+        this.rejected = meterRegistry.counter("catalogo.admission.rejected", "endpoint", endpoint);
+        Gauge.builder("catalogo.admission.limit", limiter, ConcurrencyLimiter::getLimit)
+                .tag("endpoint", endpoint).register(meterRegistry);
+        Gauge.builder("catalogo.admission.inflight", limiter, ConcurrencyLimiter::getInFlight)
+                .tag("endpoint", endpoint).register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!method.equals(request.getMethod())) {
+            return true;
+        }
+        if (!limiter.tryAcquire()) {
+            rejected.increment();
+            throw new ServiceOverloadedException(rejectionMessage, retryAfterSeconds);
+        }
+        request.setAttribute(startAttribute, System.nanoTime());
+        return true;
+    }
+
+    // Chamado mesmo quando o controller lanca excecao; so devolve a vaga de quem passou pelo preHandle
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(startAttribute) instanceof Long start) {
+            request.removeAttribute(startAttribute);
+            limiter.release(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.xunim.catalogo.admission;
+
+/**
+ * Limite de requisicoes em andamento de um endpoint. Quem consegue a vaga devolve com
+ * {@link #release(long)} ao fim da requisicao, informando quanto tempo ela levou.
+ */
+public interface ConcurrencyLimiter {
+
+    boolean tryAcquire();
+
+    void release(long latencyNanos);
+
+    int getLimit();
+
+    int getInFlight();
+}
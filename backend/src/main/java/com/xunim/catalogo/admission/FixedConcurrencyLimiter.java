@@ -0,0 +1,44 @@
+package com.xunim.catalogo.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Teto fixo de requisicoes em andamento, sem medir latencia: um contador atomico por requisicao.
+ * Usado nas leituras do catalogo, que respondem da memoria e nao precisam de limite adaptativo.
+ */
+public class FixedConcurrencyLimiter implements ConcurrencyLimiter {
+
+    private final int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public FixedConcurrencyLimiter(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        this.limit = limit;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,77 @@
+package com.xunim.catalogo.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.exception.InvalidBulkRequestException;
+import org.springframework.http.MediaType;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formatos aceitos pela importacao e exportacao em massa de produtos.
+ */
+public enum BulkFormat {
+
+    CSV("text/csv", "csv") {
+        @Override
+        public ProductRowReader reader(InputStream input, Charset charset, ObjectMapper objectMapper) {
+            return new ProductCsvReader(new BufferedReader(new InputStreamReader(input, charset)));
+        }
+
+        @Override
+        public ProductRowWriter writer(OutputStream output, ObjectMapper objectMapper) throws IOException {
+            return new ProductCsvWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        }
+    },
+
+    NDJSON("application/x-ndjson", "ndjson") {
+        @Override
+        public ProductRowReader reader(InputStream input, Charset charset, ObjectMapper objectMapper) {
+            return new ProductNdjsonReader(new BufferedReader(new InputStreamReader(input, charset)), objectMapper);
+        }
+
+        @Override
+        public ProductRowWriter writer(OutputStream output, ObjectMapper objectMapper) throws IOException {
+            return new ProductNdjsonWriter(output, objectMapper);
+        }
+    };
+
+    private final MediaType mediaType;
+    private final String extension;
+
+    BulkFormat(String mediaType, String extension) {
+        this.mediaType = MediaType.parseMediaType(mediaType);
+        this.extension = extension;
+    }
+
+    public abstract ProductRowReader reader(InputStream input, Charset charset, ObjectMapper objectMapper);
+
+    public abstract ProductRowWriter writer(OutputStream output, ObjectMapper objectMapper) throws IOException;
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static BulkFormat fromMediaType(MediaType mediaType) {
+        for (BulkFormat format : values()) {
+            if (format.mediaType.isCompatibleWith(mediaType)) {
+                return format;
+            }
+        }
+        throw new InvalidBulkRequestException("Formato não suportado: " + mediaType);
+    }
+
+    public static BulkFormat fromExtension(String extension) {
+        for (BulkFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(extension)) {
+                return format;
+            }
+        }
+        throw new InvalidBulkRequestException("Formato não suportado: " + extension);
+    }
+}
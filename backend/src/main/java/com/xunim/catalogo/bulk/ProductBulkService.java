@@ -0,0 +1,151 @@
+package com.xunim.catalogo.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.dto.ImportErrorDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductImportResultDTO;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.repository.ProductRepositoryCustom.UpsertResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Importacao e exportacao em massa do catalogo sem carregar o arquivo inteiro em memoria.
+ *
+ * <p>A importacao le uma linha por vez e grava em blocos de {@code catalogo.bulk.chunk-size}
+ * produtos, cada bloco em sua propria transacao com um batch JDBC; linhas invalidas sao
+ * recusadas e relatadas sem interromper as demais. A exportacao percorre a tabela com um
+ * cursor somente-avanco e escreve cada produto direto na saida.</p>
+ */
+@Slf4j
+@Service
+public class ProductBulkService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final int MAX_NAME_LENGTH = 120;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int exportFetchSize;
+
+    public ProductBulkService(ProductRepository productRepository,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${catalogo.bulk.chunk-size:1000}") int chunkSize,
+                              @Value("${catalogo.bulk.export-fetch-size:1000}") int exportFetchSize) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    public ProductImportResultDTO importProducts(BulkFormat format, InputStream input, Charset charset)
+            throws IOException {
+        long start = System.nanoTime();
+        long inserted = 0;
+        long updated = 0;
+        long rejected = 0;
+        List<ImportErrorDTO> errors = new ArrayList<>();
+        List<ProductDTO> chunk = new ArrayList<>(chunkSize);
+
+        try (ProductRowReader reader = format.reader(input, charset, objectMapper)) {
+            ProductRow row;
+            while ((row = reader.next()) != null) {
+                String error = row.error() != null ? row.error() : validate(row.product());
+                if (error != null) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add(new ImportErrorDTO(row.line(), error));
+                    }
+                    continue;
+                }
+                chunk.add(row.product());
+                if (chunk.size() == chunkSize) {
+                    UpsertResult result = writeChunk(chunk);
+                    inserted += result.inserted();
+                    updated += result.updated();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                UpsertResult result = writeChunk(chunk);
+                inserted += result.inserted();
+                updated += result.updated();
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        double rowsPerSecond = rowsPerSecond(inserted + updated + rejected, elapsedNanos);
+        log.info("Importacao {}: {} inseridos, {} atualizados, {} recusados em {} ms ({} linhas/s)",
+                format, inserted, updated, rejected, elapsedNanos / 1_000_000, Math.round(rowsPerSecond));
+        return new ProductImportResultDTO(inserted, updated, rejected, errors, elapsedNanos / 1_000_000, rowsPerSecond);
+    }
+
+    public long exportProducts(BulkFormat format, OutputStream output) throws IOException {
+        long start = System.nanoTime();
+        long[] exported = {0};
+
+        try (ProductRowWriter writer = format.writer(output, objectMapper)) {
+            productRepository.streamProducts(exportFetchSize, product -> {
+                try {
+                    writer.write(product);
+                    exported[0]++;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        log.info("Exportacao {}: {} produtos em {} ms ({} linhas/s)", format, exported[0],
+                elapsedNanos / 1_000_000, Math.round(rowsPerSecond(exported[0], elapsedNanos)));
+        return exported[0];
+    }
+
+    private UpsertResult writeChunk(List<ProductDTO> chunk) {
+        UpsertResult result = transactionTemplate.execute(status -> productRepository.upsertProducts(chunk));
+        chunk.clear();
+        return result;
+    }
+
+    private String validate(ProductDTO product) {
+        if (product.getName() == null || product.getName().isBlank()) {
+            return "Nome é obrigatório";
+        }
+        if (product.getName().length() > MAX_NAME_LENGTH) {
+            return "Nome deve ter no máximo " + MAX_NAME_LENGTH + " caracteres";
+        }
+        if (product.getPrice() == null || product.getPrice().signum() < 0) {
+            return "Preço deve ser maior ou igual a zero";
+        }
+        if (product.getPrice().stripTrailingZeros().scale() > 2) {
+            return "Preço deve ter no máximo 2 casas decimais";
+        }
+        if (product.getPrice().compareTo(BigDecimal.TEN.pow(10)) >= 0) {
+            return "Preço acima do limite";
+        }
+        if (product.getStock() == null || product.getStock() < 0) {
+            return "Estoque deve ser maior ou igual a zero";
+        }
+        return null;
+    }
+
+    private static double rowsPerSecond(long rows, long elapsedNanos) {
+        return elapsedNanos == 0 ? 0 : rows / (elapsedNanos / 1e9);
+    }
+}
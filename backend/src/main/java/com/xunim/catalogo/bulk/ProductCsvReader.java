@@ -0,0 +1,174 @@
+package com.xunim.catalogo.bulk;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.exception.InvalidBulkRequestException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Leitor CSV (RFC 4180) que processa um registro por vez. A primeira linha e o cabecalho;
+ * {@code name}, {@code price} e {@code stock} sao obrigatorios, {@code id} e {@code active} opcionais
+ * e a ordem das colunas e livre. Campos entre aspas podem conter virgulas, aspas duplicadas e quebras de linha.
+ */
+class ProductCsvReader implements ProductRowReader {
+
+    private final BufferedReader reader;
+    private final List<String> record = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+
+    private long line = 1;
+    private String recordError;
+    private boolean headerRead;
+    private int columnCount;
+    private int idColumn = -1;
+    private int nameColumn = -1;
+    private int priceColumn = -1;
+    private int stockColumn = -1;
+    private int activeColumn = -1;
+
+    ProductCsvReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public ProductRow next() throws IOException {
+        if (!headerRead) {
+            readHeader();
+        }
+        while (true) {
+            long recordLine = line;
+            if (!readRecord()) {
+                return null;
+            }
+            if (recordError == null && record.size() == 1 && record.get(0).isBlank()) {
+                continue;
+            }
+            return parse(recordLine);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void readHeader() throws IOException {
+        headerRead = true;
+        if (!readRecord()) {
+            throw new InvalidBulkRequestException("Cabeçalho CSV ausente");
+        }
+        columnCount = record.size();
+        for (int i = 0; i < record.size(); i++) {
+            String column = record.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT);
+            switch (column) {
+                case "id" -> idColumn = i;
+                case "name" -> nameColumn = i;
+                case "price" -> priceColumn = i;
+                case "stock" -> stockColumn = i;
+                case "active" -> activeColumn = i;
+                default -> { }
+            }
+        }
+        if (nameColumn < 0 || priceColumn < 0 || stockColumn < 0) {
+            throw new InvalidBulkRequestException("Cabeçalho CSV deve conter as colunas name, price e stock");
+        }
+    }
+
+    private ProductRow parse(long recordLine) {
+        if (recordError != null) {
+            return ProductRow.invalid(recordLine, recordError);
+        }
+        if (record.size() != columnCount) {
+            return ProductRow.invalid(recordLine,
+                    "Esperadas " + columnCount + " colunas, encontradas " + record.size());
+        }
+        try {
+            String id = column(idColumn);
+            String active = column(activeColumn);
+            return ProductRow.of(recordLine, new ProductDTO(
+                    id.isEmpty() ? null : parseNumber("id", id, Long::valueOf),
+                    record.get(nameColumn).trim(),
+                    parseNumber("price", column(priceColumn), BigDecimal::new),
+                    parseNumber("stock", column(stockColumn), Integer::valueOf),
+                    active.isEmpty() || parseBoolean(active)
+            ));
+        } catch (IllegalArgumentException ex) {
+            return ProductRow.invalid(recordLine, ex.getMessage());
+        }
+    }
+
+    private String column(int index) {
+        return index < 0 ? "" : record.get(index).trim();
+    }
+
+    private static <T> T parseNumber(String column, String value, Function<String, T> parser) {
+        try {
+            return parser.apply(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Valor inválido em " + column + ": '" + value + "'");
+        }
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Valor inválido em active: '" + value + "'");
+    }
+
+    // Le um registro inteiro para record; false no fim da entrada
+    private boolean readRecord() throws IOException {
+        record.clear();
+        field.setLength(0);
+        recordError = null;
+
+        int c = reader.read();
+        if (c == -1) {
+            return false;
+        }
+        boolean quoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    record.add(field.toString());
+                    recordError = "Aspas não fechadas";
+                    return true;
+                }
+                if (c == '"') {
+                    int next = reader.read();
+                    if (next != '"') {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else if (c == '\n') {
+                    line++;
+                }
+                field.append((char) c);
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == -1) {
+                record.add(field.toString());
+                if (c == '\n') {
+                    line++;
+                }
+                return true;
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
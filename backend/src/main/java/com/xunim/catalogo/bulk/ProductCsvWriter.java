@@ -0,0 +1,51 @@
+package com.xunim.catalogo.bulk;
+
+import com.xunim.catalogo.dto.ProductDTO;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escreve produtos no mesmo CSV aceito pela importacao ({@code id,name,price,stock,active}).
+ */
+class ProductCsvWriter implements ProductRowWriter {
+
+    static final String HEADER = "id,name,price,stock,active";
+
+    private final Writer writer;
+
+    ProductCsvWriter(Writer writer) throws IOException {
+        this.writer = writer;
+        writer.write(HEADER);
+        writer.write('\n');
+    }
+
+    @Override
+    public void write(ProductDTO product) throws IOException {
+        writer.write(String.valueOf(product.getId()));
+        writer.write(',');
+        writeName(product.getName());
+        writer.write(',');
+        writer.write(product.getPrice().toPlainString());
+        writer.write(',');
+        writer.write(String.valueOf(product.getStock()));
+        writer.write(',');
+        writer.write(String.valueOf(product.getActive()));
+        writer.write('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+
+    private void writeName(String name) throws IOException {
+        if (name.indexOf(',') < 0 && name.indexOf('"') < 0 && name.indexOf('\n') < 0 && name.indexOf('\r') < 0) {
+            writer.write(name);
+            return;
+        }
+        writer.write('"');
+        writer.write(name.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,51 @@
+package com.xunim.catalogo.bulk;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.xunim.catalogo.dto.ProductDTO;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Um objeto JSON por linha, com os mesmos campos de {@link ProductDTO}. Uma linha malformada
+ * vira erro apenas dela; as seguintes continuam sendo lidas.
+ */
+class ProductNdjsonReader implements ProductRowReader {
+
+    private final BufferedReader reader;
+    private final ObjectReader productReader;
+    private long line;
+
+    ProductNdjsonReader(BufferedReader reader, ObjectMapper objectMapper) {
+        this.reader = reader;
+        this.productReader = objectMapper.readerFor(ProductDTO.class);
+    }
+
+    @Override
+    public ProductRow next() throws IOException {
+        String json;
+        while ((json = reader.readLine()) != null) {
+            line++;
+            if (json.isBlank()) {
+                continue;
+            }
+            try {
+                ProductDTO product = productReader.readValue(json);
+                if (product.getActive() == null) {
+                    product.setActive(true);
+                }
+                return ProductRow.of(line, product);
+            } catch (JsonProcessingException ex) {
+                return ProductRow.invalid(line, "JSON inválido: " + ex.getOriginalMessage());
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,35 @@
+package com.xunim.catalogo.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.xunim.catalogo.dto.ProductDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+class ProductNdjsonWriter implements ProductRowWriter {
+
+    private final JsonGenerator generator;
+    private final ObjectWriter productWriter;
+
+    ProductNdjsonWriter(OutputStream output, ObjectMapper objectMapper) throws IOException {
+        this.generator = objectMapper.getFactory().createGenerator(output);
+        this.generator.setRootValueSeparator(null);
+        // Sem flush por objeto: o buffer do gerador so esvazia quando enche ou no close
+        this.productWriter = objectMapper.writerFor(ProductDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    @Override
+    public void write(ProductDTO product) throws IOException {
+        productWriter.writeValue(generator, product);
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.close();
+    }
+}
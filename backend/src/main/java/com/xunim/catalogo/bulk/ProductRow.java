@@ -0,0 +1,17 @@
+package com.xunim.catalogo.bulk;
+
+import com.xunim.catalogo.dto.ProductDTO;
+
+/**
+ * Linha lida de um arquivo de importacao: o produto ou, se a linha nao pode ser interpretada, o erro.
+ */
+public record ProductRow(long line, ProductDTO product, String error) {
+
+    public static ProductRow of(long line, ProductDTO product) {
+        return new ProductRow(line, product, null);
+    }
+
+    public static ProductRow invalid(long line, String error) {
+        return new ProductRow(line, null, error);
+    }
+}
@@ -0,0 +1,15 @@
+package com.xunim.catalogo.bulk;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Leitura incremental de produtos: cada chamada consome apenas o necessario para a proxima linha.
+ */
+public interface ProductRowReader extends Closeable {
+
+    /**
+     * @return a proxima linha, ou {@code null} no fim da entrada
+     */
+    ProductRow next() throws IOException;
+}
@@ -0,0 +1,11 @@
+package com.xunim.catalogo.bulk;
+
+import com.xunim.catalogo.dto.ProductDTO;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+public interface ProductRowWriter extends Closeable {
+
+    void write(ProductDTO product) throws IOException;
+}
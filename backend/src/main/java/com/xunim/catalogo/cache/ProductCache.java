@@ -0,0 +1,226 @@
+package com.xunim.catalogo.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.xunim.catalogo.dto.CacheStatsDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Cache em memoria de produtos ativos, em dois niveis:
+ *
+ * <ul>
+ *     <li>snapshots por id (nome, preco, estoque), usados pelo checkout e para montar paginas;</li>
+ *     <li>paginas de busca por (search, page, size), que guardam apenas os ids e o total.</li>
+ * </ul>
+ *
+ * <p>Os dois sao limitados por tamanho e invalidados pelos eventos de produto apos o commit.
+ * Mudanca so de estoque atualiza o snapshot no lugar e nao derruba paginas; mudanca de nome,
+ * ativacao, cadastro ou remocao altera a composicao das buscas e limpa as paginas. Alteracoes
+ * que chegam durante uma carga do banco descartam o resultado dessa carga, para nao regravar
+ * um valor antigo por cima do evento.</p>
+ */
+@Component
+public class ProductCache {
+
+    private static final int STRIPES = 64;
+
+    private final ProductRepository productRepository;
+    private final Cache<Long, ProductSnapshot> products;
+    private final Cache<PageKey, CachedPage> pages;
+    private final boolean pagesEnabled;
+    // Com replicas de leitura as paginas podem vir atrasadas: so os ids sao guardados, nunca os snapshots
+    private final boolean pageSnapshots;
+
+    // Contadores de versao por faixa de id e das paginas; uma carga so e gravada se nao mudaram
+    private final AtomicLongArray productVersions = new AtomicLongArray(STRIPES);
+    private final AtomicLong pageVersion = new AtomicLong();
+
+    public ProductCache(ProductRepository productRepository, long productsMaximumSize, long pagesMaximumSize) {
+        this(productRepository, productsMaximumSize, pagesMaximumSize, false);
+    }
+
+    @Autowired
+    public ProductCache(ProductRepository productRepository,
+                        @Value("${catalogo.cache.products.maximum-size:100000}") long productsMaximumSize,
+                        @Value("${catalogo.cache.pages.maximum-size:10000}") long pagesMaximumSize,
+                        @Value("${catalogo.datasource.replicas.enabled:false}") boolean replicaReads) {
+        this.productRepository = productRepository;
+        this.products = Caffeine.newBuilder().maximumSize(productsMaximumSize).recordStats().build();
+        this.pages = Caffeine.newBuilder().maximumSize(pagesMaximumSize).recordStats().build();
+        this.pagesEnabled = pagesMaximumSize > 0;
+        this.pageSnapshots = !replicaReads;
+    }
+
+    /**
+     * Produtos ativos entre os ids informados; os ausentes do cache sao buscados em uma unica query.
+     * Ids inexistentes ou inativos nao aparecem no resultado.
+     */
+    public Map<Long, ProductSnapshot> getActive(Collection<Long> productIds) {
+        Map<Long, ProductSnapshot> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductSnapshot snapshot = products.getIfPresent(productId);
+            if (snapshot != null) {
+                result.put(productId, snapshot);
+            } else {
+                missing.add(productId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            long[] versions = snapshotVersions();
+            for (Product product : productRepository.findActiveProductByIds(missing)) {
+                ProductSnapshot snapshot = ProductSnapshot.of(product);
+                result.put(product.getId(), snapshot);
+                putIfUnchanged(snapshot, versions[stripe(product.getId())]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Pagina da listagem vinda do cache; em caso de falta usa o {@code loader} e guarda os ids.
+     * Com {@code catalogo.cache.pages.maximum-size=0} toda chamada vai ao {@code loader}.
+     */
+    public Page<ProductDTO> getPage(String search, Pageable pageable, Supplier<Page<ProductDTO>> loader) {
+        PageKey key = new PageKey(search, pageable.getPageNumber(), pageable.getPageSize());
+
+        CachedPage cached = pagesEnabled ? pages.getIfPresent(key) : null;
+        if (cached != null) {
+            Map<Long, ProductSnapshot> snapshots = getActive(cached.productIds());
+            // Um produto sumiu entre a leitura da pagina e a dos snapshots: a pagina ja foi invalidada
+            if (snapshots.size() == cached.productIds().size()) {
+                List<ProductDTO> content = cached.productIds().stream()
+                        .map(productId -> snapshots.get(productId).toDTO())
+                        .toList();
+                return new PageImpl<>(content, pageable, cached.totalElements());
+            }
+        }
+
+        long observedPageVersion = pageVersion.get();
+        long[] versions = snapshotVersions();
+        Page<ProductDTO> loaded = loader.get();
+        List<Long> productIds = new ArrayList<>(loaded.getNumberOfElements());
+        for (ProductDTO product : loaded.getContent()) {
+            productIds.add(product.getId());
+            if (pageSnapshots) {
+                putIfUnchanged(ProductSnapshot.of(product), versions[stripe(product.getId())]);
+            }
+        }
+        if (pagesEnabled && pageVersion.get() == observedPageVersion) {
+            pages.put(key, new CachedPage(productIds, loaded.getTotalElements()));
+        }
+        return loaded;
+    }
+
+    /**
+     * Atualiza o estoque de snapshots ja em cache com valores lidos do banco (por exemplo, os saldos
+     * reais devolvidos por uma baixa recusada). Nao cria entradas nem toca nas paginas.
+     */
+    public void updateStock(Map<Long, Integer> stockByProductId) {
+        stockByProductId.forEach((productId, stock) -> {
+            bumpVersion(productId);
+            products.asMap().computeIfPresent(productId, (id, snapshot) -> snapshot.withStock(stock));
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        updateStock(event.stockByProductId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        Long productId = event.productId();
+        ProductDTO product = event.product();
+        bumpVersion(productId);
+
+        if (event.removed() || !Boolean.TRUE.equals(product.getActive())) {
+            products.invalidate(productId);
+            invalidatePages();
+            return;
+        }
+
+        // Sem o snapshot anterior nao da para saber se o nome mudou; na duvida as paginas caem
+        ProductSnapshot previous = products.asMap().put(productId, ProductSnapshot.of(product));
+        if (previous == null || !previous.name().equals(product.getName())) {
+            invalidatePages();
+        }
+    }
+
+    // So atualiza o que ja estava em cache, para a importacao nao expulsar os produtos quentes;
+    // as paginas caem uma vez por bloco
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        for (ProductDTO product : event.products()) {
+            bumpVersion(product.getId());
+            if (Boolean.TRUE.equals(product.getActive())) {
+                products.asMap().computeIfPresent(product.getId(), (id, snapshot) -> ProductSnapshot.of(product));
+            } else {
+                products.invalidate(product.getId());
+            }
+        }
+        invalidatePages();
+    }
+
+    public List<CacheStatsDTO> stats() {
+        return List.of(toStatsDTO("products", products), toStatsDTO("pages", pages));
+    }
+
+    private void invalidatePages() {
+        pageVersion.incrementAndGet();
+        pages.invalidateAll();
+    }
+
+    private void putIfUnchanged(ProductSnapshot snapshot, long observedVersion) {
+        if (productVersions.get(stripe(snapshot.id())) == observedVersion) {
+            products.put(snapshot.id(), snapshot);
+        }
+    }
+
+    private long[] snapshotVersions() {
+        long[] versions = new long[STRIPES];
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            versions[stripe] = productVersions.get(stripe);
+        }
+        return versions;
+    }
+
+    private void bumpVersion(Long productId) {
+        productVersions.incrementAndGet(stripe(productId));
+    }
+
+    private static int stripe(Long productId) {
+        return (int) (productId & (STRIPES - 1));
+    }
+
+    private static CacheStatsDTO toStatsDTO(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+
+    private record PageKey(String search, int page, int size) {
+    }
+
+    private record CachedPage(List<Long> productIds, long totalElements) {
+    }
+}
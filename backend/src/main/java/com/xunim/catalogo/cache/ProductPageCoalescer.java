@@ -0,0 +1,192 @@
+package com.xunim.catalogo.cache;
+
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Execucao unica de consultas de pagina identicas e simultaneas, por (search, page, size).
+ *
+ * <p>A primeira requisicao de uma chave registra um {@link CompletableFuture} e executa a consulta
+ * na propria thread; as que chegam enquanto ela roda esperam esse resultado e recebem o mesmo
+ * {@link ProductPageDTO}. Assim, no pico, o numero de consultas ao banco acompanha as paginas
+ * distintas pedidas, nao o numero de requisicoes. Se a consulta falhar, quem esperava recebe o
+ * mesmo erro e a chave fica livre.</p>
+ *
+ * <p>Com {@code catalogo.cache.pages.coalescing.ttl-ms} maior que zero o resultado tambem e
+ * reaproveitado por esse tempo depois de pronto. Qualquer evento de produto descarta os
+ * resultados prontos e impede que consultas iniciadas antes dele sejam reaproveitadas.</p>
+ *
+ * <p>Metricas: {@code catalogo.coalescing.requests{outcome}} com {@code executed}, {@code joined}
+ * (esperou uma consulta em andamento) e {@code reused} (resultado recente); a taxa de
+ * coalescimento e {@code (joined + reused) / total}.</p>
+ */
+@Component
+public class ProductPageCoalescer {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+    private final ConcurrentHashMap<PageKey, Flight> flights = new ConcurrentHashMap<>();
+    // Incrementada por eventos de produto; so resultados da geracao atual sao reaproveitados
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter executed;
+    private final Counter joined;
+    private final Counter reused;
+
+    @Autowired
+    public ProductPageCoalescer(MeterRegistry meterRegistry,
+                                @Value("${catalogo.cache.pages.coalescing.enabled:true}") boolean enabled,
+                                @Value("${catalogo.cache.pages.coalescing.ttl-ms:0}") long ttlMs) {
+        this(meterRegistry, enabled, ttlMs, System::nanoTime);
+    }
+
+    ProductPageCoalescer(MeterRegistry meterRegistry, boolean enabled, long ttlMs, LongSupplier nanoTime) {
+        this.enabled = enabled;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, ttlMs));
+        this.nanoTime = nanoTime;
+        this.executed = meterRegistry.counter("catalogo.coalescing.requests", "outcome", "executed");
+        this.joined = meterRegistry.counter("catalogo.coalescing.requests", "outcome", "joined");
+        this.reused = meterRegistry.counter("catalogo.coalescing.requests", "outcome", "reused");
+    }
+
+    public ProductPageDTO execute(String search, int page, int size, Supplier<ProductPageDTO> query) {
+        if (!enabled) {
+            return query.get();
+        }
+
+        PageKey key = new PageKey(search, page, size);
+        while (true) {
+            Flight current = flights.get(key);
+            if (current != null) {
+                if (!current.result().isDone()) {
+                    joined.increment();
+                    return await(current.result());
+                }
+                if (isFresh(current)) {
+                    reused.increment();
+                    return await(current.result());
+                }
+                flights.remove(key, current);
+                continue;
+            }
+
+            Flight flight = new Flight(new CompletableFuture<>(), generation.get());
+            if (flights.putIfAbsent(key, flight) != null) {
+                continue;
+            }
+            executed.increment();
+            return run(key, flight, query);
+        }
+    }
+
+    public int size() {
+        return flights.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        invalidate();
+    }
+
+    // Com TTL os resultados prontos ficam no mapa ate a proxima requisicao da chave; este passe
+    // remove os de chaves que nao voltaram a ser pedidas
+    @Scheduled(fixedDelayString = "${catalogo.cache.pages.coalescing.purge-interval-ms:1000}")
+    public void purgeExpired() {
+        flights.entrySet().removeIf(entry -> entry.getValue().result().isDone() && !isFresh(entry.getValue()));
+    }
+
+    private ProductPageDTO run(PageKey key, Flight flight, Supplier<ProductPageDTO> query) {
+        ProductPageDTO result;
+        try {
+            result = query.get();
+        } catch (RuntimeException | Error ex) {
+            flights.remove(key, flight);
+            flight.result().completeExceptionally(ex);
+            throw ex;
+        }
+        flight.completedAt = nanoTime.getAsLong();
+        if (ttlNanos == 0) {
+            flights.remove(key, flight);
+        }
+        flight.result().complete(result);
+        return result;
+    }
+
+    private boolean isFresh(Flight flight) {
+        return !flight.result().isCompletedExceptionally()
+                && flight.generation() == generation.get()
+                && nanoTime.getAsLong() - flight.completedAt < ttlNanos;
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        flights.values().removeIf(flight -> flight.result().isDone());
+    }
+
+    private static ProductPageDTO await(CompletableFuture<ProductPageDTO> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando consulta identica em andamento", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (ex.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private record PageKey(String search, int page, int size) {
+    }
+
+    private static final class Flight {
+        private final CompletableFuture<ProductPageDTO> result;
+        private final long generation;
+        // Gravado antes de completar o future; quem ve o future pronto ve o instante
+        private volatile long completedAt;
+
+        private Flight(CompletableFuture<ProductPageDTO> result, long generation) {
+            this.result = result;
+            this.generation = generation;
+        }
+
+        CompletableFuture<ProductPageDTO> result() {
+            return result;
+        }
+
+        long generation() {
+            return generation;
+        }
+    }
+}
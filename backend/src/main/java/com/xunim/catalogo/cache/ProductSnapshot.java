@@ -0,0 +1,34 @@
+package com.xunim.catalogo.cache;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.pricing.OrderTotal;
+
+import java.math.BigDecimal;
+
+/**
+ * Copia imutavel de um produto ativo guardada no {@link ProductCache}. O estoque e apenas
+ * informativo: a baixa real continua sendo decidida pelo update condicional no banco (ou pelo
+ * razao de estoque), nunca por este valor. O preco tambem vem em centavos, convertido uma vez aqui
+ * para o {@link OrderTotal} nao converter a cada linha de pedido.
+ */
+public record ProductSnapshot(Long id, String name, BigDecimal price, long priceCents, int stock) {
+
+    public static ProductSnapshot of(Product product) {
+        return new ProductSnapshot(product.getId(), product.getName(), product.getPrice(),
+                OrderTotal.toCents(product.getPrice()), product.getStock());
+    }
+
+    public static ProductSnapshot of(ProductDTO product) {
+        return new ProductSnapshot(product.getId(), product.getName(), product.getPrice(),
+                OrderTotal.toCents(product.getPrice()), product.getStock());
+    }
+
+    public ProductSnapshot withStock(int stock) {
+        return new ProductSnapshot(id, name, price, priceCents, stock);
+    }
+
+    public ProductDTO toDTO() {
+        return new ProductDTO(id, name, price, stock, true);
+    }
+}
@@ -0,0 +1,55 @@
+package com.xunim.catalogo.config;
+
+import com.xunim.catalogo.admission.AdaptiveConcurrencyLimiter;
+import com.xunim.catalogo.admission.AdmissionControlInterceptor;
+import com.xunim.catalogo.admission.FixedConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Limites separados: checkout saturado recusa POST /orders com 503 sem tomar as threads das leituras do
+// catalogo, que tem um teto fixo proprio. Demais rotas (stream, bulk, export, reativo) ficam de fora
+@Configuration
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int ordersInitialLimit;
+    private final int ordersMinLimit;
+    private final int ordersMaxLimit;
+    private final int productsMaxConcurrent;
+    private final int retryAfterSeconds;
+
+    public AdmissionControlConfig(MeterRegistry meterRegistry,
+                                  @Value("${catalogo.admission.enabled:true}") boolean enabled,
+                                  @Value("${catalogo.admission.orders.initial-limit:20}") int ordersInitialLimit,
+                                  @Value("${catalogo.admission.orders.min-limit:4}") int ordersMinLimit,
+                                  @Value("${catalogo.admission.orders.max-limit:200}") int ordersMaxLimit,
+                                  @Value("${catalogo.admission.products.max-concurrent:150}") int productsMaxConcurrent,
+                                  @Value("${catalogo.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.ordersInitialLimit = ordersInitialLimit;
+        this.ordersMinLimit = ordersMinLimit;
+        this.ordersMaxLimit = ordersMaxLimit;
+        this.productsMaxConcurrent = productsMaxConcurrent;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!enabled) {
+            return;
+        }
+        registry.addInterceptor(new AdmissionControlInterceptor("orders", "POST",
+                        new AdaptiveConcurrencyLimiter(ordersInitialLimit, ordersMinLimit, ordersMaxLimit),
+                        "Muitos pedidos em andamento, tente novamente", retryAfterSeconds, meterRegistry))
+                .addPathPatterns("/orders");
+        registry.addInterceptor(new AdmissionControlInterceptor("products", "GET",
+                        new FixedConcurrencyLimiter(productsMaxConcurrent),
+                        "Muitas consultas em andamento, tente novamente", retryAfterSeconds, meterRegistry))
+                .addPathPatterns("/products");
+    }
+}
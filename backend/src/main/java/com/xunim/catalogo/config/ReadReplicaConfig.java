@@ -0,0 +1,99 @@
+package com.xunim.catalogo.config;
+
+import com.xunim.catalogo.datasource.ReadReplicaDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Transacoes readOnly vao para as replicas e o resto para o primario. O LazyConnectionDataSourceProxy so
+// pega a conexao no primeiro statement, quando o flag readOnly da transacao ja esta definido. Os pools
+// nao sao beans: o unico DataSource do contexto e o proxy, que o JdbcStatementMetrics embrulha uma vez
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "catalogo.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig implements DisposableBean {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final int healthCheckTimeoutSeconds;
+    private ReadReplicaDataSource replicas;
+
+    public ReadReplicaConfig(@Value("${catalogo.datasource.replicas.health-check-timeout-seconds:1}") int healthCheckTimeoutSeconds) {
+        this.healthCheckTimeoutSeconds = healthCheckTimeoutSeconds;
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 Environment environment,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${catalogo.datasource.replicas.urls}") List<String> urls,
+                                 @Value("${catalogo.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                 @Value("${catalogo.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                 @Value("${catalogo.datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+                                 @Value("${catalogo.datasource.replicas.migrate:false}") boolean migrate,
+                                 @Value("${spring.flyway.locations:classpath:db/migration}") String[] flywayLocations) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        MicrometerMetricsTrackerFactory metricsTracker = new MicrometerMetricsTrackerFactory(meterRegistry);
+        primary.setMetricsTrackerFactory(metricsTracker);
+        pools.add(primary);
+
+        List<DataSource> replicaPools = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primary.copyStateTo(config);
+            config.setJdbcUrl(urls.get(i).trim());
+            config.setUsername(username);
+            config.setPassword(password);
+            config.setPoolName(primary.getPoolName() + "-replica-" + i);
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setMinimumIdle(maximumPoolSize);
+            // Replica fora do ar na subida nao impede a aplicacao: fica fora da rotacao ate responder
+            config.setInitializationFailTimeout(-1);
+            HikariDataSource replica = new HikariDataSource(config);
+            pools.add(replica);
+            // Replica local (um segundo H2) nao recebe o schema de ninguem; em producao vem da replicacao
+            if (migrate) {
+                Flyway.configure().dataSource(replica).locations(flywayLocations).load().migrate();
+            }
+            replicaPools.add(replica);
+        }
+        log.info("Leituras readOnly distribuidas entre {} replicas", replicaPools.size());
+
+        replicas = new ReadReplicaDataSource(primary, replicaPools, meterRegistry);
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(replicas);
+        return routing;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.datasource.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        if (replicas != null) {
+            replicas.checkHealth(healthCheckTimeoutSeconds);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+}
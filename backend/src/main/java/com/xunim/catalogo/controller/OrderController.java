@@ -1,10 +1,16 @@
 package com.xunim.catalogo.controller;
 
+import com.xunim.catalogo.dto.OrderQuoteDTO;
 import com.xunim.catalogo.dto.OrderRequestDTO;
 import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.dto.OrderSliceDTO;
+import com.xunim.catalogo.idempotency.IdempotencyStore;
+import com.xunim.catalogo.journal.OrderJournal;
+import com.xunim.catalogo.service.OrderGroupCommitPipeline;
 import com.xunim.catalogo.service.OrderService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,14 +18,57 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 @RequestMapping("/orders")
 @RequiredArgsConstructor
-@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"})
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"}, exposedHeaders = {OrderController.IDEMPOTENT_REPLAYED_HEADER, HttpHeaders.RETRY_AFTER})
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String IDEMPOTENT_REPLAYED_HEADER = "Idempotent-Replayed";
+
     private final OrderService orderService;
+    private final OrderGroupCommitPipeline orderGroupCommitPipeline;
+    private final IdempotencyStore idempotencyStore;
+    private final OrderJournal orderJournal;
 
     @PostMapping
-    public ResponseEntity<OrderResponseDTO> createOrder(@Valid @RequestBody OrderRequestDTO orderRequest) {
-        OrderResponseDTO orderResponse = orderService.createOrder(orderRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body(orderResponse);
+    public ResponseEntity<OrderResponseDTO> createOrder(
+            @Valid @RequestBody OrderRequestDTO orderRequest,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return ResponseEntity.status(HttpStatus.CREATED).body(placeOrder(orderRequest));
+        }
+        // Repeticao da mesma chave devolve o pedido original, sem nova baixa de estoque
+        IdempotencyStore.Result result = idempotencyStore.execute(idempotencyKey, orderRequest,
+                () -> placeOrder(orderRequest));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header(IDEMPOTENT_REPLAYED_HEADER, String.valueOf(result.replayed()))
+                .body(result.response());
+    }
+
+    // Previa do carrinho a cada alteracao: mesmos totais do checkout, sem gravar nada
+    @PostMapping("/quote")
+    public ResponseEntity<OrderQuoteDTO> quote(@Valid @RequestBody OrderRequestDTO orderRequest) {
+        return ResponseEntity.ok(orderService.quote(orderRequest));
+    }
+
+    // Historico por keyset: "after" vazio ou ausente na primeira pagina
+    @GetMapping
+    public ResponseEntity<OrderSliceDTO> getOrders(
+            @RequestParam(value = "after", required = false) String after,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+        return ResponseEntity.ok(orderService.findOrders(after, size));
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<OrderResponseDTO> getOrder(@PathVariable long id) {
+        return ResponseEntity.ok(orderService.findOrder(id));
+    }
+
+    private OrderResponseDTO placeOrder(OrderRequestDTO orderRequest) {
+        if (orderJournal.isEnabled()) {
+            return orderService.journalOrder(orderRequest);
+        }
+        return orderGroupCommitPipeline.isEnabled()
+                ? orderGroupCommitPipeline.submit(orderRequest)
+                : orderService.createOrder(orderRequest);
     }
 }
@@ -1,10 +1,25 @@
 package com.xunim.catalogo.controller;
 
+import com.xunim.catalogo.bulk.BulkFormat;
+import com.xunim.catalogo.bulk.ProductBulkService;
+import com.xunim.catalogo.dto.ProductImportResultDTO;
 import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.dto.ProductSliceDTO;
+import com.xunim.catalogo.dto.ProductSuggestionDTO;
 import com.xunim.catalogo.service.ProductService;
+import com.xunim.catalogo.stream.ProductChangeStream;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @RestController
 @RequestMapping("/products")
@@ -13,6 +28,8 @@ import org.springframework.web.bind.annotation.*;
 public class ProductController {
 
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final ProductChangeStream productChangeStream;
 
     @GetMapping
     public ResponseEntity<ProductPageDTO> getProducts(
@@ -23,4 +40,53 @@ public class ProductController {
         ProductPageDTO products = productService.findProducts(search, page, size);
         return ResponseEntity.ok(products);
     }
+
+    // Modo keyset: ativado pela presenca de "after" (vazio na primeira pagina)
+    @GetMapping(params = "after")
+    public ResponseEntity<ProductSliceDTO> scrollProducts(
+            @RequestParam(value = "search", defaultValue = "") String search,
+            @RequestParam(value = "after") String after,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+
+        ProductSliceDTO products = productService.scrollProducts(search, after, size);
+        return ResponseEntity.ok(products);
+    }
+
+    // Sugestoes enquanto o usuario digita: prefixo do nome sem acento e sem caixa, mais vendidos primeiro
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ProductSuggestionDTO>> suggestProducts(
+            @RequestParam(value = "prefix", defaultValue = "") String prefix,
+            @RequestParam(value = "limit", defaultValue = "8") int limit) {
+
+        return ResponseEntity.ok(productService.suggestProducts(prefix, limit));
+    }
+
+    // Server-sent events com estoque, preco e ativacao dos produtos exibidos, em vez de recarregar a pagina
+    @GetMapping("/changes")
+    public SseEmitter streamChanges(@RequestParam("ids") List<Long> ids) {
+        return productChangeStream.subscribe(ids);
+    }
+
+    // Corpo lido em streaming (CSV com cabecalho ou NDJSON), gravado em blocos
+    @PostMapping(value = "/bulk", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<ProductImportResultDTO> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            InputStream body) throws IOException {
+
+        ProductImportResultDTO result = productBulkService.importProducts(
+                BulkFormat.fromMediaType(contentType), body,
+                contentType.getCharset() != null ? contentType.getCharset() : StandardCharsets.UTF_8);
+        return ResponseEntity.ok(result);
+    }
+
+    @GetMapping("/export")
+    public void exportProducts(
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+
+        BulkFormat bulkFormat = BulkFormat.fromExtension(format);
+        response.setContentType(bulkFormat.mediaType() + ";charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"products." + bulkFormat.extension() + "\"");
+        productBulkService.exportProducts(bulkFormat, response.getOutputStream());
+    }
 }
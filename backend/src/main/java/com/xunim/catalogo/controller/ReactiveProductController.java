@@ -0,0 +1,45 @@
+package com.xunim.catalogo.controller;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.service.ReactiveProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Variante nao bloqueante das leituras de produto. O Spring MVC assina o {@code Mono}/{@code Flux}
+ * e libera a thread do Tomcat ate o resultado ficar pronto; no {@code /stream} cada produto e
+ * escrito em NDJSON assim que chega, pedindo o proximo ao banco so depois de escrever o anterior.
+ */
+@RestController
+@RequestMapping("/reactive/products")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"})
+public class ReactiveProductController {
+
+    private final ReactiveProductService reactiveProductService;
+
+    @GetMapping
+    public Mono<ProductPageDTO> getProducts(
+            @RequestParam(value = "search", defaultValue = "") String search,
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "10") int size) {
+
+        return reactiveProductService.findProducts(search, page, size);
+    }
+
+    @GetMapping("/by-ids")
+    public Flux<ProductDTO> getProductsByIds(@RequestParam("ids") List<Long> ids) {
+        return reactiveProductService.findProductsByIds(ids);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductDTO> streamProducts(@RequestParam(value = "search", defaultValue = "") String search) {
+        return reactiveProductService.streamProducts(search);
+    }
+}
@@ -0,0 +1,55 @@
+package com.xunim.catalogo.controller;
+
+import com.xunim.catalogo.cache.ProductCache;
+import com.xunim.catalogo.dto.CacheStatsDTO;
+import com.xunim.catalogo.dto.ProductSalesDTO;
+import com.xunim.catalogo.dto.SalesWindowDTO;
+import com.xunim.catalogo.serialization.ProductFragmentCache;
+import com.xunim.catalogo.stats.SalesStatistics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = {"http://localhost:4200", "http://localhost:3000"})
+public class StatsController {
+
+    private final SalesStatistics salesStatistics;
+    private final ProductCache productCache;
+    private final ProductFragmentCache productFragmentCache;
+
+    @GetMapping("/top-sellers")
+    public ResponseEntity<List<ProductSalesDTO>> getTopSellers(
+            @RequestParam(value = "limit", defaultValue = "3") int limit) {
+
+        return ResponseEntity.ok(salesStatistics.topSellers(Math.max(0, limit)));
+    }
+
+    @GetMapping("/products/{productId}")
+    public ResponseEntity<ProductSalesDTO> getProductSales(@PathVariable Long productId) {
+        return salesStatistics.productSales(productId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.ok(new ProductSalesDTO(productId, null, 0, BigDecimal.ZERO.setScale(2))));
+    }
+
+    @GetMapping("/sales")
+    public ResponseEntity<SalesWindowDTO> getSalesInWindow(
+            @RequestParam(value = "minutes", defaultValue = "60") int minutes,
+            @RequestParam(value = "productId", required = false) Long productId) {
+
+        return ResponseEntity.ok(salesStatistics.salesInWindow(minutes, productId));
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<List<CacheStatsDTO>> getCacheStats() {
+        List<CacheStatsDTO> stats = new ArrayList<>(productCache.stats());
+        stats.addAll(productFragmentCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -0,0 +1,120 @@
+package com.xunim.catalogo.datasource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Conexoes das transacoes somente leitura: alterna entre as replicas em round-robin, pulando as
+ * marcadas como fora do ar. Uma replica que falha ao entregar conexao sai da rotacao na hora e so
+ * volta pelo {@link #checkHealth(int)}; sem nenhuma replica disponivel a leitura vai ao primario.
+ *
+ * <p>Metricas: {@code catalogo.datasource.read.connections{target}} (replica ou {@code primary}) e
+ * {@code catalogo.datasource.replicas.healthy}.</p>
+ */
+@Slf4j
+public class ReadReplicaDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Counter primaryReads;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReadReplicaDataSource(DataSource primary, List<DataSource> replicas, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            String name = "replica-" + i;
+            this.replicas.add(new Replica(name, replicas.get(i),
+                    meterRegistry.counter("catalogo.datasource.read.connections", "target", name)));
+        }
+        this.primaryReads = meterRegistry.counter("catalogo.datasource.read.connections", "target", "primary");
+        Gauge.builder("catalogo.datasource.replicas.healthy", this, ReadReplicaDataSource::healthyReplicas)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.reads.increment();
+                return connection;
+            } catch (SQLException ex) {
+                markDown(replica, ex);
+            }
+        }
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLException("Credenciais sao fixas por pool; use getConnection()");
+    }
+
+    /**
+     * Testa cada replica com {@link Connection#isValid(int)} e atualiza a rotacao.
+     */
+    public void checkHealth(int timeoutSeconds) {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(timeoutSeconds);
+            } catch (SQLException ex) {
+                healthy = false;
+            }
+            if (healthy && !replica.healthy) {
+                log.info("Replica de leitura {} de volta a rotacao", replica.name);
+            } else if (!healthy && replica.healthy) {
+                log.warn("Replica de leitura {} fora da rotacao: conexao invalida", replica.name);
+            }
+            replica.healthy = healthy;
+        }
+    }
+
+    public int healthyReplicas() {
+        int healthy = 0;
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy++;
+            }
+        }
+        return healthy;
+    }
+
+    private void markDown(Replica replica, SQLException ex) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            log.warn("Replica de leitura {} fora da rotacao", replica.name, ex);
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final Counter reads;
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource, Counter reads) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.reads = reads;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.xunim.catalogo.dto;
+
+import com.xunim.catalogo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posicao de leitura do historico de pedidos: ultimo (criacao, id) entregue ao cliente, do mais novo
+ * para o mais antigo. Trafega como token opaco em Base64 URL-safe, como o {@link ProductCursor}.
+ */
+public record OrderCursor(LocalDateTime createdAt, long id) {
+
+    public static OrderCursor of(OrderResponseDTO order) {
+        return new OrderCursor(order.getCreatedAt(), order.getId());
+    }
+
+    public String encode() {
+        String raw = id + ":" + createdAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Sem token (primeira pagina) devolve null
+    public static OrderCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new OrderCursor(LocalDateTime.parse(raw.substring(separator + 1)),
+                    Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException ex) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
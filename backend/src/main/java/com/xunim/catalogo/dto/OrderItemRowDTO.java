@@ -0,0 +1,20 @@
+package com.xunim.catalogo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+//Item de pedido com o id do pedido, para agrupar o historico lido em uma so consulta
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderItemRowDTO {
+    private Long orderId;
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal unitPrice;
+    private BigDecimal lineTotal;
+}
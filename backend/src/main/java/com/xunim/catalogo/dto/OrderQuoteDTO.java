@@ -0,0 +1,17 @@
+package com.xunim.catalogo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderQuoteDTO {
+    private List<OrderItemResponseDTO> items;
+    private BigDecimal total;
+    private List<StockErrorDTO> stockErrors;
+}
@@ -0,0 +1,17 @@
+package com.xunim.catalogo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSliceDTO {
+    private List<OrderResponseDTO> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+}
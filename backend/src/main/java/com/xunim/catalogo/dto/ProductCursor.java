@@ -0,0 +1,37 @@
+package com.xunim.catalogo.dto;
+
+import com.xunim.catalogo.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Posicao de leitura da listagem por keyset: ultimo (nome, id) entregue ao cliente.
+ * Trafega como token opaco em Base64 URL-safe.
+ */
+public record ProductCursor(String name, long id) {
+
+    public static final ProductCursor START = new ProductCursor("", 0L);
+
+    public static ProductCursor of(ProductDTO product) {
+        return new ProductCursor(product.getName(), product.getId());
+    }
+
+    public String encode() {
+        String raw = id + ":" + name;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            return new ProductCursor(raw.substring(separator + 1), Long.parseLong(raw.substring(0, separator)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
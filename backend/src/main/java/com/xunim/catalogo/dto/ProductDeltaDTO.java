@@ -0,0 +1,22 @@
+package com.xunim.catalogo.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Mudanca de um produto enviada pelo stream de alteracoes; so os campos que mudaram vem preenchidos.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductDeltaDTO {
+    private Long id;
+    private Integer stock;
+    private BigDecimal price;
+    private Boolean active;
+}
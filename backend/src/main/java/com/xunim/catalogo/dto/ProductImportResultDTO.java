@@ -0,0 +1,19 @@
+package com.xunim.catalogo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductImportResultDTO {
+    private long inserted;
+    private long updated;
+    private long rejected;
+    private List<ImportErrorDTO> errors;
+    private long elapsedMs;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,19 @@
+package com.xunim.catalogo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductSliceDTO {
+    private List<ProductDTO> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    // Preenchido apenas quando sai de graca do indice em memoria; nunca gera COUNT no banco
+    private Long totalElements;
+}
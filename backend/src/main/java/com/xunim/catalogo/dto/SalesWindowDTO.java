@@ -0,0 +1,19 @@
+package com.xunim.catalogo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SalesWindowDTO {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long productId;
+    private long unitsSold;
+    private BigDecimal revenue;
+}
@@ -0,0 +1,30 @@
+package com.xunim.catalogo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Resposta de um pedido ja concluido, por Idempotency-Key, para repeticoes apos reinicio
+@Entity
+@Table(name = "idempotency_keys")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key", length = 255)
+    private String key;
+
+    @Column(name = "request_json", nullable = false, length = 65535)
+    private String requestJson;
+
+    @Column(name = "response_json", nullable = false, length = 65535)
+    private String responseJson;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -17,7 +17,8 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private long id;
 
     @Column(name = "created_at", nullable = false)
@@ -26,6 +27,10 @@ public class Order {
     @Column(name = "total", nullable = false, precision = 12, scale = 2)
     private BigDecimal total;
 
+    // false enquanto a baixa de estoque do pedido estiver apenas no razao em memoria
+    @Column(name = "stock_synced", nullable = false)
+    private boolean stockSynced = true;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> items;
 
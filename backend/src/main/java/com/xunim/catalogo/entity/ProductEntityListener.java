@@ -0,0 +1,39 @@
+package com.xunim.catalogo.entity;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.context.ApplicationEventPublisher;
+
+// Instanciado pelo SpringBeanContainer do Hibernate, por isso recebe o publisher por construtor
+public class ProductEntityListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public ProductEntityListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(snapshot(product), false));
+    }
+
+    @PostRemove
+    public void afterRemove(Product product) {
+        eventPublisher.publishEvent(new ProductChangedEvent(snapshot(product), true));
+    }
+
+    private ProductDTO snapshot(Product product) {
+        return new ProductDTO(
+                product.getId(),
+                product.getName(),
+                product.getPrice(),
+                product.getStock(),
+                product.getActive()
+        );
+    }
+}
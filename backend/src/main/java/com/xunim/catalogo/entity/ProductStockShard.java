@@ -0,0 +1,37 @@
+package com.xunim.catalogo.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+// Fracao do estoque de um produto quente; gravada e lida por JDBC no StockShards
+@Entity
+@Table(name = "product_stock_shards")
+@IdClass(ProductStockShard.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductStockShard {
+
+    @Id
+    @Column(name = "product_id")
+    private Long productId;
+
+    @Id
+    @Column(name = "shard")
+    private Integer shard;
+
+    @Column(name = "stock", nullable = false)
+    private Integer stock;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long productId;
+        private Integer shard;
+    }
+}
@@ -0,0 +1,9 @@
+package com.xunim.catalogo.event;
+
+import com.xunim.catalogo.dto.OrderResponseDTO;
+
+/**
+ * Publicado pelo checkout para cada pedido criado; consumido apos o commit.
+ */
+public record OrderPlacedEvent(OrderResponseDTO order) {
+}
@@ -0,0 +1,15 @@
+package com.xunim.catalogo.event;
+
+import com.xunim.catalogo.dto.ProductDTO;
+
+/**
+ * Publicado sempre que um {@code Product} e inserido, alterado ou removido.
+ * O snapshot reflete o estado da entidade no momento do flush; os consumidores
+ * devem escutar com {@code @TransactionalEventListener} para so aplicar apos o commit.
+ */
+public record ProductChangedEvent(ProductDTO product, boolean removed) {
+
+    public Long productId() {
+        return product.getId();
+    }
+}
@@ -0,0 +1,13 @@
+package com.xunim.catalogo.event;
+
+import com.xunim.catalogo.dto.ProductDTO;
+
+import java.util.List;
+
+/**
+ * Publicado uma vez por bloco da importacao em massa, com os produtos gravados via JDBC
+ * (ja com id). Substitui um {@link ProductChangedEvent} por linha para que o indice de busca
+ * aplique o bloco inteiro de uma vez em vez de deslocar as listas a cada produto.
+ */
+public record ProductsImportedEvent(List<ProductDTO> products) {
+}
@@ -0,0 +1,10 @@
+package com.xunim.catalogo.event;
+
+import java.util.Map;
+
+/**
+ * Estoque atual por produto, publicado quando o estoque muda por fora do ciclo de vida
+ * da entidade (updates em lote), onde o {@link ProductChangedEvent} nao e disparado.
+ */
+public record StockChangedEvent(Map<Long, Integer> stockByProductId) {
+}
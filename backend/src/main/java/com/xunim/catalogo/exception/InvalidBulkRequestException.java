@@ -0,0 +1,8 @@
+package com.xunim.catalogo.exception;
+
+public class InvalidBulkRequestException extends RuntimeException {
+
+    public InvalidBulkRequestException(String message) {
+        super(message);
+    }
+}
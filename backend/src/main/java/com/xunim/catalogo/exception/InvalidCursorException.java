@@ -0,0 +1,13 @@
+package com.xunim.catalogo.exception;
+
+import lombok.Getter;
+
+@Getter
+public class InvalidCursorException extends RuntimeException {
+    private final String cursor;
+
+    public InvalidCursorException(String cursor) {
+        super("Cursor de paginação inválido");
+        this.cursor = cursor;
+    }
+}
@@ -0,0 +1,13 @@
+package com.xunim.catalogo.exception;
+
+import lombok.Getter;
+
+@Getter
+public class OrderNotFoundException extends RuntimeException {
+    private final long orderId;
+
+    public OrderNotFoundException(long orderId) {
+        super("Pedido " + orderId + " não encontrado");
+        this.orderId = orderId;
+    }
+}
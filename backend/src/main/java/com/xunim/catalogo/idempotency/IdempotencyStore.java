@@ -0,0 +1,278 @@
+package com.xunim.catalogo.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.entity.IdempotencyRecord;
+import com.xunim.catalogo.exception.IdempotencyKeyMismatchException;
+import com.xunim.catalogo.exception.InvalidIdempotencyKeyException;
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import com.xunim.catalogo.repository.IdempotencyRecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicacao de pedidos por {@code Idempotency-Key}.
+ *
+ * <p>As chaves ficam em faixas ({@code STRIPES}), cada uma um {@link LinkedHashMap} em ordem de
+ * insercao protegido por sua propria trava: busca e insercao sao O(1) e, como o TTL e o mesmo para
+ * todas, as expiradas estao sempre no inicio do mapa. Cada faixa guarda no maximo
+ * {@code maximum-size / STRIPES} chaves; quando cheia descarta a mais antiga ja concluida, nunca uma
+ * em andamento (o pedido executaria de novo para quem repetisse a chave), e se todas estao em
+ * andamento recusa a nova chave com 503.</p>
+ *
+ * <p>A primeira requisicao de uma chave registra um {@link CompletableFuture} e executa o pedido;
+ * repeticoes concorrentes esperam esse mesmo resultado em vez de executar de novo, e as posteriores
+ * recebem a resposta guardada. Se o pedido falhar a chave e liberada e quem esperava recebe o mesmo
+ * erro. Com {@code catalogo.idempotency.persistence.enabled=true} as respostas tambem vao para a
+ * tabela {@code idempotency_keys}, consultada quando a chave nao esta em memoria (por exemplo apos
+ * um reinicio).</p>
+ */
+@Slf4j
+@Component
+public class IdempotencyStore {
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final int STRIPES = 64;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final int maximumSizePerStripe;
+    private final long waitTimeoutMs;
+    private final boolean persistenceEnabled;
+    private final Clock clock;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    @Autowired
+    public IdempotencyStore(IdempotencyRecordRepository recordRepository,
+                            ObjectMapper objectMapper,
+                            @Value("${catalogo.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${catalogo.idempotency.maximum-size:100000}") int maximumSize,
+                            @Value("${catalogo.idempotency.wait-timeout-ms:30000}") long waitTimeoutMs,
+                            @Value("${catalogo.idempotency.persistence.enabled:false}") boolean persistenceEnabled) {
+        this(recordRepository, objectMapper, Duration.ofMinutes(ttlMinutes), maximumSize, waitTimeoutMs,
+                persistenceEnabled, Clock.systemUTC());
+    }
+
+    IdempotencyStore(IdempotencyRecordRepository recordRepository, ObjectMapper objectMapper, Duration ttl,
+                     int maximumSize, long waitTimeoutMs, boolean persistenceEnabled, Clock clock) {
+        this.recordRepository = recordRepository;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.maximumSizePerStripe = Math.max(1, maximumSize / STRIPES);
+        this.waitTimeoutMs = waitTimeoutMs;
+        this.persistenceEnabled = persistenceEnabled;
+        this.clock = clock;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Executa {@code placeOrder} uma unica vez por chave dentro do TTL. A mesma chave com um pedido
+     * diferente e recusada com {@link IdempotencyKeyMismatchException}.
+     */
+    public Result execute(String key, OrderRequestDTO request, Supplier<OrderResponseDTO> placeOrder) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new InvalidIdempotencyKeyException(
+                    "Idempotency-Key deve ter entre 1 e " + MAX_KEY_LENGTH + " caracteres");
+        }
+
+        long now = clock.millis();
+        Stripe stripe = stripes[Math.floorMod(key.hashCode(), STRIPES)];
+        Entry entry;
+        boolean owner = false;
+        stripe.lock.lock();
+        try {
+            stripe.expire(now);
+            entry = stripe.entries.get(key);
+            if (entry == null) {
+                entry = new Entry(request, new CompletableFuture<>(), now + ttl.toMillis());
+                if (!stripe.put(key, entry, maximumSizePerStripe)) {
+                    throw new ServiceOverloadedException("Muitos pedidos com Idempotency-Key em processamento", 1);
+                }
+                owner = true;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+
+        if (!entry.request().equals(request)) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key já usada com um pedido diferente");
+        }
+        if (!owner) {
+            return new Result(await(entry.result()), true);
+        }
+
+        try {
+            Optional<OrderResponseDTO> stored = findStored(key, request);
+            if (stored.isPresent()) {
+                entry.result().complete(stored.get());
+                return new Result(stored.get(), true);
+            }
+            OrderResponseDTO response = placeOrder.get();
+            entry.result().complete(response);
+            store(key, request, response);
+            return new Result(response, false);
+        } catch (RuntimeException ex) {
+            // Sem resposta para guardar: a chave fica livre para uma nova tentativa
+            stripe.lock.lock();
+            try {
+                stripe.entries.remove(key, entry);
+            } finally {
+                stripe.lock.unlock();
+            }
+            entry.result().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                size += stripe.entries.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.idempotency.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = clock.millis();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.expire(now);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        if (persistenceEnabled) {
+            int deleted = recordRepository.deleteCreatedBefore(LocalDateTime.now(clock).minus(ttl));
+            if (deleted > 0) {
+                log.debug("{} chaves de idempotencia expiradas removidas", deleted);
+            }
+        }
+    }
+
+    private OrderResponseDTO await(CompletableFuture<OrderResponseDTO> result) {
+        try {
+            return result.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ServiceOverloadedException("Pedido com a mesma Idempotency-Key ainda em processamento", 1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando pedido com a mesma Idempotency-Key", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private Optional<OrderResponseDTO> findStored(String key, OrderRequestDTO request) {
+        if (!persistenceEnabled) {
+            return Optional.empty();
+        }
+        Optional<IdempotencyRecord> stored = recordRepository.findById(key)
+                .filter(record -> record.getCreatedAt().isAfter(LocalDateTime.now(clock).minus(ttl)));
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!stored.get().getRequestJson().equals(toJson(request))) {
+            throw new IdempotencyKeyMismatchException("Idempotency-Key já usada com um pedido diferente");
+        }
+        try {
+            return Optional.of(objectMapper.readValue(stored.get().getResponseJson(), OrderResponseDTO.class));
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void store(String key, OrderRequestDTO request, OrderResponseDTO response) {
+        if (!persistenceEnabled) {
+            return;
+        }
+        // O pedido ja foi confirmado: uma falha aqui so perde a protecao apos reinicio, nao o pedido
+        try {
+            recordRepository.save(new IdempotencyRecord(key, toJson(request), toJson(response),
+                    LocalDateTime.now(clock)));
+        } catch (RuntimeException ex) {
+            log.warn("Nao foi possivel gravar a chave de idempotencia {}", key, ex);
+        }
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Resposta do pedido e se ela veio de uma execucao anterior com a mesma chave.
+     */
+    public record Result(OrderResponseDTO response, boolean replayed) {
+    }
+
+    private record Entry(OrderRequestDTO request, CompletableFuture<OrderResponseDTO> result, long expiresAt) {
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        // Cheia: descarta a mais antiga ja concluida; false se todas ainda estao em andamento
+        boolean put(String key, Entry entry, int maximumSize) {
+            if (entries.size() >= maximumSize && !evictCompleted()) {
+                return false;
+            }
+            entries.put(key, entry);
+            return true;
+        }
+
+        private boolean evictCompleted() {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().result().isDone()) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Ordem de insercao com TTL fixo: para na primeira chave ainda valida
+        void expire(long now) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext() && iterator.next().expiresAt() <= now) {
+                iterator.remove();
+            }
+        }
+    }
+}
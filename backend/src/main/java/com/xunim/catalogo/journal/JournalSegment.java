@@ -0,0 +1,136 @@
+package com.xunim.catalogo.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * Um arquivo do diario, de tamanho fixo e mapeado em memoria. Cada registro e
+ * {@code [tamanho int][crc32c int][conteudo]}; o arquivo novo vem zerado, entao um tamanho 0
+ * marca o fim. Na leitura, o primeiro registro com tamanho impossivel ou CRC errado (escrita
+ * interrompida por uma queda) encerra o segmento: nada depois dele foi confirmado.
+ */
+final class JournalSegment implements AutoCloseable {
+
+    static final int RECORD_HEADER_BYTES = Integer.BYTES * 2;
+
+    private static final String PREFIX = "orders-";
+    private static final String SUFFIX = ".journal";
+
+    private final long number;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(long number, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.number = number;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static JournalSegment create(Path directory, long number, int sizeBytes) throws IOException {
+        Path path = directory.resolve(fileName(number));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            return new JournalSegment(number, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes));
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Registros integros do segmento, na ordem em que foram gravados.
+     */
+    static List<JournaledOrder> read(Path path) throws IOException {
+        List<JournaledOrder> orders = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32C crc = new CRC32C();
+            while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+                int length = buffer.getInt();
+                int checksum = buffer.getInt();
+                if (length <= 0 || length > buffer.remaining()) {
+                    break;
+                }
+                ByteBuffer payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                orders.add(JournaledOrder.decode(payload));
+                buffer.position(buffer.position() + length);
+            }
+        }
+        return orders;
+    }
+
+    static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+    }
+
+    static long numberOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    long number() {
+        return number;
+    }
+
+    int position() {
+        return buffer.position();
+    }
+
+    boolean hasRoomFor(int payloadBytes) {
+        return buffer.remaining() >= RECORD_HEADER_BYTES + payloadBytes;
+    }
+
+    // O tamanho vai por ultimo: ate ele ser escrito o registro continua parecendo o fim do segmento
+    void append(byte[] payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        int start = buffer.position();
+        buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+        buffer.put(start + RECORD_HEADER_BYTES, payload);
+        buffer.putInt(start, payload.length);
+        buffer.position(start + RECORD_HEADER_BYTES + payload.length);
+    }
+
+    // Zera tudo o que foi anexado a partir de start e volta a escrever dali: um registro mais curto
+    // gravado por cima nao deixa para tras o tamanho e o CRC validos de um registro descartado
+    void truncate(int start) {
+        buffer.put(start, new byte[buffer.position() - start]);
+        buffer.position(start);
+    }
+
+    // Um force por lote de registros (group fsync)
+    void force() {
+        buffer.force();
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static String fileName(long number) {
+        return PREFIX + String.format("%016d", number) + SUFFIX;
+    }
+}
@@ -0,0 +1,72 @@
+package com.xunim.catalogo.journal;
+
+import com.xunim.catalogo.pricing.OrderTotal;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pedido aceito como gravado no {@link OrderJournal}: tudo o que vai para {@code orders} e
+ * {@code order_items}, menos os ids dos itens, gerados so na aplicacao. Valores em centavos
+ * ({@link OrderTotal#SCALE}), a mesma escala das colunas.
+ */
+public record JournaledOrder(long orderId, LocalDateTime createdAt, BigDecimal total, List<Item> items) {
+
+    private static final int HEADER_BYTES = Long.BYTES * 3 + Integer.BYTES * 2;
+    private static final int ITEM_BYTES = Long.BYTES * 3 + Integer.BYTES;
+
+    public record Item(long productId, int quantity, BigDecimal unitPrice, BigDecimal lineTotal) {
+    }
+
+    /**
+     * Quantidade por produto, somando itens repetidos; e a baixa de estoque do pedido.
+     */
+    public Map<Long, Integer> quantities() {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (Item item : items) {
+            quantities.merge(item.productId(), item.quantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + ITEM_BYTES * items.size());
+        buffer.putLong(orderId);
+        buffer.putLong(createdAt.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(createdAt.getNano());
+        buffer.putLong(toCents(total));
+        buffer.putInt(items.size());
+        for (Item item : items) {
+            buffer.putLong(item.productId());
+            buffer.putInt(item.quantity());
+            buffer.putLong(toCents(item.unitPrice()));
+            buffer.putLong(toCents(item.lineTotal()));
+        }
+        return buffer.array();
+    }
+
+    static JournaledOrder decode(ByteBuffer buffer) {
+        long orderId = buffer.getLong();
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        BigDecimal total = BigDecimal.valueOf(buffer.getLong(), OrderTotal.SCALE);
+        int itemCount = buffer.getInt();
+        List<Item> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new Item(buffer.getLong(), buffer.getInt(),
+                    BigDecimal.valueOf(buffer.getLong(), OrderTotal.SCALE),
+                    BigDecimal.valueOf(buffer.getLong(), OrderTotal.SCALE)));
+        }
+        return new JournaledOrder(orderId, createdAt, total, items);
+    }
+
+    // As colunas sao NUMERIC(12, 2): qualquer valor gravado cabe exato em centavos
+    private static long toCents(BigDecimal value) {
+        return value.movePointRight(OrderTotal.SCALE).longValueExact();
+    }
+}
@@ -0,0 +1,101 @@
+package com.xunim.catalogo.journal;
+
+import com.xunim.catalogo.repository.OrderRepository;
+import com.xunim.catalogo.repository.ProductRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.TreeMap;
+
+/**
+ * Grava pedidos do {@link OrderJournal} nas tabelas em uma transacao por lote: um batch JDBC para
+ * {@code orders}, um para {@code order_items} e uma baixa por produto em {@code products}. Pedidos cujo
+ * id ja esta em {@code orders} sao pulados na mesma transacao, o que torna a reaplicacao do diario
+ * (depois de uma queda entre o commit e a remocao do segmento) segura: cada pedido entra uma vez so.
+ */
+@Component
+public class JournaledOrderWriter {
+
+    private static final String INSERT_ORDER_SQL =
+            "INSERT INTO orders (id, created_at, total, stock_synced) VALUES (?, ?, ?, true)";
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO order_items (id, order_id, product_id, quantity, unit_price, line_total) VALUES (?, ?, ?, ?, ?, ?)";
+    // Mesmo incremento do allocationSize de OrderItem
+    private static final int ORDER_ITEMS_INCREMENT = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final SequenceBlockAllocator itemIds;
+
+    public JournaledOrderWriter(JdbcTemplate jdbcTemplate,
+                                OrderRepository orderRepository,
+                                ProductRepository productRepository,
+                                TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.itemIds = new SequenceBlockAllocator(jdbcTemplate, "order_items_seq", ORDER_ITEMS_INCREMENT);
+    }
+
+    /**
+     * Insere os pedidos que ainda nao estao no banco e baixa o estoque deles.
+     */
+    public Result insertMissing(List<JournaledOrder> orders) {
+        return transactionTemplate.execute(status -> {
+            Set<Long> existing = new HashSet<>(orderRepository.findExistingIds(
+                    orders.stream().map(JournaledOrder::orderId).toList()));
+            List<JournaledOrder> missing = orders.stream()
+                    .filter(order -> !existing.contains(order.orderId()))
+                    .toList();
+            if (missing.isEmpty()) {
+                return new Result(0, Map.of());
+            }
+
+            List<Object[]> items = new ArrayList<>();
+            Map<Long, Integer> quantities = new TreeMap<>();
+            for (JournaledOrder order : missing) {
+                for (JournaledOrder.Item item : order.items()) {
+                    items.add(new Object[]{itemIds.nextId(), order.orderId(), item});
+                }
+                order.quantities().forEach((productId, quantity) -> quantities.merge(productId, quantity, Integer::sum));
+            }
+
+            // Mesmo binding do Hibernate com hibernate.jdbc.time_zone=UTC, para o historico ler o mesmo instante
+            Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+            jdbcTemplate.batchUpdate(INSERT_ORDER_SQL, missing, missing.size(), (ps, order) -> {
+                ps.setLong(1, order.orderId());
+                ps.setTimestamp(2, Timestamp.valueOf(order.createdAt()), utc);
+                ps.setBigDecimal(3, order.total());
+            });
+            jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, items, items.size(), (ps, row) -> {
+                JournaledOrder.Item item = (JournaledOrder.Item) row[2];
+                ps.setLong(1, (Long) row[0]);
+                ps.setLong(2, (Long) row[1]);
+                ps.setLong(3, item.productId());
+                ps.setInt(4, item.quantity());
+                ps.setBigDecimal(5, item.unitPrice());
+                ps.setBigDecimal(6, item.lineTotal());
+            });
+            productRepository.decrementStock(quantities);
+            return new Result(missing.size(), quantities);
+        });
+    }
+
+    /**
+     * Pedidos inseridos agora e a baixa total por produto deles.
+     */
+    public record Result(int inserted, Map<Long, Integer> quantities) {
+    }
+}
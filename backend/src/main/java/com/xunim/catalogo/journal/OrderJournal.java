@@ -0,0 +1,354 @@
+package com.xunim.catalogo.journal;
+
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import com.xunim.catalogo.stock.StockLedger;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Diario de pedidos em disco para o checkout ({@code catalogo.orders.journal.enabled=true}, junto com o
+ * razao de estoque em memoria).
+ *
+ * <p>O pedido aceito pelo razao e anexado a um segmento mapeado em memoria ({@link JournalSegment}) e o
+ * cliente recebe a resposta assim que o registro esta em disco: uma thread escritora junta ate
+ * {@code max-batch-size} registros por {@code force()}, entao o custo do checkout e uma escrita
+ * sequencial local em vez das idas ao banco. O {@link #apply()} agendado grava os pedidos em lote
+ * pelo {@link JournaledOrderWriter} e remove os segmentos ja aplicados por inteiro; cheio, o segmento
+ * atual da lugar a um novo.</p>
+ *
+ * <p>Na subida, antes do razao carregar os saldos, os segmentos que sobraram sao lidos e os pedidos
+ * que ainda nao estao em {@code orders} sao gravados, cada um uma unica vez. Isso acontece mesmo com o
+ * diario desligado, para uma troca de configuracao nao perder pedidos ja confirmados.</p>
+ */
+@Slf4j
+@Component
+public class OrderJournal {
+
+    // Mesmo incremento do allocationSize de Order
+    private static final int ORDERS_INCREMENT = 50;
+
+    private final JournaledOrderWriter orderWriter;
+    private final StockLedger stockLedger;
+    private final SequenceBlockAllocator orderIds;
+    private final Path directory;
+    private final boolean enabled;
+    private final int segmentBytes;
+    private final int maxBatchSize;
+    private final int applyBatchSize;
+    private final BlockingQueue<PendingAppend> queue;
+    // Segmentos abertos por numero; o de maior numero e o que recebe as escritas
+    private final ConcurrentSkipListMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentLinkedDeque<Appended> unapplied = new ConcurrentLinkedDeque<>();
+    // Um lote por vez; trava e nao monitor porque o lote e uma transacao inteira (threads virtuais)
+    private final ReentrantLock applyLock = new ReentrantLock();
+
+    private JournalSegment segment;
+    private long nextSegmentNumber;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    @Autowired
+    public OrderJournal(JournaledOrderWriter orderWriter,
+                        StockLedger stockLedger,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${catalogo.orders.journal.enabled:false}") boolean enabled,
+                        @Value("${catalogo.stock.ledger.enabled:false}") boolean ledgerEnabled,
+                        @Value("${catalogo.orders.journal.dir:./data/journal}") String directory,
+                        @Value("${catalogo.orders.journal.segment-size-mb:64}") int segmentSizeMb,
+                        @Value("${catalogo.orders.journal.max-batch-size:256}") int maxBatchSize,
+                        @Value("${catalogo.orders.journal.queue-capacity:4096}") int queueCapacity,
+                        @Value("${catalogo.orders.journal.apply-batch-size:1000}") int applyBatchSize) {
+        this(orderWriter, stockLedger, new SequenceBlockAllocator(jdbcTemplate, "orders_seq", ORDERS_INCREMENT),
+                enabled, ledgerEnabled, Path.of(directory), segmentSizeMb * 1024 * 1024, maxBatchSize,
+                queueCapacity, applyBatchSize);
+    }
+
+    OrderJournal(JournaledOrderWriter orderWriter, StockLedger stockLedger, SequenceBlockAllocator orderIds,
+                 boolean enabled, boolean ledgerEnabled, Path directory, int segmentBytes, int maxBatchSize,
+                 int queueCapacity, int applyBatchSize) {
+        this.orderWriter = orderWriter;
+        this.stockLedger = stockLedger;
+        this.orderIds = orderIds;
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.maxBatchSize = maxBatchSize;
+        this.applyBatchSize = applyBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (enabled && !ledgerEnabled) {
+            log.warn("Diario de pedidos exige catalogo.stock.ledger.enabled=true; checkout segue pelo banco");
+        }
+        this.enabled = enabled && ledgerEnabled;
+    }
+
+    public boolean isEnabled() {
+        return running && stockLedger.isEnabled();
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            replay();
+            if (!enabled) {
+                return;
+            }
+            Files.createDirectories(directory);
+            roll();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Nao foi possivel abrir o diario de pedidos em " + directory, ex);
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "order-journal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Diario de pedidos ativo em {}: segmentos de {} bytes, ate {} registros por force",
+                directory.toAbsolutePath(), segmentBytes, maxBatchSize);
+    }
+
+    // A escritora esvazia a fila antes de sair; o que nao puder ser aplicado fica no disco para a proxima subida
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+        // Espera o ciclo agendado em andamento em vez de pula-lo, para nao sair com pedidos na fila
+        applyLock.lock();
+        try {
+            while (!unapplied.isEmpty()) {
+                int before = unapplied.size();
+                applyBatch();
+                if (unapplied.size() >= before) {
+                    break;
+                }
+            }
+        } finally {
+            applyLock.unlock();
+        }
+        if (unapplied.isEmpty()) {
+            for (JournalSegment open : segments.values()) {
+                open.delete();
+            }
+            segments.clear();
+        }
+    }
+
+    /**
+     * Id para um novo pedido, do mesmo espaco de ids dos pedidos gravados via JPA.
+     */
+    public long nextOrderId() {
+        return orderIds.nextId();
+    }
+
+    /**
+     * Anexa o pedido e espera o {@code force()} do lote em que ele entrou. Ao voltar o pedido esta
+     * confirmado: uma queda a partir daqui e coberta pela reaplicacao na subida.
+     */
+    public void append(JournaledOrder order) {
+        PendingAppend pending = new PendingAppend(order, order.encode(), new CompletableFuture<>());
+        if (pending.payload().length + JournalSegment.RECORD_HEADER_BYTES > segmentBytes) {
+            throw new IllegalArgumentException("Pedido maior que um segmento do diario");
+        }
+        if (!running || !queue.offer(pending)) {
+            throw new ServiceOverloadedException("Diario de pedidos cheio, tente novamente", 1);
+        }
+        try {
+            pending.written().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    public int unappliedCount() {
+        return unapplied.size();
+    }
+
+    // Se o stop() ja esta esvaziando o diario, o ciclo agendado nao tem o que fazer
+    @Scheduled(fixedDelayString = "${catalogo.orders.journal.apply-interval-ms:20}")
+    public void apply() {
+        if (!applyLock.tryLock()) {
+            return;
+        }
+        try {
+            applyBatch();
+        } finally {
+            applyLock.unlock();
+        }
+    }
+
+    private void applyBatch() {
+        List<Appended> batch = new ArrayList<>();
+        Appended next;
+        while (batch.size() < applyBatchSize && (next = unapplied.poll()) != null) {
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        JournaledOrderWriter.Result result;
+        try {
+            result = orderWriter.insertMissing(batch.stream().map(Appended::order).toList());
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao gravar {} pedidos do diario, nova tentativa no proximo ciclo", batch.size(), ex);
+            // Volta para o inicio na mesma ordem: os segmentos so saem depois dos pedidos que contem
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                unapplied.addFirst(batch.get(i));
+            }
+            return;
+        }
+        stockLedger.applied(result.quantities());
+
+        // Tudo antes do segmento do ultimo pedido aplicado ja esta no banco
+        long appliedSegment = batch.get(batch.size() - 1).segment();
+        Map<Long, JournalSegment> applied = segments.headMap(appliedSegment);
+        for (JournalSegment done : List.copyOf(applied.values())) {
+            try {
+                done.delete();
+                segments.remove(done.number());
+            } catch (IOException ex) {
+                log.warn("Nao foi possivel remover o segmento {} do diario", done.number(), ex);
+            }
+        }
+    }
+
+    private void replay() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(JournalSegment::isSegment)
+                    .sorted(Comparator.comparingLong(JournalSegment::numberOf))
+                    .toList();
+        }
+        if (files.isEmpty()) {
+            return;
+        }
+
+        List<JournaledOrder> orders = new ArrayList<>();
+        for (Path file : files) {
+            orders.addAll(JournalSegment.read(file));
+        }
+        int inserted = 0;
+        for (int from = 0; from < orders.size(); from += applyBatchSize) {
+            List<JournaledOrder> chunk = orders.subList(from, Math.min(orders.size(), from + applyBatchSize));
+            inserted += orderWriter.insertMissing(chunk).inserted();
+        }
+        log.info("Diario de pedidos relido: {} registros em {} segmentos, {} pedidos gravados agora",
+                orders.size(), files.size(), inserted);
+
+        for (Path file : files) {
+            Files.delete(file);
+        }
+        nextSegmentNumber = JournalSegment.numberOf(files.get(files.size() - 1)) + 1;
+    }
+
+    private void runWriter() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<PendingAppend> batch) {
+        List<Appended> written = new ArrayList<>(batch.size());
+        // Onde o lote comecou em cada segmento que tocou, para desfaze-lo se nao for confirmado
+        Map<JournalSegment, Integer> starts = new LinkedHashMap<>();
+        try {
+            starts.put(segment, segment.position());
+            for (PendingAppend pending : batch) {
+                if (!segment.hasRoomFor(pending.payload().length)) {
+                    segment.force();
+                    roll();
+                    starts.put(segment, segment.position());
+                }
+                segment.append(pending.payload());
+                written.add(new Appended(pending.order(), segment.number()));
+            }
+            segment.force();
+        } catch (IOException | RuntimeException ex) {
+            log.error("Falha ao gravar {} pedidos no diario", batch.size(), ex);
+            discard(starts);
+            RuntimeException failure = ex instanceof RuntimeException runtime ? runtime
+                    : new UncheckedIOException((IOException) ex);
+            batch.forEach(pending -> pending.written().completeExceptionally(failure));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Appended appended = written.get(i);
+            stockLedger.hold(appended.order().quantities());
+            unapplied.add(appended);
+            batch.get(i).written().complete(null);
+        }
+    }
+
+    // Os pedidos de um lote que falhou foram recusados e a reserva no razao desfeita: se os registros
+    // ficassem integros no segmento, a releitura na proxima subida os gravaria mesmo assim. Parte do
+    // lote pode ja estar em disco (segmento forcado antes de uma troca), por isso o force de novo;
+    // se ele tambem falhar, os zeros seguem nas paginas mapeadas e o sistema os grava depois
+    private void discard(Map<JournalSegment, Integer> starts) {
+        starts.forEach((touched, start) -> {
+            touched.truncate(start);
+            try {
+                touched.force();
+            } catch (RuntimeException ex) {
+                log.warn("Nao foi possivel forcar o descarte do lote no segmento {} do diario", touched.number(), ex);
+            }
+        });
+    }
+
+    private void roll() throws IOException {
+        segment = JournalSegment.create(directory, nextSegmentNumber++, segmentBytes);
+        segments.put(segment.number(), segment);
+    }
+
+    private record PendingAppend(JournaledOrder order, byte[] payload, CompletableFuture<Void> written) {
+    }
+
+    private record Appended(JournaledOrder order, long segment) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.xunim.catalogo.journal;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Ids tirados de uma sequence do banco em blocos, com a mesma regra do otimizador {@code pooled} do
+ * Hibernate que gera os ids das entidades: o valor {@code H} lido da sequence reserva
+ * {@code (H - incremento, H]}. Assim os ids do diario e os do checkout via JPA nunca se cruzam, e so
+ * um a cada {@code incremento} pedidos vai ao banco.
+ *
+ * <p>A troca de bloco segura um {@link ReentrantLock} e nao o monitor do objeto: com threads virtuais,
+ * esperar a ida ao banco dentro de um {@code synchronized} prenderia a thread portadora.</p>
+ */
+public class SequenceBlockAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextValueSql;
+    private final int incrementSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private long next;
+    private long last = -1;
+
+    public SequenceBlockAllocator(JdbcTemplate jdbcTemplate, String sequenceName, int incrementSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextValueSql = "SELECT NEXT VALUE FOR " + sequenceName;
+        this.incrementSize = incrementSize;
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next > last) {
+                long high = jdbcTemplate.queryForObject(nextValueSql, Long.class);
+                // O primeiro valor da sequence (1) nao tem bloco abaixo dele
+                next = Math.max(1, high - incrementSize + 1);
+                last = high;
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
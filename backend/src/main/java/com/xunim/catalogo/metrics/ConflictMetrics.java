@@ -0,0 +1,45 @@
+package com.xunim.catalogo.metrics;
+
+import com.xunim.catalogo.dto.StockErrorDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Contadores dos conflitos devolvidos ao cliente: itens recusados por falta de estoque
+ * ({@code catalogo.stock.insufficient}) e conflitos de lock otimista no {@code @Version}
+ * ({@code catalogo.optimistic.lock.conflicts{entity}}). So e chamado no caminho de erro.
+ *
+ * <p>O id do produto nao vira tag: cada produto do catalogo criaria uma serie nova no registry. O
+ * detalhe por produto sai no log em debug.</p>
+ */
+@Slf4j
+@Component
+public class ConflictMetrics {
+
+    private final MeterRegistry meterRegistry;
+    private final Counter insufficientStock;
+
+    public ConflictMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.insufficientStock = meterRegistry.counter("catalogo.stock.insufficient");
+    }
+
+    public void insufficientStock(List<StockErrorDTO> stockErrors) {
+        insufficientStock.increment(stockErrors.size());
+        if (log.isDebugEnabled()) {
+            for (StockErrorDTO stockError : stockErrors) {
+                log.debug("Estoque insuficiente para o produto {}: disponivel {}",
+                        stockError.getProductId(), stockError.getAvailable());
+            }
+        }
+    }
+
+    public void optimisticLockConflict(String entityName) {
+        String entity = entityName == null ? "unknown" : entityName.substring(entityName.lastIndexOf('.') + 1);
+        meterRegistry.counter("catalogo.optimistic.lock.conflicts", "entity", entity).increment();
+    }
+}
@@ -0,0 +1,190 @@
+package com.xunim.catalogo.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Conta os statements JDBC executados ({@code execute*}, com {@code executeBatch} valendo uma ida ao
+ * banco) e os atribui ao metodo de repositorio Spring Data em execucao na thread:
+ *
+ * <ul>
+ *     <li>{@code catalogo.repository.statements{repository,method}}: statements por chamada do metodo;</li>
+ *     <li>{@code catalogo.jdbc.statements.unattributed}: statements fora de qualquer repositorio
+ *     (flush no commit, JdbcTemplate usado direto pelos servicos).</li>
+ * </ul>
+ *
+ * <p>O tempo por metodo ja vem de {@code spring.data.repository.invocations}. Por chamada o custo e
+ * um contador na thread e um {@code record} em um summary ja resolvido; desligar com
+ * {@code catalogo.metrics.jdbc.enabled=false}.</p>
+ */
+@Component
+public class JdbcStatementMetrics implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final Set<String> STATEMENT_FACTORIES = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final boolean enabled;
+
+    private final ThreadLocal<Invocation> current = new ThreadLocal<>();
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    private volatile Counter unattributed;
+
+    public JdbcStatementMetrics(ObjectProvider<MeterRegistry> meterRegistry,
+                                @Value("${catalogo.metrics.jdbc.enabled:true}") boolean enabled) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        // Antes do afterPropertiesSet, que e quando a fabrica cria o proxy do repositorio
+        if (enabled && bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> {
+                        String repository = information.getRepositoryInterface().getSimpleName();
+                        proxyFactory.addAdvice((MethodInterceptor) invocation -> track(repository,
+                                invocation.getMethod().getName(), invocation::proceed));
+                    }));
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)) {
+            return new CountingDataSource(dataSource);
+        }
+        return bean;
+    }
+
+    /**
+     * Executa {@code call} como uma chamada do metodo de repositorio informado, registrando
+     * quantos statements ela executou. Chamadas aninhadas contam apenas no metodo mais interno.
+     */
+    <T> T track(String repository, String method, ThrowingSupplier<T> call) throws Throwable {
+        Invocation previous = current.get();
+        Invocation invocation = new Invocation();
+        current.set(invocation);
+        try {
+            return call.get();
+        } finally {
+            if (previous == null) {
+                current.remove();
+            } else {
+                current.set(previous);
+            }
+            summary(repository, method).record(invocation.statements);
+        }
+    }
+
+    private void onStatementExecuted() {
+        Invocation invocation = current.get();
+        if (invocation != null) {
+            invocation.statements++;
+        } else {
+            unattributed().increment();
+        }
+    }
+
+    private DistributionSummary summary(String repository, String method) {
+        return summaries.computeIfAbsent(repository + '.' + method, key -> DistributionSummary
+                .builder("catalogo.repository.statements")
+                .description("Statements JDBC executados por chamada de metodo de repositorio")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(meterRegistry.getObject()));
+    }
+
+    private Counter unattributed() {
+        Counter counter = unattributed;
+        if (counter == null) {
+            counter = Counter.builder("catalogo.jdbc.statements.unattributed")
+                    .description("Statements JDBC executados fora de metodos de repositorio")
+                    .register(meterRegistry.getObject());
+            unattributed = counter;
+        }
+        return counter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T countingProxy(T target, Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Object result = invoke(target, method, args);
+            if (type == Connection.class && STATEMENT_FACTORIES.contains(method.getName())) {
+                return wrapStatement(result);
+            }
+            if (type != Connection.class && EXECUTE_METHODS.contains(method.getName())) {
+                onStatementExecuted();
+            }
+            return result;
+        });
+    }
+
+    private Object wrapStatement(Object statement) {
+        if (statement instanceof CallableStatement callable) {
+            return countingProxy(callable, CallableStatement.class);
+        }
+        if (statement instanceof PreparedStatement prepared) {
+            return countingProxy(prepared, PreparedStatement.class);
+        }
+        return countingProxy((Statement) statement, Statement.class);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException ex) {
+            throw ex.getTargetException();
+        }
+    }
+
+    @FunctionalInterface
+    interface ThrowingSupplier<T> {
+        T get() throws Throwable;
+    }
+
+    private static final class Invocation {
+        private long statements;
+    }
+
+    // Classe concreta (e nao um Proxy) para que unwrap/isWrapperFor continuem chegando ao pool
+    private final class CountingDataSource extends DelegatingDataSource {
+
+        private CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return countingProxy(obtainTargetDataSource().getConnection(), Connection.class);
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return countingProxy(obtainTargetDataSource().getConnection(username, password), Connection.class);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.xunim.catalogo.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Total de um pedido somado em centavos ({@code long}), usado pelo checkout e pela cotacao.
+ *
+ * <p>O resultado e identico, valor e escala, ao de somar {@code price.multiply(quantity).setScale(2, HALF_EVEN)}
+ * em {@code BigDecimal}: com preco de ate duas casas a multiplicacao ja e exata e o arredondamento nao
+ * muda nada, entao basta multiplicar centavos. Preco com mais casas, ou linha que estoure o {@code long},
+ * segue pelo calculo em {@code BigDecimal}, e a partir dai o total tambem.</p>
+ */
+public final class OrderTotal {
+
+    public static final int SCALE = 2;
+
+    /** Preco que nao tem valor exato em centavos (mais de duas casas ou grande demais). */
+    public static final long NOT_EXACT = Long.MIN_VALUE;
+
+    private long totalCents;
+    // Preenchido so depois da primeira linha fora do caminho em centavos
+    private BigDecimal slowTotal;
+
+    /**
+     * Centavos do preco, ou {@link #NOT_EXACT}; calculado uma vez por produto (ver {@code ProductSnapshot}).
+     */
+    public static long toCents(BigDecimal price) {
+        if (price == null) {
+            return NOT_EXACT;
+        }
+        try {
+            return price.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException ex) {
+            return NOT_EXACT;
+        }
+    }
+
+    /**
+     * Soma a linha ao total e devolve o total da linha, na escala de centavos.
+     */
+    public BigDecimal addLine(BigDecimal unitPrice, long unitCents, int quantity) {
+        long lineCents = multiply(unitCents, quantity);
+        if (lineCents == NOT_EXACT) {
+            BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(quantity)).setScale(SCALE, RoundingMode.HALF_EVEN);
+            addSlow(lineTotal);
+            return lineTotal;
+        }
+
+        BigDecimal lineTotal = BigDecimal.valueOf(lineCents, SCALE);
+        if (slowTotal == null) {
+            long sum = totalCents + lineCents;
+            // Mesmo teste de Math.addExact, sem a excecao no caminho comum
+            if (((totalCents ^ sum) & (lineCents ^ sum)) >= 0) {
+                totalCents = sum;
+                return lineTotal;
+            }
+        }
+        addSlow(lineTotal);
+        return lineTotal;
+    }
+
+    public BigDecimal total() {
+        return slowTotal != null ? slowTotal : BigDecimal.valueOf(totalCents, SCALE);
+    }
+
+    private void addSlow(BigDecimal lineTotal) {
+        if (slowTotal == null) {
+            slowTotal = BigDecimal.valueOf(totalCents, SCALE);
+        }
+        slowTotal = slowTotal.add(lineTotal);
+    }
+
+    private static long multiply(long unitCents, int quantity) {
+        if (unitCents == NOT_EXACT) {
+            return NOT_EXACT;
+        }
+        long high = Math.multiplyHigh(unitCents, quantity);
+        long low = unitCents * quantity;
+        // Produto cabe em 64 bits se a parte alta for so a extensao de sinal da baixa
+        return high == (low >> 63) && low != NOT_EXACT ? low : NOT_EXACT;
+    }
+}
@@ -0,0 +1,27 @@
+package com.xunim.catalogo.repository;
+
+import com.xunim.catalogo.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    //Sempre no primario: uma replica atrasada nao veria a chave e o pedido seria repetido
+    @Override
+    @Transactional
+    Optional<IdempotencyRecord> findById(String key);
+
+    //Remove as chaves cujo TTL ja passou
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,16 +1,40 @@
 package com.xunim.catalogo.repository;
 
+import com.xunim.catalogo.dto.OrderItemRowDTO;
 import com.xunim.catalogo.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
 
-    // Estatisticas de vendas - BONUS
     @Query("SELECT oi FROM OrderItem oi WHERE oi.order.id = :orderId")
     List<OrderItem> findByOrderId(Long orderId);
+
+    //Itens de varios pedidos em uma so consulta, ja com o nome do produto (historico sem N+1)
+    @Query("SELECT new com.xunim.catalogo.dto.OrderItemRowDTO(oi.order.id, p.id, p.name, oi.quantity, " +
+            "oi.unitPrice, oi.lineTotal) " +
+            "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.order.id, oi.id")
+    List<OrderItemRowDTO> findItemRowsByOrderIds(@Param("orderIds") Collection<Long> orderIds);
+
+    //Totais por produto para reconstruir as estatisticas de vendas, com o produto ainda ativo ou nao
+    @Query("SELECT oi.product.id, oi.product.name, SUM(oi.quantity), SUM(oi.lineTotal), oi.product.active " +
+            "FROM OrderItem oi GROUP BY oi.product.id, oi.product.name, oi.product.active")
+    List<Object[]> sumSalesByProduct();
+
+    //Vendas recentes para os baldes da janela temporal
+    @Query("SELECT oi.product.id, oi.order.createdAt, oi.quantity, oi.lineTotal FROM OrderItem oi " +
+            "WHERE oi.order.createdAt >= :since")
+    List<Object[]> findSalesSince(@Param("since") LocalDateTime since);
+
+    //Quantidades de pedidos cuja baixa ainda nao chegou em products (recuperacao do razao)
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi " +
+            "WHERE oi.order.stockSynced = false GROUP BY oi.product.id")
+    List<Object[]> sumUnsyncedQuantitiesByProduct();
 }
@@ -1,9 +1,41 @@
 package com.xunim.catalogo.repository;
 
 import com.xunim.catalogo.entity.Order;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    //Primeira pagina do historico, do pedido mais novo para o mais antigo
+    @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findLatest(Limit limit);
+
+    //Paginas seguintes do historico a partir de um cursor (keyset), sem OFFSET e sem COUNT
+    @Query("SELECT o FROM Order o WHERE " +
+            "(o.createdAt < :beforeCreatedAt OR (o.createdAt = :beforeCreatedAt AND o.id < :beforeId)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findLatestBefore(@Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+                                 @Param("beforeId") long beforeId,
+                                 Limit limit);
+
+    //Ids que ja estao gravados, para a reaplicacao do diario de pedidos pular o que ja entrou
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") List<Long> ids);
+
+    //Pedidos cuja baixa de estoque ja foi gravada em products pelo razao em memoria
+    @Modifying
+    @Query("UPDATE Order o SET o.stockSynced = true WHERE o.id IN :ids")
+    int markStockSynced(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Order o SET o.stockSynced = true WHERE o.stockSynced = false")
+    int markAllStockSynced();
 }
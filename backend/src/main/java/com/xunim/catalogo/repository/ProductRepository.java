@@ -1,37 +1,51 @@
 package com.xunim.catalogo.repository;
 
+import com.xunim.catalogo.dto.ProductDTO;
 import com.xunim.catalogo.entity.Product;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, ProductRepositoryCustom {
 
     //Listar todos os produtos ativos para pagina inicial
     @Query("SELECT p FROM Product p WHERE p.id IN :ids AND p.active = true")
     List<Product> findActiveProductByIds(@Param("ids") List<Long> ids);
 
-    //Listar produtos por nome e paginado  #TODO: Query
-    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
-            "(:search IS NULL OR :search = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Product> findActiveProductsByName(@Param("search") String search, Pageable pageable);
-
-    //Listar Top 3 produtos Mais vendidos
-    @Query(value = """
-        SELECT p.id, p.name, p.price, p.stock, p.active, p.version,
-                COALESCE(SUM(oi.quantity), 0) as total_sold
-        FROM products p
-        LEFT JOIN order_items oi ON p.id = ou.product.id
-        WHERE p.active = true
-        GROUP BY p.id, p.name, p.price, p.stock, p.active, p.version
-        ORDER BY total_sold DESC
-        LIMIT 3
-        """, nativeQuery = true)
-    List<Object[]> findTop3MostSoldProducts();
+    // As consultas de leitura abaixo projetam direto no DTO: nenhuma entidade e hidratada nem fica
+    // no contexto de persistencia, entao nao ha snapshot de dirty checking nem controle de @Version
+
+    //Carga inicial dos indices em memoria
+    @Query("SELECT new com.xunim.catalogo.dto.ProductDTO(p.id, p.name, p.price, p.stock, p.active) " +
+            "FROM Product p WHERE p.active = true")
+    List<ProductDTO> findAllActiveProducts();
+
+    //Listar produtos por nome e paginado (readOnly: vai para uma replica de leitura quando configurada)
+    @Transactional(readOnly = true)
+    @Query(value = "SELECT new com.xunim.catalogo.dto.ProductDTO(p.id, p.name, p.price, p.stock, p.active) " +
+            "FROM Product p WHERE p.active = true AND " +
+            "(:search IS NULL OR :search = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')))",
+            countQuery = "SELECT COUNT(p) FROM Product p WHERE p.active = true AND " +
+                    "(:search IS NULL OR :search = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')))")
+    Page<ProductDTO> findActiveProductsByName(@Param("search") String search, Pageable pageable);
+
+    //Listar produtos por nome a partir de um cursor (keyset), sem OFFSET e sem COUNT; tambem readOnly
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.xunim.catalogo.dto.ProductDTO(p.id, p.name, p.price, p.stock, p.active) " +
+            "FROM Product p WHERE p.active = true AND " +
+            "(:search IS NULL OR :search = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+            "(p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) " +
+            "ORDER BY p.name ASC, p.id ASC")
+    List<ProductDTO> findActiveProductsByNameAfter(@Param("search") String search,
+                                                @Param("afterName") String afterName,
+                                                @Param("afterId") long afterId,
+                                                Limit limit);
 }
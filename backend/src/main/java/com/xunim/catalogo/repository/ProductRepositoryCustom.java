@@ -0,0 +1,52 @@
+package com.xunim.catalogo.repository;
+
+import com.xunim.catalogo.dto.ProductDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+public interface ProductRepositoryCustom {
+
+    /**
+     * Baixa condicional de estoque em um unico batch JDBC
+     * ({@code UPDATE ... SET stock = stock - ? WHERE id = ? AND stock >= ?}).
+     *
+     * @return com estoque suficiente, as linhas dos produtos lidas depois da baixa (travadas ate o commit);
+     * senao, o saldo atual dos produtos que nao tinham estoque suficiente
+     */
+    StockDecrement decrementStockIfAvailable(Map<Long, Integer> quantities);
+
+    // Baixa incondicional em batch, usada pelo razao em memoria que ja validou o saldo
+    void decrementStock(Map<Long, Integer> quantities);
+
+    /**
+     * Grava os produtos em batch JDBC: os que tem id existente sao atualizados, os demais inseridos
+     * (os ids gerados sao preenchidos nos proprios DTOs). Publica um {@code ProductsImportedEvent} com o bloco.
+     */
+    UpsertResult upsertProducts(List<ProductDTO> products);
+
+    // Percorre todos os produtos por id com um cursor somente-avanco, sem montar a lista em memoria
+    void streamProducts(int fetchSize, Consumer<ProductDTO> consumer);
+
+    // Produtos ativos lidos direto do banco, sem cache e sem trava
+    List<ProductDTO> findActiveProducts(Collection<Long> productIds);
+
+    // Produtos ativos travados em ordem de id ({@code SELECT ... FOR UPDATE}) ate o fim da transacao
+    List<ProductDTO> lockActiveProducts(Collection<Long> productIds);
+
+    record UpsertResult(int inserted, int updated) {
+    }
+
+    /**
+     * @param shortages saldo atual de cada produto sem estoque suficiente; vazio se a baixa foi feita
+     * @param products  linhas dos produtos baixados, por id; vazio se houve falta
+     */
+    record StockDecrement(Map<Long, Integer> shortages, Map<Long, ProductDTO> products) {
+
+        public boolean isAccepted() {
+            return shortages.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.xunim.catalogo.repository;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private static final String DECREMENT_IF_AVAILABLE_SQL =
+            "UPDATE products SET stock = stock - ?, version = version + 1 WHERE id = ? AND stock >= ? AND active = true";
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET stock = stock - ?, version = version + 1 WHERE id = ?";
+    private static final String UPDATE_PRODUCT_SQL =
+            "UPDATE products SET name = ?, price = ?, stock = ?, active = ?, version = version + 1 WHERE id = ?";
+    private static final String INSERT_PRODUCT_SQL =
+            "INSERT INTO products (name, price, stock, active, version) VALUES (?, ?, ?, ?, 0)";
+    private static final String SELECT_ALL_SQL =
+            "SELECT id, name, price, stock, active FROM products ORDER BY id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public StockDecrement decrementStockIfAvailable(Map<Long, Integer> quantities) {
+        // Ordem fixa por id: pedidos concorrentes travam as linhas na mesma sequencia e nao entram em deadlock
+        if (quantities.isEmpty()) {
+            return new StockDecrement(Map.of(), Map.of());
+        }
+        List<Map.Entry<Long, Integer>> items = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        // Lote unico do tamanho do pedido: o resultado tem um so array de contagens
+        int[] updated = jdbcTemplate.batchUpdate(DECREMENT_IF_AVAILABLE_SQL, items, items.size(), (ps, item) -> {
+            ps.setInt(1, item.getValue());
+            ps.setLong(2, item.getKey());
+            ps.setInt(3, item.getValue());
+        })[0];
+
+        List<Long> failed = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            if (updated[i] == 0) {
+                failed.add(items.get(i).getKey());
+            }
+        }
+        if (!failed.isEmpty()) {
+            Map<Long, Integer> shortages = new LinkedHashMap<>();
+            failed.forEach(productId -> shortages.put(productId, 0));
+            shortages.putAll(findStock(failed));
+            return new StockDecrement(shortages, Map.of());
+        }
+
+        // As linhas seguem travadas ate o commit: o saldo publicado e o preco do pedido sao os que valem
+        Map<Long, ProductDTO> products = new HashMap<>();
+        Map<Long, Integer> stock = new HashMap<>();
+        for (ProductDTO product : findActiveProducts(quantities.keySet())) {
+            products.put(product.getId(), product);
+            stock.put(product.getId(), product.getStock());
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(stock));
+        return new StockDecrement(Map.of(), products);
+    }
+
+    @Override
+    public void decrementStock(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, Integer>> items = new ArrayList<>(new TreeMap<>(quantities).entrySet());
+        jdbcTemplate.batchUpdate(DECREMENT_SQL, items, items.size(), (ps, item) -> {
+            ps.setInt(1, item.getValue());
+            ps.setLong(2, item.getKey());
+        });
+    }
+
+    @Override
+    public UpsertResult upsertProducts(List<ProductDTO> products) {
+        List<ProductDTO> updates = new ArrayList<>();
+        List<ProductDTO> inserts = new ArrayList<>();
+        for (ProductDTO product : products) {
+            (product.getId() == null ? inserts : updates).add(product);
+        }
+
+        int updated = 0;
+        if (!updates.isEmpty()) {
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_PRODUCT_SQL, updates, updates.size(), (ps, product) -> {
+                setProductColumns(ps, product);
+                ps.setLong(5, product.getId());
+            })[0];
+            // Id que nao existe no banco vira cadastro novo, com id gerado
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    updates.get(i).setId(null);
+                    inserts.add(updates.get(i));
+                } else {
+                    updated++;
+                }
+            }
+        }
+
+        if (!inserts.isEmpty()) {
+            GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_PRODUCT_SQL, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            setProductColumns(ps, inserts.get(i));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return inserts.size();
+                        }
+                    }, keyHolder);
+            List<Map<String, Object>> keys = keyHolder.getKeyList();
+            for (int i = 0; i < inserts.size(); i++) {
+                inserts.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            }
+        }
+
+        // O JDBC nao passa pelo ciclo de vida da entidade; o evento mantem indice, cache e razao em dia
+        eventPublisher.publishEvent(new ProductsImportedEvent(List.copyOf(products)));
+        return new UpsertResult(inserts.size(), updated);
+    }
+
+    @Override
+    public void streamProducts(int fetchSize, Consumer<ProductDTO> consumer) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_ALL_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            consumer.accept(toProductDTO(rs));
+        });
+    }
+
+    @Override
+    public List<ProductDTO> findActiveProducts(Collection<Long> productIds) {
+        return queryActiveProducts(productIds, "");
+    }
+
+    @Override
+    public List<ProductDTO> lockActiveProducts(Collection<Long> productIds) {
+        return queryActiveProducts(productIds, " FOR UPDATE");
+    }
+
+    private List<ProductDTO> queryActiveProducts(Collection<Long> productIds, String lockClause) {
+        if (productIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        return jdbcTemplate.query("SELECT id, name, price, stock, active FROM products WHERE active = true AND id IN ("
+                        + placeholders + ") ORDER BY id" + lockClause,
+                (rs, rowNum) -> toProductDTO(rs), productIds.toArray());
+    }
+
+    private static ProductDTO toProductDTO(ResultSet rs) throws SQLException {
+        return new ProductDTO(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getBigDecimal("price"),
+                rs.getInt("stock"),
+                rs.getBoolean("active")
+        );
+    }
+
+    private static void setProductColumns(PreparedStatement ps, ProductDTO product) throws SQLException {
+        ps.setString(1, product.getName());
+        ps.setBigDecimal(2, product.getPrice());
+        ps.setInt(3, product.getStock());
+        ps.setBoolean(4, product.getActive());
+    }
+
+    private Map<Long, Integer> findStock(Collection<Long> productIds) {
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, Integer> stock = new HashMap<>();
+        jdbcTemplate.query("SELECT id, stock FROM products WHERE active = true AND id IN (" + placeholders + ")",
+                rs -> {
+                    stock.put(rs.getLong("id"), rs.getInt("stock"));
+                },
+                productIds.toArray());
+        return stock;
+    }
+}
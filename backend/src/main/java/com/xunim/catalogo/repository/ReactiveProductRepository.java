@@ -0,0 +1,118 @@
+package com.xunim.catalogo.repository;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Leituras de produtos por um driver R2DBC, sem bloquear a thread da requisicao.
+ *
+ * <p>O pool e criado aqui e nao exposto como {@code ConnectionFactory}: um bean desse tipo faz o
+ * Spring Boot desligar a configuracao do DataSource JDBC usado pelo JPA no checkout. A URL deve
+ * apontar para o mesmo banco de {@code spring.datasource.url}.</p>
+ */
+@Repository
+public class ReactiveProductRepository implements DisposableBean {
+
+    // Produtos com estoque fracionado (StockShards) tem o saldo oficial na soma das fracoes
+    private static final String COLUMNS = "id, name, price, CAST(COALESCE((SELECT SUM(s.stock) FROM product_stock_shards s "
+            + "WHERE s.product_id = products.id), stock) AS INTEGER) AS stock, active";
+
+    private static final String SEARCH_FILTER = "active = true AND "
+            + "(:search = '' OR LOWER(name) LIKE LOWER(CONCAT('%', :search, '%')))";
+
+    private final ConnectionPool connectionPool;
+    private final DatabaseClient databaseClient;
+
+    public ReactiveProductRepository(@Value("${catalogo.reactive.url:r2dbc:h2:mem:///catalogodb}") String url,
+                                     @Value("${spring.datasource.username:sa}") String username,
+                                     @Value("${spring.datasource.password:}") String password,
+                                     @Value("${catalogo.reactive.pool.max-size:10}") int maxPoolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        this.connectionPool = new ConnectionPool(ConnectionPoolConfiguration
+                .builder(ConnectionFactories.get(options))
+                .initialSize(0)
+                .maxSize(maxPoolSize)
+                .build());
+        this.databaseClient = DatabaseClient.create(connectionPool);
+    }
+
+    //Pagina da listagem por nome, na mesma ordem (nome, id) do indice e do cursor
+    public Flux<ProductDTO> findActiveByName(String search, long offset, int limit) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products WHERE " + SEARCH_FILTER
+                        + " ORDER BY name ASC, id ASC LIMIT :limit OFFSET :offset")
+                .bind("search", search)
+                .bind("limit", limit)
+                .bind("offset", offset)
+                .map(ReactiveProductRepository::toDTO)
+                .all();
+    }
+
+    public Mono<Long> countActiveByName(String search) {
+        return databaseClient.sql("SELECT COUNT(*) FROM products WHERE " + SEARCH_FILTER)
+                .bind("search", search)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+
+    public Flux<ProductDTO> findActiveByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Flux.empty();
+        }
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products "
+                        + "WHERE active = true AND id IN (:ids) ORDER BY id")
+                .bind("ids", ids)
+                .map(ReactiveProductRepository::toDTO)
+                .all();
+    }
+
+    //Todos os produtos ativos que casam com a busca, emitidos conforme o assinante pede
+    public Flux<ProductDTO> streamActiveByName(String search) {
+        return databaseClient.sql("SELECT " + COLUMNS + " FROM products WHERE " + SEARCH_FILTER
+                        + " ORDER BY name ASC, id ASC")
+                .bind("search", search)
+                .map(ReactiveProductRepository::toDTO)
+                .all();
+    }
+
+    //Soma das fracoes de estoque por produto, para os produtos servidos pelo indice em memoria
+    public Mono<Map<Long, Integer>> sumShardStock(Collection<Long> productIds) {
+        return databaseClient.sql("SELECT product_id, CAST(SUM(stock) AS INTEGER) FROM product_stock_shards "
+                        + "WHERE product_id IN (:ids) GROUP BY product_id")
+                .bind("ids", productIds)
+                .map(row -> Map.entry(row.get(0, Long.class), row.get(1, Integer.class)))
+                .all()
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue);
+    }
+
+    @Override
+    public void destroy() {
+        connectionPool.dispose();
+    }
+
+    private static ProductDTO toDTO(Readable row) {
+        return new ProductDTO(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                row.get("price", BigDecimal.class),
+                row.get("stock", Integer.class),
+                row.get("active", Boolean.class)
+        );
+    }
+}
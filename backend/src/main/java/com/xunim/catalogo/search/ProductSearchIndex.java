@@ -0,0 +1,471 @@
+package com.xunim.catalogo.search;
+
+import com.xunim.catalogo.dto.ProductCursor;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Indice em memoria de n-gramas (1 a 3 caracteres) sobre o nome normalizado dos produtos ativos.
+ *
+ * <p>Cada lista de postings guarda ordinais de documentos ja ordenados por (nome, id), a mesma
+ * ordem da listagem paginada. Termos de ate 3 caracteres sao respondidos direto pela lista do
+ * n-grama (pagina e total em O(1)); termos maiores filtram a menor lista de trigramas do termo.
+ * O indice e atualizado apos o commit via {@link ProductChangedEvent} e, na importacao em massa,
+ * um bloco por vez via {@link ProductsImportedEvent}.</p>
+ */
+@Slf4j
+@Component
+public class ProductSearchIndex {
+
+    private static final int MAX_GRAM = 3;
+
+    private final ProductRepository productRepository;
+    private final boolean enabled;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinalsById = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private Entry[] docs = new Entry[0];
+    private PostingList all = new PostingList();
+    private int nextOrdinal;
+
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository,
+                              @Value("${catalogo.search.index.enabled:true}") boolean enabled) {
+        this.productRepository = productRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Antes do aquecimento da subida (StartupWarmUp), que ja deve passar pelo indice
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            List<ProductDTO> products = productRepository.findAllActiveProducts();
+            ordinalsById.clear();
+            postings.clear();
+            freeOrdinals.clear();
+            all = new PostingList();
+            docs = new Entry[Math.max(16, products.size())];
+            nextOrdinal = 0;
+
+            products.stream()
+                    .map(Entry::of)
+                    .sorted(Entry.ORDER)
+                    .forEach(entry -> {
+                        int ordinal = nextOrdinal++;
+                        docs[ordinal] = entry;
+                        ordinalsById.put(entry.id(), ordinal);
+                        // Inseridos em ordem, entao basta anexar ao final de cada lista
+                        all.append(ordinal);
+                        for (String gram : grams(entry.folded())) {
+                            postings.computeIfAbsent(gram, key -> new PostingList()).append(ordinal);
+                        }
+                    });
+
+            ready = true;
+            log.info("Indice de busca carregado com {} produtos e {} n-gramas", products.size(), postings.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        ProductDTO product = event.product();
+        if (event.removed() || !Boolean.TRUE.equals(product.getActive())) {
+            remove(product.getId());
+        } else {
+            upsert(product);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (enabled) {
+            upsertAll(event.products());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            event.stockByProductId().forEach((productId, stock) -> {
+                Integer ordinal = ordinalsById.get(productId);
+                if (ordinal != null) {
+                    docs[ordinal] = docs[ordinal].withStock(stock);
+                }
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsert(ProductDTO product) {
+        Entry entry = Entry.of(product);
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(entry.id());
+            if (ordinal != null && docs[ordinal].name().equals(entry.name())) {
+                // Apenas preco/estoque mudaram: a posicao nas listas continua valida
+                docs[ordinal] = entry;
+                return;
+            }
+            if (ordinal != null) {
+                removeOrdinal(ordinal);
+            }
+            insert(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Aplica um bloco de produtos sob uma unica trava de escrita: os novos ordinais sao ordenados
+     * e intercalados em cada lista de postings de uma vez, em vez de um deslocamento por produto.
+     */
+    public void upsertAll(Collection<ProductDTO> products) {
+        // O mesmo id pode vir repetido no bloco; vale a ultima linha
+        Map<Long, ProductDTO> latest = new LinkedHashMap<>();
+        products.forEach(product -> latest.put(product.getId(), product));
+
+        lock.writeLock().lock();
+        try {
+            List<Integer> added = new ArrayList<>(latest.size());
+            for (ProductDTO product : latest.values()) {
+                Integer ordinal = ordinalsById.get(product.getId());
+                if (!Boolean.TRUE.equals(product.getActive())) {
+                    if (ordinal != null) {
+                        removeOrdinal(ordinal);
+                    }
+                    continue;
+                }
+                Entry entry = Entry.of(product);
+                if (ordinal != null && docs[ordinal].name().equals(entry.name())) {
+                    docs[ordinal] = entry;
+                    continue;
+                }
+                if (ordinal != null) {
+                    removeOrdinal(ordinal);
+                }
+                added.add(allocate(entry));
+            }
+            if (added.isEmpty()) {
+                return;
+            }
+
+            // Percorridos em ordem, os ordinais ficam ordenados dentro de cada lista parcial
+            added.sort((left, right) -> Entry.ORDER.compare(docs[left], docs[right]));
+            PostingList addedToAll = new PostingList();
+            Map<String, PostingList> addedByGram = new HashMap<>();
+            for (int ordinal : added) {
+                addedToAll.append(ordinal);
+                for (String gram : grams(docs[ordinal].folded())) {
+                    addedByGram.computeIfAbsent(gram, key -> new PostingList()).append(ordinal);
+                }
+            }
+            all.merge(addedToAll, docs);
+            addedByGram.forEach((gram, list) ->
+                    postings.computeIfAbsent(gram, key -> new PostingList()).merge(list, docs));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long productId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(productId);
+            if (ordinal != null) {
+                removeOrdinal(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public SearchResult search(String search, int page, int size) {
+        String term = SearchNormalizer.normalize(search);
+        long offset = (long) page * size;
+
+        lock.readLock().lock();
+        try {
+            if (term.length() <= MAX_GRAM) {
+                PostingList list = term.isEmpty() ? all : postings.get(term);
+                if (list == null) {
+                    return new SearchResult(List.of(), 0);
+                }
+                List<ProductDTO> content = new ArrayList<>(size);
+                for (long i = offset; i < list.size && content.size() < size; i++) {
+                    content.add(docs[list.ordinals[(int) i]].toDTO());
+                }
+                return new SearchResult(content, list.size);
+            }
+
+            PostingList candidates = smallestTrigramList(term);
+            if (candidates == null) {
+                return new SearchResult(List.of(), 0);
+            }
+            List<ProductDTO> content = new ArrayList<>(size);
+            long matched = 0;
+            for (int i = 0; i < candidates.size; i++) {
+                Entry entry = docs[candidates.ordinals[i]];
+                if (entry.folded().contains(term)) {
+                    if (matched >= offset && content.size() < size) {
+                        content.add(entry.toDTO());
+                    }
+                    matched++;
+                }
+            }
+            return new SearchResult(content, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ScrollResult scroll(String search, ProductCursor after, int size) {
+        String term = SearchNormalizer.normalize(search);
+        Entry key = new Entry(after.id(), after.name(), "", null, 0);
+
+        lock.readLock().lock();
+        try {
+            PostingList candidates = term.length() <= MAX_GRAM
+                    ? (term.isEmpty() ? all : postings.get(term))
+                    : smallestTrigramList(term);
+            if (candidates == null) {
+                return new ScrollResult(List.of(), false, 0);
+            }
+
+            // Primeira posicao estritamente depois do cursor, em O(log n)
+            int found = candidates.search(key, docs);
+            int start = found >= 0 ? found + 1 : -(found + 1);
+            List<ProductDTO> content = new ArrayList<>(size);
+
+            if (term.length() <= MAX_GRAM) {
+                for (int i = start; i < candidates.size && content.size() < size; i++) {
+                    content.add(docs[candidates.ordinals[i]].toDTO());
+                }
+                return new ScrollResult(content, start + size < candidates.size, candidates.size);
+            }
+
+            boolean hasNext = false;
+            long matched = 0;
+            for (int i = 0; i < candidates.size; i++) {
+                Entry entry = docs[candidates.ordinals[i]];
+                if (entry.folded().contains(term)) {
+                    if (i >= start) {
+                        if (content.size() < size) {
+                            content.add(entry.toDTO());
+                        } else {
+                            hasNext = true;
+                        }
+                    }
+                    matched++;
+                }
+            }
+            return new ScrollResult(content, hasNext, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return all.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private PostingList smallestTrigramList(String term) {
+        PostingList smallest = null;
+        for (int i = 0; i + MAX_GRAM <= term.length(); i++) {
+            PostingList list = postings.get(term.substring(i, i + MAX_GRAM));
+            if (list == null) {
+                return null;
+            }
+            if (smallest == null || list.size < smallest.size) {
+                smallest = list;
+            }
+        }
+        return smallest;
+    }
+
+    private void insert(Entry entry) {
+        int ordinal = allocate(entry);
+        all.insert(ordinal, docs);
+        for (String gram : grams(entry.folded())) {
+            postings.computeIfAbsent(gram, key -> new PostingList()).insert(ordinal, docs);
+        }
+    }
+
+    // Reserva o ordinal e registra o documento, sem tocar nas listas de postings
+    private int allocate(Entry entry) {
+        int ordinal = freeOrdinals.isEmpty() ? nextOrdinal++ : freeOrdinals.pop();
+        if (ordinal >= docs.length) {
+            docs = Arrays.copyOf(docs, Math.max(16, docs.length * 2));
+        }
+        docs[ordinal] = entry;
+        ordinalsById.put(entry.id(), ordinal);
+        return ordinal;
+    }
+
+    private void removeOrdinal(int ordinal) {
+        Entry entry = docs[ordinal];
+        all.remove(ordinal, docs);
+        for (String gram : grams(entry.folded())) {
+            PostingList list = postings.get(gram);
+            if (list != null) {
+                list.remove(ordinal, docs);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+        ordinalsById.remove(entry.id());
+        docs[ordinal] = null;
+        freeOrdinals.push(ordinal);
+    }
+
+    private static Set<String> grams(String folded) {
+        Set<String> grams = new HashSet<>();
+        for (int n = 1; n <= MAX_GRAM; n++) {
+            for (int i = 0; i + n <= folded.length(); i++) {
+                grams.add(folded.substring(i, i + n));
+            }
+        }
+        return grams;
+    }
+
+    public record SearchResult(List<ProductDTO> content, long totalElements) {
+    }
+
+    public record ScrollResult(List<ProductDTO> content, boolean hasNext, long totalElements) {
+    }
+
+    private record Entry(long id, String name, String folded, BigDecimal price, int stock) {
+
+        static final Comparator<Entry> ORDER = Comparator.comparing(Entry::name).thenComparingLong(Entry::id);
+
+        static Entry of(ProductDTO product) {
+            return new Entry(product.getId(), product.getName(), SearchNormalizer.normalize(product.getName()),
+                    product.getPrice(), product.getStock());
+        }
+
+        Entry withStock(int stock) {
+            return new Entry(id, name, folded, price, stock);
+        }
+
+        ProductDTO toDTO() {
+            return new ProductDTO(id, name, price, stock, true);
+        }
+    }
+
+    // Lista de ordinais mantida na ordem (nome, id) das entradas que referencia
+    private static final class PostingList {
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void append(int ordinal) {
+            ensureCapacity();
+            ordinals[size++] = ordinal;
+        }
+
+        void insert(int ordinal, Entry[] docs) {
+            int position = -(search(docs[ordinal], docs) + 1);
+            ensureCapacity();
+            System.arraycopy(ordinals, position, ordinals, position + 1, size - position);
+            ordinals[position] = ordinal;
+            size++;
+        }
+
+        // Intercala outra lista ja ordenada: cada novo ordinal acha sua posicao por busca binaria a partir
+        // da anterior e os trechos entre elas sao copiados em bloco, sem comparar cada elemento existente
+        void merge(PostingList other, Entry[] docs) {
+            int[] merged = new int[Math.max(4, size + other.size)];
+            int from = 0;
+            int k = 0;
+            for (int j = 0; j < other.size; j++) {
+                int ordinal = other.ordinals[j];
+                int position = -(search(docs[ordinal], docs, from) + 1);
+                System.arraycopy(ordinals, from, merged, k, position - from);
+                k += position - from;
+                merged[k++] = ordinal;
+                from = position;
+            }
+            System.arraycopy(ordinals, from, merged, k, size - from);
+            ordinals = merged;
+            size = k + size - from;
+        }
+
+        void remove(int ordinal, Entry[] docs) {
+            int position = search(docs[ordinal], docs);
+            if (position >= 0) {
+                System.arraycopy(ordinals, position + 1, ordinals, position, size - position - 1);
+                size--;
+            }
+        }
+
+        private int search(Entry key, Entry[] docs) {
+            return search(key, docs, 0);
+        }
+
+        private int search(Entry key, Entry[] docs, int low) {
+            int high = size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = Entry.ORDER.compare(docs[ordinals[mid]], key);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        private void ensureCapacity() {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.xunim.catalogo.search;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductSalesDTO;
+import com.xunim.catalogo.dto.ProductSuggestionDTO;
+import com.xunim.catalogo.event.OrderPlacedEvent;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.stats.SalesStatistics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sugestoes por prefixo para a caixa de busca ({@code GET /products/suggest}), servidas por uma
+ * {@link SuggestTrie} imutavel trocada por inteiro a cada remontagem: a consulta nao trava nada.
+ *
+ * <p>Os nomes dos produtos ativos ficam em um mapa atualizado pelos eventos de produto apos o commit;
+ * mudanca de nome, ativacao, cadastro ou remocao marca a trie como suja e o {@link #refresh()} agendado
+ * a remonta a partir do mapa, sem ir ao banco, no maximo uma vez por {@code refresh-interval-ms}. O
+ * ranking pelas unidades vendidas ({@link SalesStatistics}) e reaplicado a cada
+ * {@code rank-refresh-interval-ms} se houve pedidos.</p>
+ *
+ * <p>Metricas: {@code catalogo.search.suggest.entries} e {@code catalogo.search.suggest.bytes}
+ * (estimativa de {@link SuggestTrie#estimatedBytes()}).</p>
+ */
+@Slf4j
+@Component
+public class ProductSuggestIndex {
+
+    private final ProductRepository productRepository;
+    private final SalesStatistics salesStatistics;
+    private final boolean enabled;
+    private final int topK;
+
+    private final Map<Long, String> namesById = new ConcurrentHashMap<>();
+    private volatile SuggestTrie trie = SuggestTrie.build(List.of(), 1);
+    private volatile boolean dirty;
+    private volatile boolean salesChanged;
+
+    public ProductSuggestIndex(ProductRepository productRepository,
+                               SalesStatistics salesStatistics,
+                               MeterRegistry meterRegistry,
+                               @Value("${catalogo.search.suggest.enabled:true}") boolean enabled,
+                               @Value("${catalogo.search.suggest.top-k:10}") int topK) {
+        this.productRepository = productRepository;
+        this.salesStatistics = salesStatistics;
+        this.enabled = enabled;
+        this.topK = Math.max(1, topK);
+        Gauge.builder("catalogo.search.suggest.entries", this, index -> index.trie.size()).register(meterRegistry);
+        Gauge.builder("catalogo.search.suggest.bytes", this, index -> index.trie.estimatedBytes()).register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public synchronized void reload() {
+        namesById.clear();
+        for (ProductDTO product : productRepository.findAllActiveProducts()) {
+            namesById.put(product.getId(), product.getName());
+        }
+        SuggestTrie built = rebuild();
+        log.info("Sugestoes carregadas com {} nomes e {} nos, ~{} KB ({} KB por 100 mil nomes)",
+                built.size(), built.nodeCount(), built.estimatedBytes() / 1024,
+                built.size() == 0 ? 0 : built.estimatedBytes() * 100_000 / built.size() / 1024);
+    }
+
+    /**
+     * Ate {@code limit} produtos ativos cujo nome normalizado comeca com o prefixo, mais vendidos primeiro.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        String normalized = SearchNormalizer.normalize(prefix);
+        if (normalized.isBlank() || limit < 1) {
+            return List.of();
+        }
+        return trie.suggest(normalized, Math.min(limit, topK));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (enabled) {
+            apply(event.product(), event.removed());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        if (enabled) {
+            event.products().forEach(product -> apply(product, false));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        salesChanged = true;
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.search.suggest.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (enabled && dirty) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.search.suggest.rank-refresh-interval-ms:60000}")
+    public void refreshRanking() {
+        if (enabled && salesChanged) {
+            salesChanged = false;
+            rebuild();
+        }
+    }
+
+    public synchronized SuggestTrie rebuild() {
+        dirty = false;
+        List<SuggestTrie.Candidate> candidates = new ArrayList<>(namesById.size());
+        namesById.forEach((productId, name) -> candidates.add(new SuggestTrie.Candidate(productId, name,
+                salesStatistics.productSales(productId).map(ProductSalesDTO::getUnitsSold).orElse(0L))));
+        long start = System.nanoTime();
+        SuggestTrie built = SuggestTrie.build(candidates, topK);
+        trie = built;
+        log.debug("Sugestoes remontadas com {} nomes em {} ms", built.size(), (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+
+    private void apply(ProductDTO product, boolean removed) {
+        if (removed || !Boolean.TRUE.equals(product.getActive())) {
+            if (namesById.remove(product.getId()) != null) {
+                dirty = true;
+            }
+            return;
+        }
+        // Mudanca so de preco ou estoque nao mexe nas sugestoes
+        if (!product.getName().equals(namesById.put(product.getId(), product.getName()))) {
+            dirty = true;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.xunim.catalogo.search;
+
+import com.xunim.catalogo.dto.ProductSuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trie compacta (radix, com caminhos sem ramificacao fundidos em um no) dos nomes normalizados, so em
+ * arrays primitivos e imutavel depois de montada.
+ *
+ * <p>As entradas ficam ordenadas por (nome normalizado, id), entao a subarvore de cada no e um intervalo
+ * continuo {@code [low, high)} e o rotulo de uma aresta e um trecho do nome da primeira entrada do
+ * intervalo, sem copia; os nomes normalizados ficam todos em um unico {@code char[]}. Os nos sao
+ * numerados em largura, com os filhos de cada no contiguos e em ordem de caractere. Nos com mais de
+ * {@code topK} entradas guardam as {@code topK} melhores (mais vendidas, depois em ordem alfabetica);
+ * os demais ordenam o proprio intervalo na consulta, no maximo {@code topK} entradas.</p>
+ */
+public final class SuggestTrie {
+
+    private final int topK;
+
+    private final long[] ids;
+    private final String[] names;
+    private final long[] scores;
+    // Nomes normalizados concatenados: o da entrada i vai de foldedStart[i] a foldedStart[i + 1]
+    private final char[] folded;
+    private final int[] foldedStart;
+
+    // Filhos do no n: de firstChild[n] ate firstChild[n + 1] (exclusivo)
+    private final int[] firstChild;
+    private final int[] low;
+    private final int[] high;
+    private final short[] depth;
+    // Inicio das topK melhores entradas do no em topEntries; -1 para nos pequenos
+    private final int[] topOffset;
+    private final int[] topEntries;
+    private final long estimatedBytes;
+
+    private SuggestTrie(int topK, long[] ids, String[] names, long[] scores, char[] folded, int[] foldedStart,
+                        int[] firstChild, int[] low, int[] high, short[] depth, int[] topOffset, int[] topEntries) {
+        this.topK = topK;
+        this.ids = ids;
+        this.names = names;
+        this.scores = scores;
+        this.folded = folded;
+        this.foldedStart = foldedStart;
+        this.firstChild = firstChild;
+        this.low = low;
+        this.high = high;
+        this.depth = depth;
+        this.topOffset = topOffset;
+        this.topEntries = topEntries;
+        this.estimatedBytes = computeBytes();
+    }
+
+    /**
+     * @param score pontuacao do ranking (unidades vendidas); empates saem em ordem alfabetica
+     */
+    public record Candidate(long id, String name, long score) {
+    }
+
+    public static SuggestTrie build(List<Candidate> candidates, int topK) {
+        int size = candidates.size();
+        String[] foldedByCandidate = new String[size];
+        Integer[] order = new Integer[size];
+        long foldedLength = 0;
+        for (int i = 0; i < size; i++) {
+            foldedByCandidate[i] = SearchNormalizer.normalize(candidates.get(i).name());
+            foldedLength += foldedByCandidate[i].length();
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer, String>comparing(i -> foldedByCandidate[i])
+                .thenComparingLong(i -> candidates.get(i).id()));
+
+        long[] ids = new long[size];
+        String[] names = new String[size];
+        long[] scores = new long[size];
+        char[] folded = new char[Math.toIntExact(foldedLength)];
+        int[] foldedStart = new int[size + 1];
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Candidate candidate = candidates.get(order[ordinal]);
+            String normalized = foldedByCandidate[order[ordinal]];
+            ids[ordinal] = candidate.id();
+            names[ordinal] = candidate.name();
+            scores[ordinal] = candidate.score();
+            normalized.getChars(0, normalized.length(), folded, foldedStart[ordinal]);
+            foldedStart[ordinal + 1] = foldedStart[ordinal] + normalized.length();
+        }
+
+        // Montagem em largura: cada no separa seu intervalo pelo caractere seguinte ao prefixo comum
+        IntList lows = new IntList();
+        IntList highs = new IntList();
+        IntList depths = new IntList();
+        IntList firstChildren = new IntList();
+        lows.add(0);
+        highs.add(size);
+        depths.add(0);
+        for (int node = 0; node < lows.size; node++) {
+            firstChildren.add(lows.size);
+            int nodeDepth = depths.get(node);
+            int end = highs.get(node);
+            int i = skipTerminals(foldedStart, lows.get(node), end, nodeDepth);
+            while (i < end) {
+                char c = folded[foldedStart[i] + nodeDepth];
+                int j = i + 1;
+                while (j < end && folded[foldedStart[j] + nodeDepth] == c) {
+                    j++;
+                }
+                lows.add(i);
+                highs.add(j);
+                depths.add(commonPrefix(folded, foldedStart, i, j - 1));
+                i = j;
+            }
+        }
+        int nodes = lows.size;
+        firstChildren.add(nodes);
+
+        int[] firstChild = firstChildren.toArray();
+        int[] low = lows.toArray();
+        int[] high = highs.toArray();
+        short[] depth = new short[nodes];
+        for (int node = 0; node < nodes; node++) {
+            depth[node] = (short) depths.get(node);
+        }
+
+        // De baixo para cima (filhos tem numero maior que o pai): o topo de um no sai dos terminais dele
+        // e do topo, ou do intervalo inteiro quando pequeno, de cada filho
+        int[] topOffset = new int[nodes];
+        Arrays.fill(topOffset, -1);
+        IntList top = new IntList();
+        int[] best = new int[topK];
+        for (int node = nodes - 1; node >= 0; node--) {
+            if (high[node] - low[node] <= topK) {
+                continue;
+            }
+            int count = 0;
+            int terminalsEnd = skipTerminals(foldedStart, low[node], high[node], depth[node]);
+            for (int ordinal = low[node]; ordinal < terminalsEnd; ordinal++) {
+                count = offer(best, count, ordinal, scores);
+            }
+            for (int child = firstChild[node]; child < firstChild[node + 1]; child++) {
+                if (topOffset[child] >= 0) {
+                    for (int k = 0; k < topK; k++) {
+                        count = offer(best, count, top.get(topOffset[child] + k), scores);
+                    }
+                } else {
+                    for (int ordinal = low[child]; ordinal < high[child]; ordinal++) {
+                        count = offer(best, count, ordinal, scores);
+                    }
+                }
+            }
+            topOffset[node] = top.size;
+            for (int k = 0; k < topK; k++) {
+                top.add(best[k]);
+            }
+        }
+
+        return new SuggestTrie(topK, ids, names, scores, folded, foldedStart, firstChild, low, high, depth,
+                topOffset, top.toArray());
+    }
+
+    /**
+     * Ate {@code limit} (limitado a {@code topK}) sugestoes cujo nome normalizado comeca com {@code prefix},
+     * ja normalizado pelo chamador.
+     */
+    public List<ProductSuggestionDTO> suggest(String prefix, int limit) {
+        int node = find(prefix);
+        if (node < 0) {
+            return List.of();
+        }
+        int wanted = Math.min(limit, topK);
+        List<ProductSuggestionDTO> suggestions = new ArrayList<>(wanted);
+        if (topOffset[node] >= 0) {
+            for (int k = 0; k < wanted; k++) {
+                suggestions.add(toDTO(topEntries[topOffset[node] + k]));
+            }
+            return suggestions;
+        }
+        int[] best = new int[wanted];
+        int count = 0;
+        for (int ordinal = low[node]; ordinal < high[node]; ordinal++) {
+            count = offer(best, count, ordinal, scores);
+        }
+        for (int k = 0; k < count; k++) {
+            suggestions.add(toDTO(best[k]));
+        }
+        return suggestions;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int nodeCount() {
+        return low.length;
+    }
+
+    /**
+     * Estimativa do espaco ocupado: arrays exatos e os nomes originais pelo layout compacto (Latin-1) de
+     * String da JVM de 64 bits com referencias comprimidas.
+     */
+    public long estimatedBytes() {
+        return estimatedBytes;
+    }
+
+    private long computeBytes() {
+        long bytes = arrayBytes(ids.length, 8) + arrayBytes(scores.length, 8) + arrayBytes(names.length, 4)
+                + arrayBytes(folded.length, 2) + arrayBytes(foldedStart.length, 4)
+                + arrayBytes(firstChild.length, 4) + arrayBytes(low.length, 4) + arrayBytes(high.length, 4)
+                + arrayBytes(depth.length, 2) + arrayBytes(topOffset.length, 4) + arrayBytes(topEntries.length, 4);
+        for (String name : names) {
+            bytes += align(24) + arrayBytes(name.length(), 1);
+        }
+        return bytes;
+    }
+
+    private int find(String prefix) {
+        int node = 0;
+        while (depth[node] < prefix.length()) {
+            int child = findChild(node, prefix.charAt(depth[node]));
+            if (child < 0) {
+                return -1;
+            }
+            // O rotulo da aresta e o trecho [depth do pai, depth do filho) do primeiro nome do filho
+            int label = foldedStart[low[child]];
+            int end = Math.min(depth[child], prefix.length());
+            for (int position = depth[node] + 1; position < end; position++) {
+                if (folded[label + position] != prefix.charAt(position)) {
+                    return -1;
+                }
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    private int findChild(int node, char c) {
+        int position = depth[node];
+        int lowChild = firstChild[node];
+        int highChild = firstChild[node + 1] - 1;
+        while (lowChild <= highChild) {
+            int mid = (lowChild + highChild) >>> 1;
+            char label = folded[foldedStart[low[mid]] + position];
+            if (label < c) {
+                lowChild = mid + 1;
+            } else if (label > c) {
+                highChild = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private ProductSuggestionDTO toDTO(int ordinal) {
+        return new ProductSuggestionDTO(ids[ordinal], names[ordinal]);
+    }
+
+    // Entradas que terminam exatamente no no vem primeiro no intervalo (prefixo ordena antes)
+    private static int skipTerminals(int[] foldedStart, int from, int to, int depth) {
+        int i = from;
+        while (i < to && foldedStart[i + 1] - foldedStart[i] == depth) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int commonPrefix(char[] folded, int[] foldedStart, int first, int last) {
+        int max = Math.min(foldedStart[first + 1] - foldedStart[first], foldedStart[last + 1] - foldedStart[last]);
+        int i = 0;
+        while (i < max && folded[foldedStart[first] + i] == folded[foldedStart[last] + i]) {
+            i++;
+        }
+        return i;
+    }
+
+    // Insercao ordenada em um array de ate best.length posicoes: mais vendido primeiro, depois menor ordinal
+    private static int offer(int[] best, int count, int ordinal, long[] scores) {
+        int position = count;
+        while (position > 0 && ranksBefore(ordinal, best[position - 1], scores)) {
+            position--;
+        }
+        if (position >= best.length) {
+            return count;
+        }
+        int moved = Math.min(count, best.length - 1) - position;
+        System.arraycopy(best, position, best, position + 1, moved);
+        best[position] = ordinal;
+        return Math.min(count + 1, best.length);
+    }
+
+    private static boolean ranksBefore(int ordinal, int other, long[] scores) {
+        return scores[ordinal] != scores[other] ? scores[ordinal] > scores[other] : ordinal < other;
+    }
+
+    private static long arrayBytes(int length, int elementBytes) {
+        return align(16L + (long) length * elementBytes);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int get(int index) {
+            return values[index];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
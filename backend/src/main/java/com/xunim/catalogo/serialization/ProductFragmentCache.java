@@ -0,0 +1,142 @@
+package com.xunim.catalogo.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.xunim.catalogo.dto.CacheStatsDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Produtos ja serializados (JSON e CBOR) por id, para montar paginas sem passar cada produto
+ * pelo Jackson a cada requisicao.
+ *
+ * <p>Cada fragmento guarda os valores de que foi gerado e so e reaproveitado se o produto a
+ * escrever for igual a eles; assim uma pagina lida antes de uma alteracao nunca sai com o
+ * fragmento novo, nem o contrario. Os eventos de produto e de estoque descartam os fragmentos
+ * apos o commit para nao manter bytes de valores que nao voltam mais. Os bytes sao gerados pelos
+ * mesmos {@link ObjectMapper} dos conversores JSON e CBOR, entao a saida e identica a do Jackson.</p>
+ */
+@Component
+public class ProductFragmentCache {
+
+    private final Map<ResponseFormat, ObjectMapper> mappers = new EnumMap<>(ResponseFormat.class);
+    private final Map<ResponseFormat, ObjectWriter> writers = new EnumMap<>(ResponseFormat.class);
+    private final Map<ResponseFormat, Cache<Long, Fragment>> fragments = new EnumMap<>(ResponseFormat.class);
+    private final boolean enabled;
+
+    @Autowired
+    public ProductFragmentCache(ObjectMapper objectMapper,
+                                MappingJackson2CborHttpMessageConverter cborConverter,
+                                @Value("${catalogo.serialization.fragments.maximum-size:100000}") long maximumSize) {
+        this(objectMapper, cborConverter.getObjectMapper(), maximumSize);
+    }
+
+    ProductFragmentCache(ObjectMapper jsonMapper, ObjectMapper cborMapper, long maximumSize) {
+        mappers.put(ResponseFormat.JSON, jsonMapper);
+        mappers.put(ResponseFormat.CBOR, cborMapper);
+        for (ResponseFormat format : ResponseFormat.values()) {
+            writers.put(format, mappers.get(format).writerFor(ProductDTO.class));
+            fragments.put(format, Caffeine.newBuilder().maximumSize(maximumSize).recordStats().build());
+        }
+        this.enabled = maximumSize > 0;
+    }
+
+    /**
+     * Bytes do produto no formato pedido, reaproveitados do cache quando o produto nao mudou.
+     */
+    public byte[] get(ResponseFormat format, ProductDTO product) {
+        if (!enabled || product.getId() == null) {
+            return encode(format, product);
+        }
+        Cache<Long, Fragment> cache = fragments.get(format);
+        Fragment fragment = cache.getIfPresent(product.getId());
+        if (fragment != null && fragment.matches(product)) {
+            return fragment.bytes();
+        }
+        byte[] bytes = encode(format, product);
+        cache.put(product.getId(), Fragment.of(product, bytes));
+        return bytes;
+    }
+
+    /**
+     * Mapper usado para os fragmentos, para quem escreve o restante da resposta no mesmo formato.
+     */
+    public ObjectMapper mapper(ResponseFormat format) {
+        return mappers.get(format);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        invalidate(event.productId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        event.stockByProductId().keySet().forEach(this::invalidate);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        for (ProductDTO product : event.products()) {
+            invalidate(product.getId());
+        }
+    }
+
+    public List<CacheStatsDTO> stats() {
+        return fragments.entrySet().stream()
+                .map(entry -> toStatsDTO("fragments-" + entry.getKey().name().toLowerCase(), entry.getValue()))
+                .toList();
+    }
+
+    private void invalidate(Long productId) {
+        for (Cache<Long, Fragment> cache : fragments.values()) {
+            cache.invalidate(productId);
+        }
+    }
+
+    private byte[] encode(ResponseFormat format, ProductDTO product) {
+        try {
+            return writers.get(format).writeValueAsBytes(product);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Falha ao serializar o produto " + product.getId(), ex);
+        }
+    }
+
+    private static CacheStatsDTO toStatsDTO(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+
+    private record Fragment(String name, BigDecimal price, Integer stock, Boolean active, byte[] bytes) {
+
+        static Fragment of(ProductDTO product, byte[] bytes) {
+            return new Fragment(product.getName(), product.getPrice(), product.getStock(), product.getActive(), bytes);
+        }
+
+        // BigDecimal.equals compara a escala, que muda o texto serializado (10.0 x 10.00)
+        boolean matches(ProductDTO product) {
+            return Objects.equals(stock, product.getStock())
+                    && Objects.equals(price, product.getPrice())
+                    && Objects.equals(active, product.getActive())
+                    && Objects.equals(name, product.getName());
+        }
+    }
+}
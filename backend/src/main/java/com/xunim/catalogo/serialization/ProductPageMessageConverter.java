@@ -0,0 +1,91 @@
+package com.xunim.catalogo.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductPageDTO;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Escreve {@link ProductPageDTO} em JSON ou CBOR copiando os fragmentos do
+ * {@link ProductFragmentCache} direto para a saida; so o envelope da pagina (numeros e booleanos)
+ * passa pelo gerador. Registrado como bean, o Spring Boot o coloca antes do conversor Jackson,
+ * que continua atendendo os demais tipos.
+ *
+ * <p>O conteudo sai como array de tamanho indefinido no CBOR, para que os fragmentos possam ser
+ * concatenados sem declarar a contagem antes.</p>
+ */
+@Component
+public class ProductPageMessageConverter extends AbstractHttpMessageConverter<ProductPageDTO> {
+
+    private final ProductFragmentCache fragmentCache;
+
+    public ProductPageMessageConverter(ProductFragmentCache fragmentCache) {
+        super(ResponseFormat.JSON.mediaType(), ResponseFormat.CBOR.mediaType());
+        this.fragmentCache = fragmentCache;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ProductPageDTO.class == clazz;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ProductPageDTO readInternal(Class<? extends ProductPageDTO> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ProductPageDTO e somente de saida", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ProductPageDTO page, HttpOutputMessage outputMessage) throws IOException {
+        ResponseFormat format = ResponseFormat.of(outputMessage.getHeaders().getContentType());
+        write(format, page, StreamUtils.nonClosing(outputMessage.getBody()));
+    }
+
+    public void write(ResponseFormat format, ProductPageDTO page, OutputStream body) throws IOException {
+        try (JsonGenerator generator = fragmentCache.mapper(format).getFactory().createGenerator(body)) {
+            // Os fragmentos vao direto para o stream; o gerador so esvazia o buffer, sem flush no socket
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            generator.writeStartObject();
+            if (page.getContent() != null) {
+                generator.writeFieldName("content");
+                generator.writeStartArray();
+                generator.flush();
+                writeContent(format, page.getContent(), body);
+                generator.writeEndArray();
+            } else {
+                generator.writeNullField("content");
+            }
+            generator.writeNumberField("page", page.getPage());
+            generator.writeNumberField("size", page.getSize());
+            generator.writeNumberField("totalElements", page.getTotalElements());
+            generator.writeNumberField("totalPages", page.getTotalPages());
+            generator.writeBooleanField("first", page.isFirst());
+            generator.writeBooleanField("last", page.isLast());
+            generator.writeEndObject();
+        }
+    }
+
+    private void writeContent(ResponseFormat format, List<ProductDTO> content, OutputStream body) throws IOException {
+        boolean separated = format == ResponseFormat.JSON;
+        for (int i = 0; i < content.size(); i++) {
+            if (separated && i > 0) {
+                body.write(',');
+            }
+            body.write(fragmentCache.get(format, content.get(i)));
+        }
+    }
+}
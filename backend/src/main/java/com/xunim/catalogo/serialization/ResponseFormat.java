@@ -0,0 +1,27 @@
+package com.xunim.catalogo.serialization;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Formatos de resposta com caminho rapido de escrita: JSON (padrao) e CBOR, escolhido pelo
+ * cabecalho {@code Accept: application/cbor}.
+ */
+public enum ResponseFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    CBOR(MediaType.APPLICATION_CBOR);
+
+    private final MediaType mediaType;
+
+    ResponseFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    public static ResponseFormat of(MediaType contentType) {
+        return contentType != null && CBOR.mediaType.isCompatibleWith(contentType) ? CBOR : JSON;
+    }
+}
@@ -0,0 +1,203 @@
+package com.xunim.catalogo.service;
+
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Modo opcional de group commit para o checkout ({@code catalogo.orders.group-commit.enabled=true}).
+ *
+ * <p>As requisicoes entram em uma fila limitada e threads committer juntam ate {@code max-batch-size}
+ * pedidos ou esperam ate {@code max-wait-ms} para montar um lote, que e gravado por
+ * {@link OrderService#createOrders} em uma unica transacao. Se o lote for desfeito, cada pedido e
+ * reprocessado individualmente por {@link OrderService#createOrder}, mantendo a mesma semantica.</p>
+ *
+ * <p>Quem submete espera no maximo {@code submit-timeout-ms} e recebe 503
+ * ({@link ServiceOverloadedException}): se o pedido ainda estava na fila ele e descartado; se ja
+ * estava em um lote ele segue e pode ser gravado mesmo assim, caso registrado em log. No desligamento
+ * os pedidos que sobraram na fila tambem falham com 503.</p>
+ */
+@Slf4j
+@Component
+public class OrderGroupCommitPipeline {
+
+    private final OrderService orderService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final int committers;
+    private final long submitTimeoutMs;
+    private final BlockingQueue<PendingOrder> queue;
+    private final List<Thread> committerThreads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public OrderGroupCommitPipeline(OrderService orderService,
+                                    @Value("${catalogo.orders.group-commit.enabled:false}") boolean enabled,
+                                    @Value("${catalogo.orders.group-commit.max-batch-size:64}") int maxBatchSize,
+                                    @Value("${catalogo.orders.group-commit.max-wait-ms:2}") long maxWaitMs,
+                                    @Value("${catalogo.orders.group-commit.queue-capacity:4096}") int queueCapacity,
+                                    @Value("${catalogo.orders.group-commit.committers:1}") int committers,
+                                    @Value("${catalogo.orders.group-commit.submit-timeout-ms:5000}") long submitTimeoutMs) {
+        this.orderService = orderService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.committers = committers;
+        this.submitTimeoutMs = submitTimeoutMs;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        // Committers ficam em threads de plataforma mesmo com threads virtuais ativas: sao poucos, vivem
+        // a aplicacao inteira e seguram a conexao durante esperas de lock do H2 (synchronized + wait)
+        for (int i = 0; i < committers; i++) {
+            Thread thread = new Thread(this::runCommitter, "order-group-commit-" + i);
+            thread.setDaemon(true);
+            thread.start();
+            committerThreads.add(thread);
+        }
+        log.info("Group commit de pedidos ativo: lote de ate {} pedidos, {} committer(s)", maxBatchSize, committers);
+    }
+
+    // Os committers esvaziam a fila antes de sair; o que entrar depois disso (ou sobrar se algum nao
+    // terminar a tempo) falha aqui, entao nenhum pedido aceito fica sem resposta
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread thread : committerThreads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        List<PendingOrder> left = new ArrayList<>();
+        queue.drainTo(left);
+        for (PendingOrder pending : left) {
+            if (pending.claim()) {
+                pending.result().completeExceptionally(
+                        new ServiceOverloadedException("Checkout em desligamento, tente novamente", 1));
+            }
+        }
+    }
+
+    public OrderResponseDTO submit(OrderRequestDTO orderRequest) {
+        PendingOrder pending = new PendingOrder(orderRequest, new CompletableFuture<>(), new AtomicBoolean());
+        if (!running || !queue.offer(pending)) {
+            throw new ServiceOverloadedException("Fila de pedidos cheia, tente novamente", 1);
+        }
+        // O stop() pode ter esvaziado a fila entre a checagem e o offer
+        if (!running && queue.remove(pending)) {
+            throw new ServiceOverloadedException("Checkout em desligamento, tente novamente", 1);
+        }
+        try {
+            return pending.result().get(submitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            // Ainda na fila: o committer vai pular o pedido. Ja em um lote: pode ter sido gravado
+            if (!pending.claim()) {
+                log.warn("Pedido em lote sem resposta apos {} ms; pode ter sido gravado", submitTimeoutMs);
+            }
+            throw new ServiceOverloadedException("Fila de pedidos lenta, tente novamente", 1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            pending.claim();
+            throw new ServiceOverloadedException("Checkout interrompido, tente novamente", 1);
+        }
+    }
+
+    private void runCommitter() {
+        List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                if (first.claim()) {
+                    batch.add(first);
+                }
+                long deadline = System.nanoTime() + maxWaitNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    if (next.claim()) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingOrder> batch) {
+        List<OrderOutcome> outcomes;
+        try {
+            outcomes = orderService.createOrders(batch.stream().map(PendingOrder::request).toList());
+        } catch (RuntimeException ex) {
+            log.debug("Lote de {} pedidos desfeito, reprocessando individualmente", batch.size(), ex);
+            batch.forEach(this::commitIndividually);
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            OrderOutcome outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                batch.get(i).result().complete(outcome.response());
+            } else {
+                batch.get(i).result().completeExceptionally(outcome.error());
+            }
+        }
+    }
+
+    private void commitIndividually(PendingOrder pending) {
+        try {
+            pending.result().complete(orderService.createOrder(pending.request()));
+        } catch (RuntimeException ex) {
+            pending.result().completeExceptionally(ex);
+        }
+    }
+
+    // claimed decide quem fica com o pedido: o committer que vai grava-lo ou quem desistiu de esperar
+    private record PendingOrder(OrderRequestDTO request, CompletableFuture<OrderResponseDTO> result,
+                                AtomicBoolean claimed) {
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.xunim.catalogo.service;
+
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.exception.InsuffcientStockException;
+
+/**
+ * Resultado individual de um pedido processado em lote: a resposta do pedido criado
+ * ou a mesma excecao de estoque que o checkout individual lancaria.
+ */
+public record OrderOutcome(OrderResponseDTO response, InsuffcientStockException error) {
+
+    public static OrderOutcome success(OrderResponseDTO response) {
+        return new OrderOutcome(response, null);
+    }
+
+    public static OrderOutcome failure(InsuffcientStockException error) {
+        return new OrderOutcome(null, error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
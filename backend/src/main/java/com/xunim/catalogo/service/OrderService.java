@@ -1,53 +1,360 @@
 package com.xunim.catalogo.service;
 
+import com.xunim.catalogo.cache.ProductCache;
+import com.xunim.catalogo.cache.ProductSnapshot;
 import com.xunim.catalogo.dto.*;
 import com.xunim.catalogo.entity.Order;
 import com.xunim.catalogo.entity.OrderItem;
 import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.event.OrderPlacedEvent;
 import com.xunim.catalogo.exception.InsuffcientStockException;
+import com.xunim.catalogo.exception.OrderNotFoundException;
+import com.xunim.catalogo.journal.JournaledOrder;
+import com.xunim.catalogo.journal.OrderJournal;
+import com.xunim.catalogo.pricing.OrderTotal;
+import com.xunim.catalogo.repository.OrderItemRepository;
 import com.xunim.catalogo.repository.OrderRepository;
 import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.repository.ProductRepositoryCustom.StockDecrement;
+import com.xunim.catalogo.stock.StockLedger;
+import com.xunim.catalogo.stock.StockReservation;
+import com.xunim.catalogo.stock.StockShards;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderService {
 
     private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
     private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final StockLedger stockLedger;
+    private final StockShards stockShards;
+    private final OrderJournal orderJournal;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
 
     @Transactional
     public OrderResponseDTO createOrder(OrderRequestDTO orderRequest) {
 
-        List<Long> productIds = orderRequest.getItems().stream()
+        Map<Long, ProductSnapshot> productMap = loadProducts(List.of(orderRequest));
+
+        Order order = new Order();
+        order.setCreatedAt(LocalDateTime.now());
+
+        // Com o razao em memoria a baixa vira uma reserva CAS, gravada em products depois do commit
+        if (stockLedger.isEnabled()) {
+            StockReservation reservation = reserveFromLedger(orderRequest, productMap);
+            registerLedgerCompletion(order, reservation);
+            order.setStockSynced(false);
+        } else {
+            validateStock(orderRequest, productMap, Map.of());
+            productMap = decrementStock(orderRequest, productMap);
+        }
+
+        List<OrderItemResponseDTO> itemDTOs = addItems(order, orderRequest, productMap);
+
+        Order savedOrder = orderRepository.save(order);
+
+        OrderResponseDTO orderResponse = convertToResponseDTO(savedOrder, itemDTOs);
+        eventPublisher.publishEvent(new OrderPlacedEvent(orderResponse));
+        return orderResponse;
+    }
+
+    /**
+     * Checkout pelo diario de pedidos: a reserva no razao decide o estoque e o pedido e confirmado
+     * quando o registro chega ao disco, sem transacao no banco; o {@link OrderJournal} grava as tabelas
+     * depois. Se o registro nao for gravado a reserva e devolvida.
+     */
+    public OrderResponseDTO journalOrder(OrderRequestDTO orderRequest) {
+        Map<Long, ProductSnapshot> productMap = loadProducts(List.of(orderRequest));
+        StockReservation reservation = reserveFromLedger(orderRequest, productMap);
+
+        OrderResponseDTO orderResponse;
+        try {
+            List<OrderItemResponseDTO> itemDTOs = new ArrayList<>(orderRequest.getItems().size());
+            List<JournaledOrder.Item> items = new ArrayList<>(orderRequest.getItems().size());
+            OrderTotal total = new OrderTotal();
+            for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
+                ProductSnapshot product = productMap.get(itemRequest.getProductId());
+                OrderItemResponseDTO itemDTO = priceItem(product, itemRequest.getQuantity(), total);
+                itemDTOs.add(itemDTO);
+                items.add(new JournaledOrder.Item(product.id(), itemRequest.getQuantity(), product.price(),
+                        itemDTO.getLineTotal()));
+            }
+
+            JournaledOrder order = new JournaledOrder(orderJournal.nextOrderId(), LocalDateTime.now(),
+                    total.total(), items);
+            orderJournal.append(order);
+            orderResponse = new OrderResponseDTO(order.orderId(), order.createdAt(), order.total(), itemDTOs);
+        } catch (RuntimeException ex) {
+            stockLedger.release(reservation);
+            throw ex;
+        }
+
+        eventPublisher.publishEvent(new OrderPlacedEvent(orderResponse));
+        return orderResponse;
+    }
+
+    /**
+     * Cria varios pedidos em uma unica transacao (group commit). Sem o razao, as linhas dos produtos
+     * do lote sao travadas antes de tudo e cada pedido e validado contra o estoque real que sobrou dos
+     * anteriores do mesmo lote; os recusados voltam como falha no resultado sem afetar os demais. Se a
+     * baixa em lote encontrar estoque tomado por fora (fracoes de um produto quente), a transacao
+     * inteira e desfeita e a excecao sobe para quem chamou reprocessar os pedidos um a um.
+     */
+    @Transactional
+    public List<OrderOutcome> createOrders(List<OrderRequestDTO> orderRequests) {
+
+        Map<Long, ProductSnapshot> productMap = stockLedger.isEnabled()
+                ? loadProducts(orderRequests)
+                : lockProducts(orderRequests);
+        Map<Long, Integer> remainingStock = currentStock(productMap);
+        Map<Long, Integer> batchQuantities = new HashMap<>();
+
+        List<Order> orders = new ArrayList<>();
+        List<Object> results = new ArrayList<>(orderRequests.size());
+
+        for (OrderRequestDTO orderRequest : orderRequests) {
+            Order order = new Order();
+            order.setCreatedAt(LocalDateTime.now());
+            try {
+                if (stockLedger.isEnabled()) {
+                    StockReservation reservation = reserveFromLedger(orderRequest, productMap);
+                    registerLedgerCompletion(order, reservation);
+                    order.setStockSynced(false);
+                } else {
+                    validateStock(orderRequest, productMap, remainingStock);
+                    aggregateQuantities(orderRequest).forEach((productId, quantity) -> {
+                        remainingStock.merge(productId, -quantity, Integer::sum);
+                        batchQuantities.merge(productId, quantity, Integer::sum);
+                    });
+                }
+            } catch (InsuffcientStockException ex) {
+                results.add(ex);
+                continue;
+            }
+            List<OrderItemResponseDTO> itemDTOs = addItems(order, orderRequest, productMap);
+            orders.add(order);
+            results.add(new PlacedOrder(order, itemDTOs));
+        }
+
+        if (!batchQuantities.isEmpty()) {
+            StockDecrement decrement = decrementStockIfAvailable(batchQuantities);
+            if (!decrement.isAccepted()) {
+                productCache.updateStock(decrement.shortages());
+                throw new InsuffcientStockException(toStockErrors(decrement.shortages(), productMap));
+            }
+        }
+
+        orderRepository.saveAll(orders);
+
+        List<OrderOutcome> outcomes = new ArrayList<>(results.size());
+        for (Object result : results) {
+            if (result instanceof PlacedOrder placed) {
+                OrderResponseDTO orderResponse = convertToResponseDTO(placed.order(), placed.items());
+                eventPublisher.publishEvent(new OrderPlacedEvent(orderResponse));
+                outcomes.add(OrderOutcome.success(orderResponse));
+            } else {
+                outcomes.add(OrderOutcome.failure((InsuffcientStockException) result));
+            }
+        }
+        return outcomes;
+    }
+
+    /**
+     * Linhas e total do carrinho pelo mesmo calculo do checkout, sem gravar nem travar nada. O estoque
+     * vem do cache (ou do razao, se ligado) e e so uma previa: quem decide a baixa continua sendo o pedido.
+     */
+    public OrderQuoteDTO quote(OrderRequestDTO orderRequest) {
+        Map<Long, ProductSnapshot> productMap = loadProducts(List.of(orderRequest));
+        Map<Long, Integer> quantities = aggregateQuantities(orderRequest);
+
+        List<OrderItemResponseDTO> itemDTOs = new ArrayList<>(orderRequest.getItems().size());
+        OrderTotal total = new OrderTotal();
+        for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
+            ProductSnapshot product = productMap.get(itemRequest.getProductId());
+            if (product != null) {
+                itemDTOs.add(priceItem(product, itemRequest.getQuantity(), total));
+            }
+        }
+
+        List<StockErrorDTO> stockErrors = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> {
+            ProductSnapshot product = productMap.get(productId);
+            if (product == null) {
+                stockErrors.add(new StockErrorDTO(productId, 0, "Produto não encontrado."));
+                return;
+            }
+            int available = stockLedger.isEnabled() ? stockLedger.available(productId) : product.stock();
+            if (available < quantity) {
+                stockErrors.add(new StockErrorDTO(productId, available, product.name()));
+            }
+        });
+        return new OrderQuoteDTO(itemDTOs, total.total(), stockErrors);
+    }
+
+    /**
+     * Historico de pedidos, do mais novo para o mais antigo, por keyset em (criacao, id). Sao sempre duas
+     * consultas por pagina: os pedidos e, de uma vez, os itens de todos eles com o nome do produto; as
+     * colecoes LAZY das entidades nunca sao percorridas.
+     */
+    @Transactional(readOnly = true)
+    public OrderSliceDTO findOrders(String after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        OrderCursor cursor = OrderCursor.decode(after);
+
+        // Busca um registro a mais apenas para saber se existe proxima pagina
+        List<Order> orders = cursor == null
+                ? orderRepository.findLatest(Limit.of(size + 1))
+                : orderRepository.findLatestBefore(cursor.createdAt(), cursor.id(), Limit.of(size + 1));
+        boolean hasNext = orders.size() > size;
+        List<OrderResponseDTO> content = toResponseDTOs(hasNext ? orders.subList(0, size) : orders);
+
+        String nextCursor = hasNext ? OrderCursor.of(content.get(content.size() - 1)).encode() : null;
+        return new OrderSliceDTO(content, size, hasNext, nextCursor);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderResponseDTO findOrder(long orderId) {
+        Order order = orderRepository.findById(orderId).orElseThrow(() -> new OrderNotFoundException(orderId));
+        return toResponseDTOs(List.of(order)).get(0);
+    }
+
+    private List<OrderResponseDTO> toResponseDTOs(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, List<OrderItemResponseDTO>> itemsByOrderId = new HashMap<>();
+        for (Order order : orders) {
+            itemsByOrderId.put(order.getId(), new ArrayList<>());
+        }
+        for (OrderItemRowDTO row : orderItemRepository.findItemRowsByOrderIds(itemsByOrderId.keySet())) {
+            itemsByOrderId.get(row.getOrderId()).add(new OrderItemResponseDTO(
+                    row.getProductId(), row.getProductName(), row.getQuantity(), row.getUnitPrice(), row.getLineTotal()));
+        }
+
+        List<OrderResponseDTO> orderDTOs = new ArrayList<>(orders.size());
+        for (Order order : orders) {
+            orderDTOs.add(convertToResponseDTO(order, itemsByOrderId.get(order.getId())));
+        }
+        return orderDTOs;
+    }
+
+    // Produtos do cache: so dizem quais existem e estao ativos. O estoque do snapshot nunca recusa um
+    // pedido, e sem o razao nome e preco sao relidos das linhas travadas pela baixa
+    private Map<Long, ProductSnapshot> loadProducts(List<OrderRequestDTO> orderRequests) {
+        return productCache.getActive(productIds(orderRequests));
+    }
+
+    // Lote sem o razao: trava as linhas em ordem de id. Produtos fracionados sao lidos sem trava, para
+    // o lote nao voltar a disputar a linha quente; o saldo deles so e decidido pela baixa nas fracoes
+    private Map<Long, ProductSnapshot> lockProducts(List<OrderRequestDTO> orderRequests) {
+        List<Long> locked = new ArrayList<>();
+        List<Long> sharded = new ArrayList<>();
+        for (Long productId : productIds(orderRequests)) {
+            (stockShards.isSharded(productId) ? sharded : locked).add(productId);
+        }
+        Map<Long, ProductSnapshot> productMap = toSnapshots(productRepository.lockActiveProducts(locked));
+        productMap.putAll(toSnapshots(productRepository.findActiveProducts(sharded)));
+        return productMap;
+    }
+
+    private static List<Long> productIds(List<OrderRequestDTO> orderRequests) {
+        return orderRequests.stream()
+                .flatMap(orderRequest -> orderRequest.getItems().stream())
                 .map(OrderItemRequestDTO::getProductId)
+                .distinct()
                 .collect(Collectors.toList());
+    }
+
+    private static Map<Long, ProductSnapshot> toSnapshots(Collection<ProductDTO> products) {
+        Map<Long, ProductSnapshot> snapshots = new HashMap<>();
+        products.forEach(product -> snapshots.put(product.getId(), ProductSnapshot.of(product)));
+        return snapshots;
+    }
+
+    // Saldo conferido por pedido do lote; fracionados ficam de fora (ver lockProducts)
+    private Map<Long, Integer> currentStock(Map<Long, ProductSnapshot> productMap) {
+        Map<Long, Integer> stock = new HashMap<>();
+        productMap.forEach((productId, product) -> {
+            if (!stockShards.isSharded(productId)) {
+                stock.put(productId, product.stock());
+            }
+        });
+        return stock;
+    }
+
+    private List<OrderItemResponseDTO> addItems(Order order, OrderRequestDTO orderRequest,
+                                                Map<Long, ProductSnapshot> productMap) {
+        List<OrderItem> orderItems = new ArrayList<>();
+        List<OrderItemResponseDTO> itemDTOs = new ArrayList<>();
+        OrderTotal total = new OrderTotal();
+
+        for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
+            ProductSnapshot product = productMap.get(itemRequest.getProductId());
+            OrderItemResponseDTO itemDTO = priceItem(product, itemRequest.getQuantity(), total);
+
+            // Referencia sem SELECT: so a chave estrangeira e gravada. Direto no EntityManager porque
+            // getReferenceById passa pelos interceptadores do repositorio, ~20x mais caro por item
+            OrderItem orderItem = new OrderItem();
+            orderItem.setOrder(order);
+            orderItem.setProduct(entityManager.getReference(Product.class, product.id()));
+            orderItem.setQuantity(itemRequest.getQuantity());
+            orderItem.setUnitPrice(product.price());
+            orderItem.setLineTotal(itemDTO.getLineTotal());
+
+            orderItems.add(orderItem);
+            itemDTOs.add(itemDTO);
+        }
 
-        List<Product> products = productRepository.findActiveProductByIds(productIds);
-        Map<Long, Product> productMap = products.stream()
-                .collect(Collectors.toMap(Product::getId, product -> product));
+        order.setTotal(total.total());
+        order.setItems(orderItems);
+        return itemDTOs;
+    }
 
+    private static OrderItemResponseDTO priceItem(ProductSnapshot product, int quantity, OrderTotal total) {
+        BigDecimal lineTotal = total.addLine(product.price(), product.priceCents(), quantity);
+        return new OrderItemResponseDTO(product.id(), product.name(), quantity, product.price(), lineTotal);
+    }
+
+    // Produto inexistente sempre recusa; o saldo so e conferido para os produtos em availableStock
+    private void validateStock(OrderRequestDTO orderRequest, Map<Long, ProductSnapshot> productMap,
+                               Map<Long, Integer> availableStock) {
         List<StockErrorDTO> stockErrors = new ArrayList<>();
 
         for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
-            Product product = productMap.get(itemRequest.getProductId());
+            ProductSnapshot product = productMap.get(itemRequest.getProductId());
+            Integer available = product == null ? null : availableStock.get(product.id());
             if (product == null) {
                 stockErrors.add(new StockErrorDTO(itemRequest.getProductId(), 0, "Produto não encontrado."));
-            } else if (product.getStock() < itemRequest.getQuantity()) {
+            } else if (available != null && available < itemRequest.getQuantity()) {
                 stockErrors.add(new StockErrorDTO(
                         itemRequest.getProductId(),
-                        product.getStock(),
-                        product.getName()
+                        available,
+                        product.name()
                 ));
             }
         }
@@ -55,53 +362,114 @@ public class OrderService {
         if(!stockErrors.isEmpty()) {
             throw new InsuffcientStockException(stockErrors);
         }
+    }
 
-        Order order = new Order();
-        order.setCreatedAt(LocalDateTime.now());
-
-        List<OrderItem> orderItems = new ArrayList<>();
-        BigDecimal total = BigDecimal.ZERO;
-
-        for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
-            Product product = productMap.get(itemRequest.getProductId());
+    // Uma unica ida ao banco para todos os itens; a condicao stock >= ? e a unica checagem de estoque,
+    // e a recusa corrige o cache com os saldos reais. Devolve os produtos lidos depois da baixa, cujo
+    // nome e preco entram no pedido
+    private Map<Long, ProductSnapshot> decrementStock(OrderRequestDTO orderRequest,
+                                                      Map<Long, ProductSnapshot> productMap) {
+        Map<Long, Integer> quantities = aggregateQuantities(orderRequest);
+        StockDecrement decrement = decrementStockIfAvailable(quantities);
+        if (!decrement.isAccepted()) {
+            productCache.updateStock(decrement.shortages());
+            throw new InsuffcientStockException(toStockErrors(decrement.shortages(), productMap));
+        }
+        return toSnapshots(decrement.products().values());
+    }
 
-            product.setStock(product.getStock() - itemRequest.getQuantity());
-            productRepository.save(product);
+    // Produtos quentes fracionados saem das fracoes; os demais do update condicional em products. A
+    // linha de um fracionado nao e travada: nome e preco sao relidos na mesma transacao
+    private StockDecrement decrementStockIfAvailable(Map<Long, Integer> quantities) {
+        if (!stockShards.isEnabled()) {
+            return productRepository.decrementStockIfAvailable(quantities);
+        }
+        Map<Long, Integer> regular = new LinkedHashMap<>();
+        Map<Long, Integer> sharded = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) ->
+                (stockShards.isSharded(productId) ? sharded : regular).put(productId, quantity));
 
-            BigDecimal lineTotal = product.getPrice()
-                    .multiply(BigDecimal.valueOf(itemRequest.getQuantity()))
-                    .setScale(2, RoundingMode.HALF_EVEN);
+        StockDecrement decrement = productRepository.decrementStockIfAvailable(regular);
+        if (!decrement.isAccepted() || sharded.isEmpty()) {
+            return decrement;
+        }
+        Map<Long, Integer> shortages = new LinkedHashMap<>(stockShards.decrementIfAvailable(sharded));
+        Map<Long, ProductDTO> products = new HashMap<>(decrement.products());
+        if (shortages.isEmpty()) {
+            productRepository.findActiveProducts(sharded.keySet())
+                    .forEach(product -> products.put(product.getId(), product));
+            // Desativado depois da baixa nas fracoes: recusa como sem estoque e desfaz a transacao
+            sharded.keySet().forEach(productId -> {
+                if (!products.containsKey(productId)) {
+                    shortages.put(productId, 0);
+                }
+            });
+        }
+        return shortages.isEmpty() ? new StockDecrement(Map.of(), products) : new StockDecrement(shortages, Map.of());
+    }
 
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setProduct(product);
-            orderItem.setQuantity(itemRequest.getQuantity());
-            orderItem.setUnitPrice(product.getPrice());
-            orderItem.setLineTotal(lineTotal);
+    private List<StockErrorDTO> toStockErrors(Map<Long, Integer> shortages, Map<Long, ProductSnapshot> productMap) {
+        List<StockErrorDTO> stockErrors = new ArrayList<>();
+        shortages.forEach((productId, available) ->
+                stockErrors.add(new StockErrorDTO(productId, available, productMap.get(productId).name())));
+        return stockErrors;
+    }
 
-            orderItems.add(orderItem);
-            total = total.add(lineTotal);
+    private Map<Long, Integer> aggregateQuantities(OrderRequestDTO orderRequest) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
+            quantities.merge(itemRequest.getProductId(), itemRequest.getQuantity(), Integer::sum);
         }
+        return quantities;
+    }
 
-        order.setTotal(total.setScale(2, RoundingMode.HALF_EVEN));
-        order.setItems(orderItems);
+    private StockReservation reserveFromLedger(OrderRequestDTO orderRequest, Map<Long, ProductSnapshot> productMap) {
+        Map<Long, Integer> quantities = aggregateQuantities(orderRequest);
 
-        Order savedOrder = orderRepository.save(order);
+        Map<Long, Integer> shortages;
+        if (productMap.keySet().containsAll(quantities.keySet())) {
+            StockReservation reservation = stockLedger.reserve(quantities);
+            if (reservation.isAccepted()) {
+                return reservation;
+            }
+            shortages = reservation.shortages();
+        } else {
+            shortages = new LinkedHashMap<>();
+            quantities.forEach((productId, quantity) -> {
+                int available = stockLedger.available(productId);
+                if (productMap.containsKey(productId) && available < quantity) {
+                    shortages.put(productId, available);
+                }
+            });
+        }
 
-        return convertToResponseDTO(savedOrder);
+        List<StockErrorDTO> stockErrors = new ArrayList<>();
+        for (OrderItemRequestDTO itemRequest : orderRequest.getItems()) {
+            ProductSnapshot product = productMap.get(itemRequest.getProductId());
+            if (product == null) {
+                stockErrors.add(new StockErrorDTO(itemRequest.getProductId(), 0, "Produto não encontrado."));
+            } else if (shortages.containsKey(product.id())) {
+                stockErrors.add(new StockErrorDTO(product.id(), shortages.get(product.id()), product.name()));
+            }
+        }
+        throw new InsuffcientStockException(stockErrors);
     }
 
-    private OrderResponseDTO convertToResponseDTO(Order order) {
-        List<OrderItemResponseDTO> itemDTOs = order.getItems().stream()
-                .map(item -> new OrderItemResponseDTO(
-                        item.getProduct().getId(),
-                        item.getProduct().getName(),
-                        item.getQuantity(),
-                        item.getUnitPrice(),
-                        item.getLineTotal()
-                ))
-                .collect(Collectors.toList());
+    // A reserva so vira baixa definitiva se o pedido for commitado; qualquer rollback devolve o saldo
+    private void registerLedgerCompletion(Order order, StockReservation reservation) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    stockLedger.confirm(order.getId(), reservation);
+                } else {
+                    stockLedger.release(reservation);
+                }
+            }
+        });
+    }
 
+    private OrderResponseDTO convertToResponseDTO(Order order, List<OrderItemResponseDTO> itemDTOs) {
         return new OrderResponseDTO(
                 order.getId(),
                 order.getCreatedAt(),
@@ -109,4 +477,7 @@ public class OrderService {
                 itemDTOs
         );
     }
+
+    private record PlacedOrder(Order order, List<OrderItemResponseDTO> items) {
+    }
 }
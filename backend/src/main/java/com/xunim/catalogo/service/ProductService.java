@@ -1,35 +1,94 @@
 package com.xunim.catalogo.service;
 
+import com.xunim.catalogo.cache.ProductCache;
+import com.xunim.catalogo.cache.ProductPageCoalescer;
+import com.xunim.catalogo.dto.ProductCursor;
 import com.xunim.catalogo.dto.ProductDTO;
 import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.dto.ProductSliceDTO;
+import com.xunim.catalogo.dto.ProductSuggestionDTO;
 import com.xunim.catalogo.entity.Product;
 import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.search.ProductSearchIndex;
+import com.xunim.catalogo.search.ProductSuggestIndex;
+import com.xunim.catalogo.stock.StockShards;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ProductService {
 
     private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductCache productCache;
+    private final ProductPageCoalescer productPageCoalescer;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final StockShards stockShards;
 
     public ProductPageDTO findProducts(String search, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by("name").ascending());
-        Page<Product> productPage = productRepository.findActiveProductsByName(search, pageable);
 
-        List<ProductDTO> productDTOs = productPage.getContent().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        // Indice em memoria responde sem ir ao banco; enquanto nao estiver carregado usa a query
+        if (productSearchIndex.isReady()) {
+            ProductSearchIndex.SearchResult result = productSearchIndex.search(search, page, size);
+            return toPageDTO(new PageImpl<>(stockShards.withCurrentStock(result.content()), pageable,
+                    result.totalElements()));
+        }
 
+        // Requisicoes identicas simultaneas esperam a mesma consulta (pagina + COUNT) em vez de repeti-la
+        ProductPageDTO productPage = productPageCoalescer.execute(search, page, size, () -> toPageDTO(
+                productCache.getPage(search, pageable, () -> productRepository.findActiveProductsByName(search, pageable))));
+        // O estoque dos produtos fracionados vem das fracoes, nao da pagina em cache
+        List<ProductDTO> content = stockShards.withCurrentStock(productPage.getContent());
+        if (content == productPage.getContent()) {
+            return productPage;
+        }
+        return new ProductPageDTO(content, productPage.getPage(), productPage.getSize(),
+                productPage.getTotalElements(), productPage.getTotalPages(), productPage.isFirst(), productPage.isLast());
+    }
+
+    public ProductSliceDTO scrollProducts(String search, String after, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        ProductCursor cursor = ProductCursor.decode(after);
+
+        if (productSearchIndex.isReady()) {
+            ProductSearchIndex.ScrollResult result = productSearchIndex.scroll(search, cursor, size);
+            return toSliceDTO(stockShards.withCurrentStock(result.content()), size, result.hasNext(),
+                    result.totalElements());
+        }
+
+        // Busca um registro a mais apenas para saber se existe proxima pagina
+        List<ProductDTO> content = productRepository
+                .findActiveProductsByNameAfter(search, cursor.name(), cursor.id(), Limit.of(size + 1));
+        boolean hasNext = content.size() > size;
+        return toSliceDTO(stockShards.withCurrentStock(hasNext ? content.subList(0, size) : content), size, hasNext,
+                null);
+    }
+
+    // Sempre da trie em memoria: nada de LIKE no banco a cada tecla
+    public List<ProductSuggestionDTO> suggestProducts(String prefix, int limit) {
+        return productSuggestIndex.suggest(prefix, limit);
+    }
+
+    public List<Product> findProductsByIds(List<Long> productIds) {
+        return productRepository.findActiveProductByIds(productIds);
+    }
+
+    // Compartilhado com o ReactiveProductService para manter o mesmo formato de pagina
+    static ProductPageDTO toPageDTO(Page<ProductDTO> productPage) {
         return new ProductPageDTO(
-                productDTOs,
+                productPage.getContent(),
                 productPage.getNumber(),
                 productPage.getSize(),
                 productPage.getTotalElements(),
@@ -39,17 +98,8 @@ public class ProductService {
         );
     }
 
-    public List<Product> findProductsByIds(List<Long> productIds) {
-        return productRepository.findActiveProductByIds(productIds);
-    }
-
-    private ProductDTO convertToDTO(Product product) {
-        return new ProductDTO(
-                product.getId(),
-                product.getName(),
-                product.getPrice(),
-                product.getStock(),
-                product.getActive()
-        );
+    private ProductSliceDTO toSliceDTO(List<ProductDTO> content, int size, boolean hasNext, Long totalElements) {
+        String nextCursor = hasNext ? ProductCursor.of(content.get(content.size() - 1)).encode() : null;
+        return new ProductSliceDTO(content, size, hasNext, nextCursor, totalElements);
     }
 }
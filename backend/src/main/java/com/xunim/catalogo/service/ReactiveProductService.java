@@ -0,0 +1,67 @@
+package com.xunim.catalogo.service;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.repository.ReactiveProductRepository;
+import com.xunim.catalogo.search.ProductSearchIndex;
+import com.xunim.catalogo.stock.StockShards;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Leitura do catalogo sem bloquear threads: o indice em memoria responde na hora e, enquanto
+ * ele nao esta pronto (ou desligado), pagina e total vem do banco por R2DBC em paralelo.
+ * Devolve o mesmo {@code ProductPageDTO} do {@link ProductService}; o checkout continua no JPA.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveProductService {
+
+    private final ReactiveProductRepository reactiveProductRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final StockShards stockShards;
+
+    public Mono<ProductPageDTO> findProducts(String search, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by("name").ascending());
+
+        if (productSearchIndex.isReady()) {
+            return Mono.fromSupplier(() -> productSearchIndex.search(search, page, size))
+                    .flatMap(result -> withCurrentStock(result.content())
+                            .map(content -> ProductService.toPageDTO(
+                                    new PageImpl<>(content, pageable, result.totalElements()))));
+        }
+
+        Mono<List<ProductDTO>> content = reactiveProductRepository
+                .findActiveByName(search, pageable.getOffset(), size)
+                .collectList();
+        Mono<Long> total = reactiveProductRepository.countActiveByName(search);
+        return Mono.zip(content, total)
+                .map(tuple -> ProductService.toPageDTO(new PageImpl<>(tuple.getT1(), pageable, tuple.getT2())));
+    }
+
+    public Flux<ProductDTO> findProductsByIds(List<Long> productIds) {
+        return reactiveProductRepository.findActiveByIds(productIds);
+    }
+
+    public Flux<ProductDTO> streamProducts(String search) {
+        return reactiveProductRepository.streamActiveByName(search);
+    }
+
+    // As queries do repositorio ja somam as fracoes; o indice so tem o ultimo valor recebido por evento
+    private Mono<List<ProductDTO>> withCurrentStock(List<ProductDTO> content) {
+        List<Long> productIds = stockShards.shardedIds(content);
+        if (productIds.isEmpty()) {
+            return Mono.just(content);
+        }
+        return reactiveProductRepository.sumShardStock(productIds)
+                .map(totals -> StockShards.withTotals(content, totals));
+    }
+}
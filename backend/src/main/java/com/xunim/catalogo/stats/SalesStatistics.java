@@ -0,0 +1,246 @@
+package com.xunim.catalogo.stats;
+
+import com.xunim.catalogo.dto.OrderItemResponseDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductSalesDTO;
+import com.xunim.catalogo.dto.SalesWindowDTO;
+import com.xunim.catalogo.event.OrderPlacedEvent;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.repository.OrderItemRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Agregados de vendas mantidos em memoria a cada pedido commitado.
+ *
+ * <p>Por produto guarda unidades e receita (em centavos) em {@link LongAdder}; um ranking ordenado
+ * por unidades permite responder o top-N percorrendo apenas N entradas; produtos desativados ou
+ * removidos continuam no ranking, mas ficam fora do top-N ate voltarem. As vendas recentes ficam
+ * em baldes de um minuto em um anel, cobrindo {@code catalogo.stats.window-retention-minutes}.
+ * Na subida tudo e reconstruido a partir de {@code order_items}.</p>
+ */
+@Slf4j
+@Component
+public class SalesStatistics implements SmartInitializingSingleton {
+
+    private final OrderItemRepository orderItemRepository;
+    private final Clock clock;
+    private final int retentionMinutes;
+
+    private final Map<Long, ProductSales> salesByProduct = new ConcurrentHashMap<>();
+    private final NavigableSet<RankEntry> ranking = new ConcurrentSkipListSet<>();
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    @Autowired
+    public SalesStatistics(OrderItemRepository orderItemRepository,
+                           @Value("${catalogo.stats.window-retention-minutes:1440}") int retentionMinutes) {
+        this(orderItemRepository, retentionMinutes, Clock.systemDefaultZone());
+    }
+
+    SalesStatistics(OrderItemRepository orderItemRepository, int retentionMinutes, Clock clock) {
+        this.orderItemRepository = orderItemRepository;
+        this.retentionMinutes = retentionMinutes;
+        this.clock = clock;
+        this.buckets = new AtomicReferenceArray<>(retentionMinutes);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        salesByProduct.clear();
+        ranking.clear();
+        for (int i = 0; i < buckets.length(); i++) {
+            buckets.set(i, null);
+        }
+
+        for (Object[] row : orderItemRepository.sumSalesByProduct()) {
+            record((Long) row[0], (String) row[1], ((Number) row[2]).longValue(), toCents((BigDecimal) row[3]));
+            salesByProduct.get((Long) row[0]).active = Boolean.TRUE.equals(row[4]);
+        }
+        LocalDateTime since = LocalDateTime.now(clock).minusMinutes(retentionMinutes);
+        for (Object[] row : orderItemRepository.findSalesSince(since)) {
+            addToBucket((Long) row[0], minuteOf((LocalDateTime) row[1]),
+                    ((Number) row[2]).longValue(), toCents((BigDecimal) row[3]));
+        }
+        log.info("Estatisticas de vendas carregadas para {} produtos", salesByProduct.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderPlaced(OrderPlacedEvent event) {
+        long minute = minuteOf(event.order().getCreatedAt());
+        for (OrderItemResponseDTO item : event.order().getItems()) {
+            long cents = toCents(item.getLineTotal());
+            record(item.getProductId(), item.getProductName(), item.getQuantity(), cents);
+            addToBucket(item.getProductId(), minute, item.getQuantity(), cents);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        setActive(event.product(), !event.removed() && Boolean.TRUE.equals(event.product().getActive()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        event.products().forEach(product -> setActive(product, Boolean.TRUE.equals(product.getActive())));
+    }
+
+    // Percorre as N primeiras entradas do ranking, mais as de produtos inativos puladas no caminho
+    public List<ProductSalesDTO> topSellers(int limit) {
+        List<ProductSalesDTO> top = new ArrayList<>(limit);
+        Iterator<RankEntry> iterator = ranking.iterator();
+        while (top.size() < limit && iterator.hasNext()) {
+            ProductSales sales = salesByProduct.get(iterator.next().productId());
+            if (sales != null && sales.active) {
+                top.add(sales.toDTO());
+            }
+        }
+        return top;
+    }
+
+    public Optional<ProductSalesDTO> productSales(Long productId) {
+        return Optional.ofNullable(salesByProduct.get(productId)).map(ProductSales::toDTO);
+    }
+
+    /**
+     * Vendas dos ultimos {@code minutes} minutos (limitado a retencao), de um produto ou de todos
+     * quando {@code productId} e nulo. Custo proporcional ao numero de baldes consultados.
+     */
+    public SalesWindowDTO salesInWindow(int minutes, Long productId) {
+        int window = Math.max(1, Math.min(minutes, retentionMinutes));
+        long now = minuteOf(LocalDateTime.now(clock));
+        long units = 0;
+        long cents = 0;
+        for (long minute = now - window + 1; minute <= now; minute++) {
+            Bucket bucket = buckets.get(slot(minute));
+            if (bucket == null || bucket.minute != minute) {
+                continue;
+            }
+            if (productId == null) {
+                units += bucket.units.sum();
+                cents += bucket.cents.sum();
+            } else {
+                LongAdder[] product = bucket.byProduct.get(productId);
+                if (product != null) {
+                    units += product[0].sum();
+                    cents += product[1].sum();
+                }
+            }
+        }
+        LocalDateTime to = LocalDateTime.ofEpochSecond((now + 1) * 60, 0, ZoneOffset.UTC);
+        return new SalesWindowDTO(to.minusMinutes(window), to, productId, units, BigDecimal.valueOf(cents, 2));
+    }
+
+    private void record(Long productId, String productName, long units, long cents) {
+        ProductSales sales = salesByProduct.computeIfAbsent(productId, ProductSales::new);
+        sales.name = productName;
+        sales.revenueCents.add(cents);
+        // A posicao no ranking depende do total, entao remocao e reinsercao precisam ser atomicas por produto
+        sales.lock.lock();
+        try {
+            ranking.remove(new RankEntry(sales.units, productId));
+            sales.units += units;
+            ranking.add(new RankEntry(sales.units, productId));
+        } finally {
+            sales.lock.unlock();
+        }
+    }
+
+    // Produto sem vendas nao entra no ranking; a primeira venda ja o registra como ativo
+    private void setActive(ProductDTO product, boolean active) {
+        ProductSales sales = salesByProduct.get(product.getId());
+        if (sales != null) {
+            sales.active = active;
+        }
+    }
+
+    private void addToBucket(Long productId, long minute, long units, long cents) {
+        Bucket bucket;
+        while (true) {
+            int slot = slot(minute);
+            bucket = buckets.get(slot);
+            if (bucket != null && bucket.minute == minute) {
+                break;
+            }
+            if (bucket != null && bucket.minute > minute) {
+                return; // Venda mais antiga que a retencao
+            }
+            if (buckets.compareAndSet(slot, bucket, new Bucket(minute))) {
+                bucket = buckets.get(slot);
+                break;
+            }
+        }
+        bucket.units.add(units);
+        bucket.cents.add(cents);
+        LongAdder[] product = bucket.byProduct.computeIfAbsent(productId, id -> new LongAdder[]{new LongAdder(), new LongAdder()});
+        product[0].add(units);
+        product[1].add(cents);
+    }
+
+    private int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) retentionMinutes);
+    }
+
+    private static long minuteOf(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2).unscaledValue().longValueExact();
+    }
+
+    private static final class ProductSales {
+        private final Long productId;
+        private final LongAdder revenueCents = new LongAdder();
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile String name;
+        private volatile long units;
+        private volatile boolean active = true;
+
+        ProductSales(Long productId) {
+            this.productId = productId;
+        }
+
+        ProductSalesDTO toDTO() {
+            return new ProductSalesDTO(productId, name, units, BigDecimal.valueOf(revenueCents.sum(), 2));
+        }
+    }
+
+    private record RankEntry(long units, long productId) implements Comparable<RankEntry> {
+        @Override
+        public int compareTo(RankEntry other) {
+            int byUnits = Long.compare(other.units, units);
+            return byUnits != 0 ? byUnits : Long.compare(productId, other.productId);
+        }
+    }
+
+    private static final class Bucket {
+        private final long minute;
+        private final LongAdder units = new LongAdder();
+        private final LongAdder cents = new LongAdder();
+        private final Map<Long, LongAdder[]> byProduct = new ConcurrentHashMap<>();
+
+        Bucket(long minute) {
+            this.minute = minute;
+        }
+    }
+}
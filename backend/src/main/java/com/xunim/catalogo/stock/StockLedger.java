@@ -0,0 +1,266 @@
+package com.xunim.catalogo.stock;
+
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.repository.OrderItemRepository;
+import com.xunim.catalogo.repository.OrderRepository;
+import com.xunim.catalogo.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Razao de estoque em memoria usado pelo checkout quando {@code catalogo.stock.ledger.enabled=true}.
+ *
+ * <p>Cada produto tem um contador atomico; a reserva de um pedido tenta debitar todos os itens
+ * via CAS e devolve o que ja debitou se algum faltar (tudo ou nada), sem locks nem conflitos de
+ * {@code @Version}. Os debitos confirmados sao gravados na tabela {@code products} em lote pelo
+ * {@link #flush()} agendado (um batch JDBC), que no mesmo commit marca os pedidos como {@code stock_synced}.
+ * Na subida, pedidos ainda nao sincronizados sao aplicados antes de carregar os contadores.</p>
+ */
+@Slf4j
+@Component
+public class StockLedger implements SmartInitializingSingleton {
+
+    private static final int TAKEN = -1;
+
+    private final ProductRepository productRepository;
+    private final OrderRepository orderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int flushBatchSize;
+
+    private final Map<Long, AtomicInteger> available = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> pendingByProduct = new ConcurrentHashMap<>();
+    private final Queue<PendingWrite> writeBackQueue = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean ready;
+
+    public StockLedger(ProductRepository productRepository,
+                       OrderRepository orderRepository,
+                       OrderItemRepository orderItemRepository,
+                       TransactionTemplate transactionTemplate,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${catalogo.stock.ledger.enabled:false}") boolean enabled,
+                       @Value("${catalogo.stock.ledger.flush-batch-size:1000}") int flushBatchSize) {
+        this.productRepository = productRepository;
+        this.orderRepository = orderRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.flushBatchSize = flushBatchSize;
+    }
+
+    public boolean isEnabled() {
+        return enabled && ready;
+    }
+
+    // Roda antes do servidor web aceitar requisicoes, entao nenhum pedido escapa da recuperacao
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            recover();
+        }
+    }
+
+    public void recover() {
+        // Saldos lidos na mesma transacao de escrita: sempre do primario, depois das baixas pendentes
+        List<Product> products = transactionTemplate.execute(status -> {
+            Map<Long, Integer> unsynced = new HashMap<>();
+            for (Object[] row : orderItemRepository.sumUnsyncedQuantitiesByProduct()) {
+                unsynced.put((Long) row[0], ((Number) row[1]).intValue());
+            }
+            if (!unsynced.isEmpty()) {
+                productRepository.decrementStock(unsynced);
+            }
+            orderRepository.markAllStockSynced();
+            if (!unsynced.isEmpty()) {
+                log.info("Razao de estoque aplicou {} produtos pendentes de pedidos anteriores", unsynced.size());
+            }
+            return productRepository.findAll();
+        });
+
+        available.clear();
+        pendingByProduct.clear();
+        products.forEach(product -> available.put(product.getId(), new AtomicInteger(product.getStock())));
+        ready = true;
+        log.info("Razao de estoque carregado com {} produtos", available.size());
+    }
+
+    public int available(Long productId) {
+        AtomicInteger counter = available.get(productId);
+        return counter == null ? 0 : counter.get();
+    }
+
+    public StockReservation reserve(Map<Long, Integer> quantities) {
+        Map<Long, Integer> taken = new HashMap<>();
+        for (Map.Entry<Long, Integer> item : quantities.entrySet()) {
+            AtomicInteger counter = available.get(item.getKey());
+            int observed = counter == null ? 0 : tryTake(counter, item.getValue());
+            if (observed != TAKEN) {
+                release(taken);
+                return new StockReservation(quantities, shortages(quantities, item.getKey(), observed));
+            }
+            taken.put(item.getKey(), item.getValue());
+        }
+        return new StockReservation(quantities, Map.of());
+    }
+
+    public void release(StockReservation reservation) {
+        release(reservation.quantities());
+    }
+
+    // Chamado apos o commit do pedido: o debito ja e definitivo, falta apenas grava-lo em products
+    public void confirm(long orderId, StockReservation reservation) {
+        reservation.quantities().forEach((productId, quantity) ->
+                pendingByProduct.computeIfAbsent(productId, id -> new AtomicInteger()).addAndGet(quantity));
+        writeBackQueue.add(new PendingWrite(orderId, reservation.quantities()));
+    }
+
+    /**
+     * Baixa ja definitiva que outro componente grava em products (o diario de pedidos). Fica como
+     * pendente ate {@link #applied}, para um ajuste manual do produto nesse intervalo nao devolver o saldo.
+     */
+    public void hold(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) ->
+                pendingByProduct.computeIfAbsent(productId, id -> new AtomicInteger()).addAndGet(quantity));
+    }
+
+    // Chamado depois do commit que gravou em products a baixa das reservas passadas a hold
+    public void applied(Map<Long, Integer> quantities) {
+        Map<Long, Integer> stock = new HashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            AtomicInteger pending = pendingByProduct.get(productId);
+            if (pending != null) {
+                pending.addAndGet(-quantity);
+            }
+            stock.put(productId, available(productId));
+        });
+        eventPublisher.publishEvent(new StockChangedEvent(stock));
+    }
+
+    @Scheduled(fixedDelayString = "${catalogo.stock.ledger.flush-interval-ms:100}")
+    public void flush() {
+        if (!isEnabled()) {
+            return;
+        }
+        List<PendingWrite> batch = new ArrayList<>();
+        PendingWrite write;
+        while (batch.size() < flushBatchSize && (write = writeBackQueue.poll()) != null) {
+            batch.add(write);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> deltas = new TreeMap<>();
+        List<Long> orderIds = new ArrayList<>(batch.size());
+        for (PendingWrite pending : batch) {
+            orderIds.add(pending.orderId());
+            pending.quantities().forEach((productId, quantity) -> deltas.merge(productId, quantity, Integer::sum));
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                productRepository.decrementStock(deltas);
+                orderRepository.markStockSynced(orderIds);
+            });
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao gravar {} pedidos do razao de estoque, nova tentativa no proximo ciclo", batch.size(), ex);
+            writeBackQueue.addAll(batch);
+            return;
+        }
+
+        Map<Long, Integer> stock = new HashMap<>();
+        deltas.forEach((productId, quantity) -> {
+            pendingByProduct.get(productId).addAndGet(-quantity);
+            stock.put(productId, available(productId));
+        });
+        eventPublisher.publishEvent(new StockChangedEvent(stock));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        while (isEnabled() && !writeBackQueue.isEmpty()) {
+            int before = writeBackQueue.size();
+            flush();
+            if (writeBackQueue.size() >= before) {
+                break;
+            }
+        }
+    }
+
+    // Alteracoes feitas direto na entidade (cadastro, ajuste manual) redefinem o saldo
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+        Long productId = event.productId();
+        if (event.removed()) {
+            available.remove(productId);
+            return;
+        }
+        AtomicInteger pending = pendingByProduct.get(productId);
+        int stock = event.product().getStock() - (pending == null ? 0 : pending.get());
+        available.computeIfAbsent(productId, id -> new AtomicInteger()).set(stock);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        event.products().forEach(product -> onProductChanged(new ProductChangedEvent(product, false)));
+    }
+
+    private void release(Map<Long, Integer> quantities) {
+        quantities.forEach((productId, quantity) -> {
+            AtomicInteger counter = available.get(productId);
+            if (counter != null) {
+                counter.addAndGet(quantity);
+            }
+        });
+    }
+
+    // O produto que falhou usa o saldo visto no CAS; os demais sao conferidos para reportar tudo de uma vez
+    private Map<Long, Integer> shortages(Map<Long, Integer> quantities, Long failedProductId, int observed) {
+        Map<Long, Integer> shortages = new LinkedHashMap<>();
+        quantities.forEach((productId, quantity) -> {
+            int current = productId.equals(failedProductId) ? observed : available(productId);
+            if (current < quantity) {
+                shortages.put(productId, current);
+            }
+        });
+        return shortages;
+    }
+
+    // Devolve TAKEN quando debitou, senao o saldo observado que impediu o debito
+    private static int tryTake(AtomicInteger counter, int quantity) {
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                return current;
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                return TAKEN;
+            }
+        }
+    }
+
+    private record PendingWrite(long orderId, Map<Long, Integer> quantities) {
+    }
+}
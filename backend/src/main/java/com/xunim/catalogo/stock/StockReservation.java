@@ -0,0 +1,14 @@
+package com.xunim.catalogo.stock;
+
+import java.util.Map;
+
+/**
+ * Resultado de uma reserva no {@link StockLedger}. Quando recusada, {@code shortages}
+ * traz o saldo disponivel de cada produto que nao pode ser atendido e nada foi reservado.
+ */
+public record StockReservation(Map<Long, Integer> quantities, Map<Long, Integer> shortages) {
+
+    public boolean isAccepted() {
+        return shortages.isEmpty();
+    }
+}
@@ -0,0 +1,404 @@
+package com.xunim.catalogo.stock;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.Savepoint;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estoque fracionado para produtos quentes ({@code catalogo.stock.sharding.product-ids}), usado
+ * pelo checkout no lugar do update condicional em {@code products}.
+ *
+ * <p>O saldo de cada produto marcado fica dividido em {@code catalogo.stock.sharding.shards} linhas
+ * de {@code product_stock_shards}. Cada pedido debita uma fracao livre, a partir de uma sorteada, de
+ * modo que checkouts simultaneos do mesmo produto travam linhas diferentes ate o commit em vez de
+ * esperarem todos pela linha do produto. Quando nenhuma fracao livre cobre o item, todas sao travadas
+ * de uma vez, o saldo total e conferido e o restante e redistribuido por igual.</p>
+ *
+ * <p>Nenhuma trava de fracao espera ({@code FOR UPDATE NOWAIT}): uma fracao travada por outro pedido
+ * e pulada e, se a redistribuicao esbarra em uma, o produto e tentado de novo apos uma pausa curta.
+ * Como nenhum checkout espera por outro nas fracoes, nao ha ciclo de travas (no H2 quem espera fica
+ * preso a transacao inteira que travou a linha, mesmo que ela ja a tenha soltado em um savepoint). Se o
+ * produto segue disputado por {@code catalogo.stock.sharding.lock-wait-ms}, o pedido e recusado com
+ * {@link ServiceOverloadedException} (503).</p>
+ *
+ * <p>As fracoes sao o saldo oficial. {@code products.stock} e recalculado a partir delas pelo
+ * {@link #sync()} agendado e os eventos de estoque so aproximam os caches; as listagens trocam o
+ * estoque dos produtos fracionados pela soma atual das fracoes ({@link #withCurrentStock}). Por isso o
+ * estoque de um produto fracionado so deve ser ajustado pela importacao em massa, que redistribui as
+ * fracoes na mesma transacao; uma gravacao direta da entidade seria sobrescrita na sincronizacao.
+ * Com o razao de estoque ligado nao ha linha quente a dividir e o fracionamento fica desligado.</p>
+ */
+@Slf4j
+@Component
+public class StockShards implements SmartInitializingSingleton {
+
+    private static final int TAKEN = -1;
+    private static final int BUSY = -2;
+
+    private static final String STOCK_SQL =
+            "SELECT stock FROM product_stock_shards WHERE product_id = ? ORDER BY shard";
+    private static final String LOCK_SQL =
+            "SELECT stock FROM product_stock_shards WHERE product_id = ? AND shard = ? FOR UPDATE NOWAIT";
+    private static final String DEBIT_SQL =
+            "UPDATE product_stock_shards SET stock = stock - ? WHERE product_id = ? AND shard = ?";
+    private static final String ACTIVE_SQL =
+            "SELECT active FROM products WHERE id = ?";
+    private static final String LOCK_ALL_SQL =
+            "SELECT stock FROM product_stock_shards WHERE product_id = ? ORDER BY shard FOR UPDATE NOWAIT";
+    private static final String SET_SQL =
+            "UPDATE product_stock_shards SET stock = ? WHERE product_id = ? AND shard = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO product_stock_shards (product_id, shard, stock) VALUES (?, ?, ?)";
+    private static final String SYNC_SQL =
+            "UPDATE products SET stock = (SELECT SUM(s.stock) FROM product_stock_shards s WHERE s.product_id = products.id), "
+                    + "version = version + 1 WHERE id = ? "
+                    + "AND EXISTS (SELECT 1 FROM product_stock_shards s WHERE s.product_id = products.id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final List<Long> configuredProductIds;
+    private final int shards;
+    private final long lockWaitMs;
+    private final boolean ledgerEnabled;
+
+    private final Set<Long> unsynced = ConcurrentHashMap.newKeySet();
+    private volatile Set<Long> shardedProductIds = Set.of();
+
+    public StockShards(JdbcTemplate jdbcTemplate,
+                       TransactionTemplate transactionTemplate,
+                       ApplicationEventPublisher eventPublisher,
+                       @Value("${catalogo.stock.sharding.product-ids:}") List<Long> configuredProductIds,
+                       @Value("${catalogo.stock.sharding.shards:8}") int shards,
+                       @Value("${catalogo.stock.sharding.lock-wait-ms:2000}") long lockWaitMs,
+                       @Value("${catalogo.stock.ledger.enabled:false}") boolean ledgerEnabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.configuredProductIds = configuredProductIds;
+        this.shards = shards;
+        this.lockWaitMs = lockWaitMs;
+        this.ledgerEnabled = ledgerEnabled;
+    }
+
+    public boolean isEnabled() {
+        return !shardedProductIds.isEmpty();
+    }
+
+    public boolean isSharded(Long productId) {
+        return shardedProductIds.contains(productId);
+    }
+
+    // Roda antes do servidor web aceitar requisicoes; as fracoes de uma execucao anterior sao mantidas
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (configuredProductIds.isEmpty()) {
+            return;
+        }
+        if (ledgerEnabled) {
+            log.warn("catalogo.stock.sharding ignorado: o razao de estoque ja tira a baixa da linha do produto");
+            return;
+        }
+        configure(configuredProductIds);
+    }
+
+    /**
+     * Fraciona os produtos informados e devolve a {@code products} o estoque dos que deixaram de ser
+     * fracionados (ou que estavam com outro numero de fracoes). Deve rodar sem checkouts em andamento.
+     */
+    public void configure(Collection<Long> productIds) {
+        Set<Long> sharded = transactionTemplate.execute(status -> {
+            Map<Long, Integer> existing = new HashMap<>();
+            jdbcTemplate.query("SELECT product_id, COUNT(*) FROM product_stock_shards GROUP BY product_id",
+                    rs -> {
+                        existing.put(rs.getLong(1), rs.getInt(2));
+                    });
+
+            Set<Long> result = new HashSet<>();
+            existing.forEach((productId, count) -> {
+                if (count == shards && productIds.contains(productId)) {
+                    result.add(productId);
+                } else {
+                    jdbcTemplate.update(SYNC_SQL, productId);
+                    jdbcTemplate.update("DELETE FROM product_stock_shards WHERE product_id = ?", productId);
+                }
+            });
+
+            for (Long productId : new TreeSet<>(productIds)) {
+                if (result.contains(productId)) {
+                    continue;
+                }
+                List<Integer> stock = jdbcTemplate.queryForList(
+                        "SELECT stock FROM products WHERE id = ? FOR UPDATE", Integer.class, productId);
+                if (stock.isEmpty()) {
+                    log.warn("Produto {} nao existe e nao sera fracionado", productId);
+                    continue;
+                }
+                int[] split = split(stock.get(0));
+                List<Object[]> rows = new ArrayList<>(shards);
+                for (int shard = 0; shard < shards; shard++) {
+                    rows.add(new Object[]{productId, shard, split[shard]});
+                }
+                jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+                result.add(productId);
+            }
+            return result;
+        });
+
+        shardedProductIds = Set.copyOf(sharded);
+        log.info("Estoque fracionado em {} partes para {} produtos", shards, shardedProductIds.size());
+    }
+
+    /**
+     * Debita os itens das fracoes dentro da transacao do pedido. Devolve o saldo total de cada produto
+     * que nao pode ser atendido (0 se inativo); nesse caso quem chamou deve desfazer a transacao.
+     */
+    public Map<Long, Integer> decrementIfAvailable(Map<Long, Integer> quantities) {
+        Map<Long, Integer> shortages = new LinkedHashMap<>();
+        // Mesma ordem por id do update em products: pedidos com varios produtos quentes nao se travam
+        for (Map.Entry<Long, Integer> item : new TreeMap<>(quantities).entrySet()) {
+            int observed = take(item.getKey(), item.getValue());
+            if (observed != TAKEN) {
+                shortages.put(item.getKey(), observed);
+            }
+        }
+        if (!shortages.isEmpty()) {
+            return shortages;
+        }
+
+        // Marcado so apos o commit: um sync que rodasse antes leria a soma sem este pedido e
+        // descartaria a marca
+        Set<Long> productIds = Set.copyOf(quantities.keySet());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    unsynced.addAll(productIds);
+                }
+            });
+        } else {
+            unsynced.addAll(productIds);
+        }
+        // As fracoes debitadas seguem travadas ate o commit; a soma lida aqui ja inclui este pedido
+        eventPublisher.publishEvent(new StockChangedEvent(totals(quantities.keySet())));
+        return Map.of();
+    }
+
+    // Regrava products.stock com a soma das fracoes, uma vez por intervalo em vez de a cada pedido
+    @Scheduled(fixedDelayString = "${catalogo.stock.sharding.sync-interval-ms:100}")
+    public void sync() {
+        if (!isEnabled() || unsynced.isEmpty()) {
+            return;
+        }
+        List<Long> productIds = new ArrayList<>();
+        for (Iterator<Long> iterator = unsynced.iterator(); iterator.hasNext(); ) {
+            productIds.add(iterator.next());
+            iterator.remove();
+        }
+        Collections.sort(productIds);
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(SYNC_SQL, productIds, productIds.size(),
+                            (ps, productId) -> ps.setLong(1, productId)));
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao sincronizar o estoque de {} produtos fracionados, nova tentativa no proximo ciclo",
+                    productIds.size(), ex);
+            unsynced.addAll(productIds);
+            return;
+        }
+        eventPublisher.publishEvent(new StockChangedEvent(totals(productIds)));
+    }
+
+    /**
+     * Copia dos produtos com o estoque dos fracionados trocado pela soma atual das fracoes; devolve a
+     * propria lista, sem consulta, quando nenhum deles e fracionado.
+     */
+    public List<ProductDTO> withCurrentStock(List<ProductDTO> products) {
+        List<Long> productIds = shardedIds(products);
+        return productIds.isEmpty() ? products : withTotals(products, totals(productIds));
+    }
+
+    public List<Long> shardedIds(List<ProductDTO> products) {
+        if (!isEnabled()) {
+            return List.of();
+        }
+        return products.stream().map(ProductDTO::getId).filter(this::isSharded).toList();
+    }
+
+    // Os DTOs das paginas em cache sao compartilhados: troca por copias em vez de alterar o estoque
+    public static List<ProductDTO> withTotals(List<ProductDTO> products, Map<Long, Integer> totals) {
+        return products.stream()
+                .map(product -> totals.containsKey(product.getId())
+                        ? new ProductDTO(product.getId(), product.getName(), product.getPrice(),
+                        totals.get(product.getId()), product.getActive())
+                        : product)
+                .toList();
+    }
+
+    // A importacao define o saldo absoluto: redistribui as fracoes antes do commit, junto com products
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onProductsImported(ProductsImportedEvent event) {
+        for (ProductDTO product : event.products()) {
+            if (isSharded(product.getId())) {
+                write(product.getId(), product.getStock());
+            }
+        }
+    }
+
+    // Debita o item sem nunca esperar por trava (o H2 acusa o NOWAIT como timeout); fracoes travadas
+    // por outros pedidos viram nova tentativa apos uma pausa curta, ate lock-wait-ms
+    private int take(long productId, int quantity) {
+        List<Boolean> active = jdbcTemplate.queryForList(ACTIVE_SQL, Boolean.class, productId);
+        if (active.isEmpty() || !active.get(0)) {
+            return 0;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockWaitMs);
+        while (true) {
+            int observed = tryTake(productId, quantity);
+            if (observed != BUSY) {
+                return observed;
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new ServiceOverloadedException("Estoque do produto " + productId + " em disputa", 1);
+            }
+            pause();
+        }
+    }
+
+    // O saldo confirmado decide sem trava: debitos em andamento ainda nao aparecem nele, entao um
+    // total menor que o item ja e falta. Depois tenta, a partir da sorteada, as fracoes que cobrem o
+    // item; a que estiver travada ou ja nao cobrir e solta voltando ao savepoint. So redistribui
+    // quando nenhuma fracao cobre o item sozinha
+    private int tryTake(long productId, int quantity) {
+        List<Integer> committed = jdbcTemplate.queryForList(STOCK_SQL, Integer.class, productId);
+        int total = committed.stream().mapToInt(Integer::intValue).sum();
+        if (total < quantity) {
+            return total;
+        }
+        int first = ThreadLocalRandom.current().nextInt(shards);
+        boolean candidates = false;
+        boolean busy = false;
+        for (int i = 0; i < committed.size(); i++) {
+            int shard = (first + i) % committed.size();
+            if (committed.get(shard) < quantity) {
+                continue;
+            }
+            candidates = true;
+            Savepoint savepoint = savepoint();
+            try {
+                List<Integer> stock = jdbcTemplate.queryForList(LOCK_SQL, Integer.class, productId, shard);
+                if (!stock.isEmpty() && stock.get(0) >= quantity) {
+                    jdbcTemplate.update(DEBIT_SQL, quantity, productId, shard);
+                    release(savepoint);
+                    return TAKEN;
+                }
+            } catch (PessimisticLockingFailureException | QueryTimeoutException ex) {
+                busy = true;
+            }
+            rollback(savepoint);
+        }
+        return busy || candidates ? BUSY : rebalance(productId, quantity);
+    }
+
+    // Nenhuma fracao cobre o item sozinha: trava todas, confere o total e redistribui o que sobrar.
+    // Se alguma foi travada nesse meio tempo, o comando falha e deixa as anteriores travadas; o
+    // savepoint as solta
+    private int rebalance(long productId, int quantity) {
+        Savepoint savepoint = savepoint();
+        List<Integer> stocks;
+        try {
+            stocks = jdbcTemplate.queryForList(LOCK_ALL_SQL, Integer.class, productId);
+        } catch (PessimisticLockingFailureException | QueryTimeoutException ex) {
+            rollback(savepoint);
+            return BUSY;
+        }
+        int total = stocks.stream().mapToInt(Integer::intValue).sum();
+        if (total < quantity) {
+            rollback(savepoint);
+            return total;
+        }
+        write(productId, total - quantity);
+        release(savepoint);
+        log.debug("Fracoes do produto {} redistribuidas com {} unidades", productId, total - quantity);
+        return TAKEN;
+    }
+
+    private Savepoint savepoint() {
+        return jdbcTemplate.execute((ConnectionCallback<Savepoint>) Connection::setSavepoint);
+    }
+
+    private void release(Savepoint savepoint) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.releaseSavepoint(savepoint);
+            return null;
+        });
+    }
+
+    private void rollback(Savepoint savepoint) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            connection.rollback(savepoint);
+            return null;
+        });
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("Interrompido aguardando o estoque fracionado", 1);
+        }
+    }
+
+    private void write(long productId, int total) {
+        int[] split = split(total);
+        List<Object[]> rows = new ArrayList<>(shards);
+        for (int shard = 0; shard < shards; shard++) {
+            rows.add(new Object[]{split[shard], productId, shard});
+        }
+        jdbcTemplate.batchUpdate(SET_SQL, rows);
+    }
+
+    private int[] split(int total) {
+        int[] split = new int[shards];
+        for (int shard = 0; shard < shards; shard++) {
+            split[shard] = total / shards + (shard < total % shards ? 1 : 0);
+        }
+        return split;
+    }
+
+    private Map<Long, Integer> totals(Collection<Long> productIds) {
+        String placeholders = String.join(",", Collections.nCopies(productIds.size(), "?"));
+        Map<Long, Integer> totals = new HashMap<>();
+        jdbcTemplate.query("SELECT product_id, SUM(stock) FROM product_stock_shards WHERE product_id IN ("
+                        + placeholders + ") GROUP BY product_id",
+                rs -> {
+                    totals.put(rs.getLong(1), rs.getInt(2));
+                }, productIds.toArray());
+        return totals;
+    }
+}
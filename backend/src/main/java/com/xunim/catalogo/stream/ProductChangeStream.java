@@ -0,0 +1,328 @@
+package com.xunim.catalogo.stream;
+
+import com.xunim.catalogo.cache.ProductCache;
+import com.xunim.catalogo.cache.ProductSnapshot;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductDeltaDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.exception.InvalidSubscriptionException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mudancas de estoque, preco e ativacao por server-sent events ({@code GET /products/changes?ids=}),
+ * para a vitrine atualizar os produtos exibidos sem recarregar paginas.
+ *
+ * <p>Os eventos de produto e de estoque chegam apos o commit e sao apenas copiados para o buffer de
+ * cada assinante do produto (indice por id): quem publica nunca escreve no socket. O buffer guarda
+ * uma mudanca por produto, fundindo as seguintes, e e esvaziado por um pool pequeno de threads; um
+ * cliente lento so atrasa as proprias mensagens, que se acumulam como um valor por produto. Assinantes
+ * ociosos custam o emitter e as entradas do indice, sem thread presa (requisicao assincrona do
+ * Servlet), e o heartbeat periodico descobre conexoes que cairam sem aviso.</p>
+ *
+ * <p>O envio ao socket bloqueia a thread do pool enquanto o cliente nao le. Um envio que passa de
+ * {@code catalogo.stream.send-timeout-ms} derruba o assinante (o cliente reconecta e recebe o estado
+ * atual) e o pool ganha uma thread ate aquele envio voltar, para os demais nao ficarem na fila atras
+ * dele; o emitter e encerrado quando o envio volta ou o container desiste da escrita. Metrica:
+ * {@code catalogo.stream.stalled}.</p>
+ */
+@Slf4j
+@Component
+public class ProductChangeStream {
+
+    private static final String EVENT_NAME = "changes";
+
+    private final ProductCache productCache;
+    private final int maxIds;
+    private final long timeoutMs;
+    private final long sendTimeoutNanos;
+    private final ThreadPoolExecutor flushExecutor;
+    private final Counter coalesced;
+    private final Counter stalled;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Set<Subscriber>> subscribersByProductId = new ConcurrentHashMap<>();
+
+    public ProductChangeStream(ProductCache productCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${catalogo.stream.max-ids:500}") int maxIds,
+                               @Value("${catalogo.stream.timeout-ms:1800000}") long timeoutMs,
+                               @Value("${catalogo.stream.flush-threads:2}") int flushThreads,
+                               @Value("${catalogo.stream.send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.productCache = productCache;
+        this.maxIds = maxIds;
+        this.timeoutMs = timeoutMs;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.flushExecutor = new ThreadPoolExecutor(flushThreads, flushThreads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "product-change-stream-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coalesced = meterRegistry.counter("catalogo.stream.coalesced");
+        this.stalled = meterRegistry.counter("catalogo.stream.stalled");
+        Gauge.builder("catalogo.stream.subscribers", subscribers, Set::size).register(meterRegistry);
+    }
+
+    /**
+     * Abre um stream para os produtos informados. O primeiro evento traz o estado atual de cada um,
+     * cobrindo o que mudou entre a leitura da pagina pelo cliente e a assinatura.
+     */
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        Set<Long> ids = new LinkedHashSet<>(productIds);
+        if (ids.isEmpty()) {
+            throw new InvalidSubscriptionException("Informe ao menos um produto em ids");
+        }
+        if (ids.size() > maxIds) {
+            throw new InvalidSubscriptionException("Máximo de " + maxIds + " produtos por assinatura");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        register(ids, emitter);
+        return emitter;
+    }
+
+    // Visibilidade de pacote para os testes usarem um emitter proprio
+    void register(Set<Long> productIds, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(productIds, emitter);
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onError(ex -> unsubscribe(subscriber));
+
+        subscribers.add(subscriber);
+        for (Long productId : productIds) {
+            subscribersByProductId.compute(productId, (id, interested) -> {
+                Set<Subscriber> result = interested != null ? interested : ConcurrentHashMap.newKeySet();
+                result.add(subscriber);
+                return result;
+            });
+        }
+
+        // Lido depois de entrar no indice: um evento que chegue no meio prevalece sobre o snapshot
+        Map<Long, ProductSnapshot> current = productCache.getActive(productIds);
+        List<ProductDeltaDTO> snapshots = new ArrayList<>(productIds.size());
+        for (Long productId : productIds) {
+            ProductSnapshot snapshot = current.get(productId);
+            snapshots.add(snapshot != null
+                    ? new ProductDeltaDTO(productId, snapshot.stock(), snapshot.price(), true)
+                    : new ProductDeltaDTO(productId, null, null, false));
+        }
+        subscriber.offerSnapshots(snapshots);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        event.stockByProductId().forEach((productId, stock) ->
+                publish(new ProductDeltaDTO(productId, stock, null, null)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        publish(event.removed()
+                ? new ProductDeltaDTO(event.productId(), null, null, false)
+                : toDelta(event.product()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductsImported(ProductsImportedEvent event) {
+        for (ProductDTO product : event.products()) {
+            publish(toDelta(product));
+        }
+    }
+
+    // Sem isso uma conexao derrubada no meio do caminho so seria notada na proxima mudanca do produto
+    @Scheduled(fixedDelayString = "${catalogo.stream.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    // Um cliente que parou de ler prende a thread no envio; derruba quem passou do prazo
+    @Scheduled(fixedDelayString = "${catalogo.stream.send-check-interval-ms:1000}")
+    public void dropStalledSubscribers() {
+        long now = System.nanoTime();
+        subscribers.forEach(subscriber -> subscriber.dropIfStalled(now));
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushExecutor.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    private void publish(ProductDeltaDTO delta) {
+        Set<Subscriber> interested = subscribersByProductId.get(delta.getId());
+        if (interested != null) {
+            interested.forEach(subscriber -> subscriber.offer(delta));
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        for (Long productId : subscriber.productIds) {
+            subscribersByProductId.computeIfPresent(productId, (id, interested) -> {
+                interested.remove(subscriber);
+                return interested.isEmpty() ? null : interested;
+            });
+        }
+    }
+
+    // O envio preso so libera a thread quando o container desistir da escrita; ate la outra a substitui
+    private synchronized void addFlushThread() {
+        flushExecutor.setMaximumPoolSize(flushExecutor.getMaximumPoolSize() + 1);
+        flushExecutor.setCorePoolSize(flushExecutor.getCorePoolSize() + 1);
+    }
+
+    private synchronized void removeFlushThread() {
+        flushExecutor.setCorePoolSize(flushExecutor.getCorePoolSize() - 1);
+        flushExecutor.setMaximumPoolSize(flushExecutor.getMaximumPoolSize() - 1);
+    }
+
+    private static ProductDeltaDTO toDelta(ProductDTO product) {
+        return new ProductDeltaDTO(product.getId(), product.getStock(), product.getPrice(), product.getActive());
+    }
+
+    // Campos preenchidos na mudanca mais nova prevalecem; os demais vem da anterior
+    private static ProductDeltaDTO merge(ProductDeltaDTO older, ProductDeltaDTO newer) {
+        return new ProductDeltaDTO(newer.getId(),
+                newer.getStock() != null ? newer.getStock() : older.getStock(),
+                newer.getPrice() != null ? newer.getPrice() : older.getPrice(),
+                newer.getActive() != null ? newer.getActive() : older.getActive());
+    }
+
+    private final class Subscriber {
+
+        private final Set<Long> productIds;
+        private final SseEmitter emitter;
+        private final Map<Long, ProductDeltaDTO> pending = new ConcurrentHashMap<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean heartbeatDue;
+        // Inicio (System.nanoTime()) do envio em andamento, 0 sem envio; alterados sob o lock do assinante
+        private long sendingSince;
+        private volatile boolean dropped;
+
+        private Subscriber(Set<Long> productIds, SseEmitter emitter) {
+            this.productIds = productIds;
+            this.emitter = emitter;
+        }
+
+        void offer(ProductDeltaDTO delta) {
+            if (pending.merge(delta.getId(), delta, ProductChangeStream::merge) != delta) {
+                coalesced.increment();
+            }
+            schedule();
+        }
+
+        // Todos no buffer antes de agendar, para o estado inicial sair em um unico evento
+        void offerSnapshots(List<ProductDeltaDTO> snapshots) {
+            for (ProductDeltaDTO snapshot : snapshots) {
+                pending.merge(snapshot.getId(), snapshot, (newer, older) -> merge(older, newer));
+            }
+            schedule();
+        }
+
+        void heartbeat() {
+            heartbeatDue = true;
+            schedule();
+        }
+
+        void dropIfStalled(long now) {
+            long since;
+            synchronized (this) {
+                since = sendingSince;
+                if (since == 0 || now - since < sendTimeoutNanos || dropped) {
+                    return;
+                }
+                dropped = true;
+                addFlushThread();
+            }
+            stalled.increment();
+            log.debug("Assinante do stream de produtos derrubado: envio parado ha {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(now - since));
+            // complete() espera o envio preso (mesmo monitor do emitter); quem encerra e a propria flush
+            unsubscribe(this);
+        }
+
+        private synchronized void startSend() {
+            sendingSince = System.nanoTime();
+        }
+
+        // A thread extra de um assinante derrubado sai quando o envio preso finalmente volta
+        private synchronized void endSend() {
+            sendingSince = 0;
+            if (dropped) {
+                removeFlushThread();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    flushExecutor.execute(this::flush);
+                } catch (RejectedExecutionException ex) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        // Um envio por assinante de cada vez, para um lote mais novo nunca chegar antes de um antigo
+        private void flush() {
+            do {
+                List<ProductDeltaDTO> changes = drain();
+                startSend();
+                try {
+                    if (!changes.isEmpty()) {
+                        emitter.send(SseEmitter.event().name(EVENT_NAME).data(changes, MediaType.APPLICATION_JSON));
+                    } else if (heartbeatDue) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    heartbeatDue = false;
+                } catch (IOException | IllegalStateException ex) {
+                    // Cliente desconectado ou emitter encerrado; o container conclui a requisicao
+                    log.debug("Assinante do stream de produtos desconectado: {}", ex.getMessage());
+                    unsubscribe(this);
+                    return;
+                } finally {
+                    endSend();
+                }
+                if (dropped) {
+                    emitter.complete();
+                    return;
+                }
+                scheduled.set(false);
+            } while ((!pending.isEmpty() || heartbeatDue) && scheduled.compareAndSet(false, true));
+        }
+
+        private List<ProductDeltaDTO> drain() {
+            List<ProductDeltaDTO> changes = new ArrayList<>(pending.size());
+            for (Long productId : pending.keySet()) {
+                ProductDeltaDTO delta = pending.remove(productId);
+                if (delta != null) {
+                    changes.add(delta);
+                }
+            }
+            return changes;
+        }
+    }
+}
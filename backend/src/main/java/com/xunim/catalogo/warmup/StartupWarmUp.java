@@ -0,0 +1,198 @@
+package com.xunim.catalogo.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.cache.ProductCache;
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductSliceDTO;
+import com.xunim.catalogo.service.OrderService;
+import com.xunim.catalogo.service.ProductService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Aquecimento antes de a instancia se declarar pronta ({@code /actuator/health/readiness}).
+ *
+ * <p>Roda no {@link ApplicationReadyEvent}, depois da carga do indice de busca; o estado de
+ * prontidao so passa a {@code ACCEPTING_TRAFFIC} quando todos os ouvintes desse evento terminam.
+ * Percorre o catalogo ate {@code catalogo.warmup.products} produtos, o que carrega os snapshots do
+ * cache usados pelo checkout, e repete {@code catalogo.warmup.iterations} vezes as leituras quentes
+ * (listagem, busca e cotacao) para o JIT compilar esses caminhos antes da primeira requisicao. Com o
+ * servidor web no ar as leituras vao pela propria porta HTTP, passando tambem por Tomcat, MVC,
+ * validacao e Jackson (em JSON e CBOR); sem ele, direto nos servicos. Nada e gravado: a cotacao nao
+ * reserva estoque.</p>
+ */
+@Slf4j
+@Component
+public class StartupWarmUp {
+
+    private static final int PAGE_SIZE = 100;
+    private static final int QUOTE_ITEMS = 10;
+
+    private final ProductService productService;
+    private final ProductCache productCache;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+    private final boolean enabled;
+    private final int maxProducts;
+    private final int iterations;
+
+    public StartupWarmUp(ProductService productService,
+                         ProductCache productCache,
+                         OrderService orderService,
+                         ObjectMapper objectMapper,
+                         Environment environment,
+                         @Value("${catalogo.warmup.enabled:true}") boolean enabled,
+                         @Value("${catalogo.warmup.products:10000}") int maxProducts,
+                         @Value("${catalogo.warmup.iterations:200}") int iterations) {
+        this.productService = productService;
+        this.productCache = productCache;
+        this.orderService = orderService;
+        this.objectMapper = objectMapper;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.maxProducts = maxProducts;
+        this.iterations = iterations;
+    }
+
+    // Depois do ProductSearchIndex, para aquecer o caminho que as requisicoes vao usar
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<ProductDTO> products = loadCatalog();
+            List<String> searches = searchTerms(products);
+            OrderRequestDTO cart = cart(products);
+            Integer port = environment.getProperty("local.server.port", Integer.class);
+            if (port != null) {
+                warmUpHttp(port, searches, cart);
+            } else {
+                warmUpServices(searches, cart);
+            }
+            log.info("Aquecimento concluido em {} ms: {} produtos em cache, {} iteracoes{}",
+                    (System.nanoTime() - start) / 1_000_000, products.size(), iterations, port != null ? " por HTTP" : "");
+        } catch (IOException | RuntimeException ex) {
+            // Instancia fria ainda atende; nao vale derrubar a subida por isso
+            log.warn("Falha no aquecimento, seguindo sem ele", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void warmUpServices(List<String> searches, OrderRequestDTO cart) {
+        for (int i = 0; i < iterations; i++) {
+            String search = searches.get(i % searches.size());
+            productService.scrollProducts(search, "", PAGE_SIZE);
+            productService.findProducts(search, 0, PAGE_SIZE);
+            if (cart != null) {
+                orderService.quote(cart);
+            }
+        }
+    }
+
+    private void warmUpHttp(int port, List<String> searches, OrderRequestDTO cart)
+            throws IOException, InterruptedException {
+        String baseUrl = "http://localhost:" + port + environment.getProperty("server.servlet.context-path", "");
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        HttpRequest quote = cart != null ? HttpRequest.newBuilder(URI.create(baseUrl + "/orders/quote"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(toJson(cart)))
+                .build() : null;
+
+        for (int i = 0; i < iterations; i++) {
+            String search = URLEncoder.encode(searches.get(i % searches.size()), StandardCharsets.UTF_8);
+            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/products?after=&size=" + PAGE_SIZE + "&search=" + search)).build());
+            send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/products?size=" + PAGE_SIZE + "&search=" + search))
+                    .header("Accept", i % 2 == 0 ? "application/json" : "application/cbor")
+                    .build());
+            if (quote != null) {
+                send(client, quote);
+            }
+        }
+    }
+
+    private static void send(HttpClient client, HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() >= 400) {
+            throw new IOException(request.method() + " " + request.uri() + " respondeu " + response.statusCode());
+        }
+    }
+
+    private String toJson(OrderRequestDTO cart) {
+        try {
+            return objectMapper.writeValueAsString(cart);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private List<ProductDTO> loadCatalog() {
+        List<ProductDTO> products = new ArrayList<>();
+        String after = "";
+        while (products.size() < maxProducts) {
+            ProductSliceDTO slice = productService.scrollProducts("", after, Math.min(PAGE_SIZE, maxProducts - products.size()));
+            products.addAll(slice.getContent());
+            productCache.getActive(slice.getContent().stream().map(ProductDTO::getId).toList());
+            if (!slice.isHasNext()) {
+                break;
+            }
+            after = slice.getNextCursor();
+        }
+        return products;
+    }
+
+    // Primeira palavra dos nomes: termos curtos e longos, que seguem caminhos diferentes no indice
+    private static List<String> searchTerms(List<ProductDTO> products) {
+        Set<String> terms = new LinkedHashSet<>();
+        terms.add("");
+        for (ProductDTO product : products) {
+            String word = product.getName().split(" ", 2)[0];
+            terms.add(word);
+            terms.add(word.substring(0, Math.min(3, word.length())));
+            if (terms.size() >= 50) {
+                break;
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    private static OrderRequestDTO cart(List<ProductDTO> products) {
+        if (products.isEmpty()) {
+            return null;
+        }
+        List<OrderItemRequestDTO> items = new ArrayList<>(QUOTE_ITEMS);
+        for (ProductDTO product : products.subList(0, Math.min(QUOTE_ITEMS, products.size()))) {
+            items.add(new OrderItemRequestDTO(product.getId(), 1));
+        }
+        return new OrderRequestDTO(items);
+    }
+}
@@ -0,0 +1,54 @@
+-- Esquema inicial, equivalente ao que o Hibernate gerava com ddl-auto=create
+
+-- Incrementos iguais ao allocationSize das entidades (ids reservados em bloco)
+CREATE SEQUENCE orders_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE order_items_seq START WITH 1 INCREMENT BY 100;
+
+CREATE TABLE products (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name VARCHAR(120) NOT NULL,
+    price NUMERIC(12, 2) NOT NULL,
+    stock INTEGER NOT NULL,
+    active BOOLEAN NOT NULL,
+    version INTEGER NOT NULL
+);
+
+CREATE TABLE orders (
+    id BIGINT PRIMARY KEY,
+    created_at TIMESTAMP(6) NOT NULL,
+    total NUMERIC(12, 2) NOT NULL,
+    stock_synced BOOLEAN NOT NULL
+);
+
+CREATE TABLE order_items (
+    id BIGINT PRIMARY KEY,
+    order_id BIGINT NOT NULL,
+    product_id BIGINT NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_price NUMERIC(12, 2) NOT NULL,
+    line_total NUMERIC(12, 2) NOT NULL
+);
+
+-- Criados antes das chaves estrangeiras, que os reaproveitam em vez de criar indices proprios
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
+CREATE INDEX idx_order_items_product_id ON order_items (product_id);
+ALTER TABLE order_items ADD CONSTRAINT fk_order_items_order FOREIGN KEY (order_id) REFERENCES orders (id);
+ALTER TABLE order_items ADD CONSTRAINT fk_order_items_product FOREIGN KEY (product_id) REFERENCES products (id);
+
+-- Listagem e busca: active = true ordenado por (name, id); o H2 acrescenta o id ao fim do indice
+CREATE INDEX idx_products_active_name ON products (active, name);
+
+-- Chave por produto primeiro: todas as consultas das fracoes filtram por product_id
+CREATE TABLE product_stock_shards (
+    product_id BIGINT NOT NULL,
+    shard INTEGER NOT NULL,
+    stock INTEGER NOT NULL,
+    PRIMARY KEY (product_id, shard)
+);
+
+CREATE TABLE idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_json VARCHAR(65535) NOT NULL,
+    response_json VARCHAR(65535) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
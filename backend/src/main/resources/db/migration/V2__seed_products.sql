@@ -1,4 +1,2 @@
--- Insert Products H2 & MySQL
---INSERT INTO products (name, price, stock, active, version) VALUES ('Café Torrado 500g', 18.90, 5, true, 0), ('Filtro de Papel nº103', 7.50, 10, true,0), ('Garrafa Térmica 1L', 79.90, 2, true, 0), ('Açúcar Mascavo 1Kg', 16.00, 0, true, 0), ('Caneca Inox 300ml', 29.00, 8, true, 0)
-
+-- Catalogo inicial; antes vinha do import.sql a cada subida
 INSERT INTO products (name, price, stock, active, version) VALUES ('Café Torrado 500g', 18.90, 5, true, 0), ('Filtro de Papel nº103', 7.50, 10, true, 0), ('Garrafa Térmica 1L', 79.90, 2, true, 0), ('Açúcar Mascavo 1Kg', 16.00, 0, true, 0), ('Caneca Inox 300ml', 29.00, 8, true, 0), ('Café Moído 250g', 9.75, 14, true, 0), ('Café Gourmet 1Kg', 45.20, 6, true, 0), ('Açúcar Cristal 2Kg', 8.60, 12, true, 0), ('Açúcar Refinado 1Kg', 5.45, 21, true, 0), ('Mel Puro 500g', 23.90, 9, true, 0), ('Leite em Pó 400g', 14.80, 13, true, 0), ('Chocolate em Pó 200g', 8.25, 7, true, 0), ('Achocolatado 1Kg', 17.40, 4, true, 0), ('Chá Verde 200g', 11.95, 11, true, 0), ('Chá de Camomila 100g', 6.55, 9, true, 0), ('Biscoito Integral 200g', 7.10, 22, true, 0), ('Biscoito Recheado 140g', 4.40, 16, true, 0), ('Bolacha Água e Sal 400g', 5.15, 28, true, 0), ('Pão Integral 500g', 8.95, 5, true, 0), ('Pão Francês 1Kg', 11.75, 13, true, 0), ('Queijo Parmesão 200g', 21.90, 3, true, 0), ('Queijo Mussarela 500g', 27.50, 6, true, 0), ('Presunto 500g', 19.25, 8, true, 0), ('Iogurte Natural 170g', 3.45, 18, true, 0), ('Iogurte Grego 100g', 4.15, 19, true, 0), ('Manteiga 200g', 14.80, 9, true, 0), ('Margarina 500g', 8.40, 15, true, 0), ('Ovo Branco 12 unid.', 14.50, 10, true, 0), ('Ovo Caipira 12 unid.', 18.25, 8, true, 0), ('Farinha de Trigo 1Kg', 6.75, 18, true, 0), ('Fermento Biológico 10g', 2.70, 45, true, 0), ('Fermento Químico 100g', 4.90, 23, true, 0), ('Sal Refinado 1Kg', 3.10, 37, true, 0), ('Sal Grosso 1Kg', 4.05, 33, true, 0), ('Azeite de Oliva 500ml', 28.90, 7, true, 0), ('Óleo de Soja 900ml', 7.75, 20, true, 0), ('Óleo de Milho 900ml', 8.45, 17, true, 0), ('Molho de Tomate 340g', 4.25, 27, true, 0), ('Extrato de Tomate 140g', 3.75, 24, true, 0), ('Maionese 500g', 9.40, 15, true, 0), ('Ketchup 400g', 7.15, 14, true, 0), ('Mostarda 200g', 5.80, 18, true, 0), ('Molho de Pimenta 150ml', 6.40, 11, true, 0), ('Vinagre de Álcool 750ml', 3.45, 16, true, 0), ('Vinagre Balsâmico 250ml', 11.90, 6, true, 0);
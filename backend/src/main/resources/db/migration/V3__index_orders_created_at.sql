@@ -0,0 +1,2 @@
+-- Historico de pedidos por keyset, do mais novo para o mais antigo: (created_at, id) decrescentes
+CREATE INDEX idx_orders_created_at ON orders (created_at DESC, id DESC);
@@ -0,0 +1,38 @@
+package com.xunim.catalogo;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class FlywayMigrationTest {
+
+    @Autowired
+    private Flyway flyway;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldApplyAllMigrations() {
+        assertEquals(0, flyway.info().pending().length);
+    }
+
+    @Test
+    void shouldListActiveProductsThroughIndexInNameOrder() {
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT id, name FROM products WHERE active = TRUE ORDER BY name, id LIMIT 10", String.class);
+        assertTrue(plan.contains("IDX_PRODUCTS_ACTIVE_NAME"), plan);
+    }
+
+    @Test
+    void shouldKeyStockShardsByProductFirst() {
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT stock FROM product_stock_shards WHERE product_id = 1 ORDER BY shard", String.class);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+}
@@ -0,0 +1,66 @@
+package com.xunim.catalogo.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    @Test
+    void shouldRejectAboveLimitUntilSlotIsReleased() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+
+        limiter.release(FAST);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void shouldGrowWhileLatencyHoldsAndShrinkWhenItClimbs() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 4, 100);
+
+        runSaturated(limiter, FAST, 200);
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limite " + grown);
+
+        // Fila formada: a latencia recente passa da tolerancia sobre a media longa
+        runSaturated(limiter, SLOW, 50);
+        assertTrue(limiter.getLimit() < grown / 2, "limite " + limiter.getLimit());
+
+        runSaturated(limiter, SLOW, 2000);
+        assertTrue(limiter.getLimit() >= 4);
+    }
+
+    @Test
+    void shouldKeepLimitWhenMostSlotsAreIdle() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 4, 100);
+
+        for (int i = 0; i < 500; i++) {
+            assertTrue(limiter.tryAcquire());
+            limiter.release(i < 250 ? FAST : SLOW);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    // Todas as vagas ocupadas antes de cada rodada de conclusoes, como sob carga acima do limite
+    private static void runSaturated(AdaptiveConcurrencyLimiter limiter, long latencyNanos, int requests) {
+        for (int done = 0; done < requests; ) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++, done++) {
+                limiter.release(latencyNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.xunim.catalogo.admission;
+
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControlInterceptorTest {
+
+    @Test
+    void shouldRejectWithRetryAfterAndReleaseOnCompletion() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        FixedConcurrencyLimiter limiter = new FixedConcurrencyLimiter(1);
+        AdmissionControlInterceptor interceptor = new AdmissionControlInterceptor("orders", "POST", limiter,
+                "Muitos pedidos em andamento, tente novamente", 3, meterRegistry);
+
+        MockHttpServletRequest first = new MockHttpServletRequest("POST", "/orders");
+        assertTrue(interceptor.preHandle(first, new MockHttpServletResponse(), null));
+        // Outro metodo na mesma rota nao disputa a vaga
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("GET", "/orders"), new MockHttpServletResponse(), null));
+
+        ServiceOverloadedException ex = assertThrows(ServiceOverloadedException.class, () ->
+                interceptor.preHandle(new MockHttpServletRequest("POST", "/orders"), new MockHttpServletResponse(), null));
+        assertEquals(3, ex.getRetryAfterSeconds());
+        assertEquals(1, meterRegistry.counter("catalogo.admission.rejected", "endpoint", "orders").count());
+
+        interceptor.afterCompletion(first, new MockHttpServletResponse(), null, new IllegalStateException());
+        assertEquals(0, limiter.getInFlight());
+        assertTrue(interceptor.preHandle(new MockHttpServletRequest("POST", "/orders"), new MockHttpServletResponse(), null));
+    }
+}
@@ -0,0 +1,91 @@
+package com.xunim.catalogo.bulk;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.dto.ImportErrorDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductImportResultDTO;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.repository.ProductRepositoryCustom.UpsertResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductBulkServiceTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private ProductBulkService productBulkService;
+    private final List<Integer> chunkSizes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        productBulkService = new ProductBulkService(productRepository, transactionTemplate, new ObjectMapper(), 2, 100);
+    }
+
+    @Test
+    void shouldWriteValidRowsInChunksAndReportRejected() throws IOException {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        when(productRepository.upsertProducts(anyList())).thenAnswer(invocation -> {
+            List<ProductDTO> chunk = invocation.getArgument(0);
+            chunkSizes.add(chunk.size());
+            long updated = chunk.stream().filter(product -> product.getId() != null).count();
+            return new UpsertResult(chunk.size() - (int) updated, (int) updated);
+        });
+
+        ProductImportResultDTO result = importCsv("""
+                id,name,price,stock
+                ,Café Torrado 500g,18.90,5
+                3,Café Moído 250g,9.75,14
+                ,,5.00,1
+                ,Chá Verde,1.999,1
+                ,Caneca Inox 300ml,29.00,8
+                ,Açúcar Mascavo 1Kg,16.00,-1
+                """);
+
+        assertEquals(List.of(2, 1), chunkSizes);
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getUpdated());
+        assertEquals(3, result.getRejected());
+        assertEquals(List.of(4L, 5L, 7L), result.getErrors().stream().map(ImportErrorDTO::getLine).toList());
+        assertEquals("Preço deve ter no máximo 2 casas decimais", result.getErrors().get(1).getMessage());
+    }
+
+    @Test
+    void shouldCapReportedErrors() throws IOException {
+        StringBuilder csv = new StringBuilder("name,price,stock\n");
+        for (int i = 0; i < 150; i++) {
+            csv.append("Produto ").append(i).append(",x,1\n");
+        }
+
+        ProductImportResultDTO result = importCsv(csv.toString());
+
+        assertEquals(150, result.getRejected());
+        assertEquals(100, result.getErrors().size());
+        verifyNoInteractions(transactionTemplate, productRepository);
+    }
+
+    private ProductImportResultDTO importCsv(String csv) throws IOException {
+        return productBulkService.importProducts(BulkFormat.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+    }
+}
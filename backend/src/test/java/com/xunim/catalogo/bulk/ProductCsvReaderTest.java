@@ -0,0 +1,76 @@
+package com.xunim.catalogo.bulk;
+
+import com.xunim.catalogo.exception.InvalidBulkRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductCsvReaderTest {
+
+    @Test
+    void shouldParseQuotedFieldsInAnyColumnOrder() throws IOException {
+        List<ProductRow> rows = read("""
+                ﻿stock,name,price,id\r
+                5,"Café ""Especial"", 500g",18.90,7\r
+                2,"Caneca
+                Inox",29.00,\r
+                """);
+
+        assertEquals(2, rows.size());
+        assertEquals(7L, rows.get(0).product().getId());
+        assertEquals("Café \"Especial\", 500g", rows.get(0).product().getName());
+        assertEquals(new BigDecimal("18.90"), rows.get(0).product().getPrice());
+        assertEquals(5, rows.get(0).product().getStock());
+        assertTrue(rows.get(0).product().getActive());
+
+        assertNull(rows.get(1).product().getId());
+        assertEquals("Caneca\nInox", rows.get(1).product().getName());
+        assertEquals(3, rows.get(1).line());
+    }
+
+    @Test
+    void shouldReportInvalidRowsWithLineNumbers() throws IOException {
+        List<ProductRow> rows = read("""
+                name,price,stock,active
+                Café,abc,1,true
+                Chá,5.00
+                Açúcar,4.50,3,talvez
+                Mel,12.00,4,false
+                "Pão,3.00,1
+                """);
+
+        assertEquals(5, rows.size());
+        assertEquals("Valor inválido em price: 'abc'", rows.get(0).error());
+        assertEquals(2, rows.get(0).line());
+        assertEquals("Esperadas 4 colunas, encontradas 2", rows.get(1).error());
+        assertEquals("Valor inválido em active: 'talvez'", rows.get(2).error());
+        assertNull(rows.get(3).error());
+        assertFalse(rows.get(3).product().getActive());
+        assertEquals("Aspas não fechadas", rows.get(4).error());
+        assertEquals(6, rows.get(4).line());
+    }
+
+    @Test
+    void shouldRejectHeaderWithoutRequiredColumns() {
+        assertThrows(InvalidBulkRequestException.class, () -> read("id,name,price\n1,Café,9.90\n"));
+        assertThrows(InvalidBulkRequestException.class, () -> read(""));
+    }
+
+    private List<ProductRow> read(String csv) throws IOException {
+        List<ProductRow> rows = new ArrayList<>();
+        try (ProductCsvReader reader = new ProductCsvReader(new BufferedReader(new StringReader(csv)))) {
+            ProductRow row;
+            while ((row = reader.next()) != null) {
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+}
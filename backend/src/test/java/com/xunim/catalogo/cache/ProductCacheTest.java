@@ -0,0 +1,152 @@
+package com.xunim.catalogo.cache;
+
+import com.xunim.catalogo.dto.CacheStatsDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductCacheTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductCache cache;
+
+    private Product product1;
+    private Product product2;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ProductCache(productRepository, 100, 100);
+        product1 = new Product(1L, "Café Torrado 500g", new BigDecimal("18.90"), 5, true, 0);
+        product2 = new Product(2L, "Garrafa Térmica 1L", new BigDecimal("79.90"), 2, true, 0);
+    }
+
+    @Test
+    void shouldLoadOnlyMissingProducts() {
+        when(productRepository.findActiveProductByIds(List.of(1L))).thenReturn(List.of(product1));
+        when(productRepository.findActiveProductByIds(List.of(2L))).thenReturn(List.of(product2));
+
+        cache.getActive(List.of(1L));
+        Map<Long, ProductSnapshot> snapshots = cache.getActive(List.of(1L, 2L));
+
+        assertEquals("Café Torrado 500g", snapshots.get(1L).name());
+        assertEquals(new BigDecimal("79.90"), snapshots.get(2L).price());
+        verify(productRepository, times(1)).findActiveProductByIds(List.of(1L));
+        verify(productRepository, times(1)).findActiveProductByIds(List.of(2L));
+
+        CacheStatsDTO stats = cache.stats().get(0);
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+    }
+
+    @Test
+    void shouldUpdateStockInPlaceWithoutDroppingPages() {
+        Pageable pageable = PageRequest.of(0, 10);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getPage("", pageable, () -> load(loads, pageable, product1, product2));
+
+        cache.onStockChanged(new StockChangedEvent(Map.of(1L, 3)));
+        Page<ProductDTO> page = cache.getPage("", pageable, () -> load(loads, pageable, product1, product2));
+
+        assertEquals(1, loads.get());
+        assertEquals(3, page.getContent().get(0).getStock());
+        assertEquals(3, cache.getActive(List.of(1L)).get(1L).stock());
+        verify(productRepository, never()).findActiveProductByIds(anyList());
+    }
+
+    @Test
+    void shouldKeepPagesOnPriceChangeAndDropThemOnRename() {
+        Pageable pageable = PageRequest.of(0, 10);
+        AtomicInteger loads = new AtomicInteger();
+        cache.getPage("", pageable, () -> load(loads, pageable, product1, product2));
+
+        cache.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(1L, "Café Torrado 500g", new BigDecimal("19.90"), 5, true), false));
+        Page<ProductDTO> page = cache.getPage("", pageable, () -> load(loads, pageable, product1, product2));
+
+        assertEquals(1, loads.get());
+        assertEquals(new BigDecimal("19.90"), page.getContent().get(0).getPrice());
+
+        cache.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(2L, "Garrafa Térmica 500ml", new BigDecimal("79.90"), 2, true), false));
+        cache.getPage("", pageable, () -> load(loads, pageable, product1, product2));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void shouldEvictDeactivatedProduct() {
+        when(productRepository.findActiveProductByIds(anyList()))
+                .thenReturn(List.of(product1))
+                .thenReturn(List.of());
+
+        cache.getActive(List.of(1L));
+        cache.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(1L, "Café Torrado 500g", new BigDecimal("18.90"), 5, false), false));
+
+        assertTrue(cache.getActive(List.of(1L)).isEmpty());
+        verify(productRepository, times(2)).findActiveProductByIds(anyList());
+    }
+
+    @Test
+    void shouldNotCacheLoadRacingWithChange() {
+        when(productRepository.findActiveProductByIds(anyList())).thenAnswer(invocation -> {
+            // O evento chega enquanto a query ainda esta em andamento
+            cache.onStockChanged(new StockChangedEvent(Map.of(1L, 0)));
+            return List.of(product1);
+        });
+
+        cache.getActive(List.of(1L));
+        cache.getActive(List.of(1L));
+
+        verify(productRepository, times(2)).findActiveProductByIds(anyList());
+    }
+
+    @Test
+    void shouldReadSnapshotsFromPrimaryWhenPagesComeFromReplica() {
+        ProductCache replicaCache = new ProductCache(productRepository, 100, 100, true);
+        Pageable pageable = PageRequest.of(0, 10);
+        AtomicInteger loads = new AtomicInteger();
+        when(productRepository.findActiveProductByIds(List.of(1L, 2L))).thenReturn(List.of(product1, product2));
+
+        replicaCache.getPage("", pageable, () -> load(loads, pageable, product1, product2));
+        Page<ProductDTO> page = replicaCache.getPage("", pageable, () -> load(loads, pageable, product1, product2));
+
+        // A pagina guarda so os ids; os snapshots usados no checkout vem da query no primario
+        assertEquals(1, loads.get());
+        assertEquals(2, page.getNumberOfElements());
+        verify(productRepository, times(1)).findActiveProductByIds(List.of(1L, 2L));
+    }
+
+    private Page<ProductDTO> load(AtomicInteger loads, Pageable pageable, Product... products) {
+        loads.incrementAndGet();
+        List<ProductDTO> content = Arrays.stream(products)
+                .map(product -> new ProductDTO(product.getId(), product.getName(), product.getPrice(),
+                        product.getStock(), product.getActive()))
+                .toList();
+        return new PageImpl<>(content, pageable, content.size());
+    }
+}
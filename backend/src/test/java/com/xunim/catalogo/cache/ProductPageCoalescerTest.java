@@ -0,0 +1,128 @@
+package com.xunim.catalogo.cache;
+
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.event.StockChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductPageCoalescerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void shouldShareOneExecutionAmongConcurrentIdenticalQueries() throws Exception {
+        ProductPageCoalescer coalescer = new ProductPageCoalescer(meterRegistry, true, 0, now::get);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+        ProductPageDTO page = page(3);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<ProductPageDTO>> results = new ArrayList<>();
+            results.add(executor.submit(() -> coalescer.execute("cafe", 0, 10, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return page;
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> coalescer.execute("cafe", 0, 10, () -> {
+                    executions.incrementAndGet();
+                    return page(0);
+                })));
+            }
+            // Os demais ja esperam o future do primeiro antes de ele terminar
+            while (count("joined") < 7) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<ProductPageDTO> result : results) {
+                assertSame(page, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, executions.get());
+        assertEquals(1, count("executed"));
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    void shouldExecuteAgainOnceFinishedWithoutTtl() {
+        ProductPageCoalescer coalescer = new ProductPageCoalescer(meterRegistry, true, 0, now::get);
+        AtomicInteger executions = new AtomicInteger();
+
+        coalescer.execute("", 0, 10, () -> page(executions.incrementAndGet()));
+        coalescer.execute("", 0, 10, () -> page(executions.incrementAndGet()));
+        coalescer.execute("", 1, 10, () -> page(executions.incrementAndGet()));
+
+        assertEquals(3, executions.get());
+    }
+
+    @Test
+    void shouldReuseRecentResultWithinTtlUntilProductChanges() {
+        ProductPageCoalescer coalescer = new ProductPageCoalescer(meterRegistry, true, 50, now::get);
+        AtomicInteger executions = new AtomicInteger();
+
+        ProductPageDTO first = coalescer.execute("", 0, 10, () -> page(executions.incrementAndGet()));
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30));
+        assertSame(first, coalescer.execute("", 0, 10, () -> page(executions.incrementAndGet())));
+        assertEquals(1, count("reused"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(30));
+        ProductPageDTO second = coalescer.execute("", 0, 10, () -> page(executions.incrementAndGet()));
+        assertNotSame(first, second);
+
+        coalescer.onStockChanged(new StockChangedEvent(Map.of(1L, 0)));
+        coalescer.execute("", 0, 10, () -> page(executions.incrementAndGet()));
+        assertEquals(3, executions.get());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        coalescer.purgeExpired();
+        assertEquals(0, coalescer.size());
+    }
+
+    @Test
+    void shouldReleaseKeyWhenQueryFails() {
+        ProductPageCoalescer coalescer = new ProductPageCoalescer(meterRegistry, true, 50, now::get);
+
+        assertThrows(IllegalStateException.class, () -> coalescer.execute("", 0, 10, () -> {
+            throw new IllegalStateException("banco indisponivel");
+        }));
+        assertEquals(0, coalescer.size());
+        assertEquals(2, coalescer.execute("", 0, 10, () -> page(2)).getTotalElements());
+    }
+
+    private long count(String outcome) {
+        return (long) meterRegistry.counter("catalogo.coalescing.requests", "outcome", outcome).count();
+    }
+
+    private static ProductPageDTO page(long totalElements) {
+        return new ProductPageDTO(List.of(), 0, 10, totalElements, 1, true, true);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.xunim.catalogo.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Leituras reativas (R2DBC) contra o mesmo H2 do JPA. O indice em memoria fica desligado para as
+ * duas rotas irem ao banco: a pagina por R2DBC deve sair igual a da rota bloqueante.
+ */
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "catalogo.search.index.enabled=false"})
+@AutoConfigureMockMvc
+public class ReactiveProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String search;
+    private List<Long> productIds;
+
+    @BeforeEach
+    void setUp() {
+        // Termo unico por teste: o banco em memoria e compartilhado com os outros contextos
+        search = "Reativo" + System.nanoTime();
+        productIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Product product = new Product(0L, search + " item " + i, new BigDecimal("12.90"), 10 + i, true, 0);
+            productIds.add(productRepository.save(product).getId());
+        }
+        productRepository.save(new Product(0L, search + " inativo", new BigDecimal("1.00"), 1, false, 0));
+    }
+
+    @Test
+    void shouldReturnSamePageAsBlockingEndpoint() throws Exception {
+        for (int page = 0; page < 3; page++) {
+            String query = "?search=" + search + "&page=" + page + "&size=2";
+            JsonNode blocking = objectMapper.readTree(mockMvc.perform(get("/products" + query))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+
+            JsonNode reactive = objectMapper.readTree(asyncBody(get("/reactive/products" + query)));
+
+            assertEquals(blocking, reactive, "pagina " + page);
+        }
+        JsonNode first = objectMapper.readTree(asyncBody(get("/reactive/products?search=" + search + "&size=2")));
+        assertEquals(5, first.get("totalElements").asLong());
+        assertEquals(3, first.get("totalPages").asInt());
+        assertEquals(search + " item 0", first.get("content").get(0).get("name").asText());
+    }
+
+    @Test
+    void shouldReturnActiveProductsByIdsInIdOrder() throws Exception {
+        String ids = productIds.get(3) + "," + productIds.get(1) + ",-1";
+
+        JsonNode products = objectMapper.readTree(asyncBody(get("/reactive/products/by-ids?ids=" + ids)));
+
+        assertEquals(2, products.size());
+        assertEquals(productIds.get(1).longValue(), products.get(0).get("id").asLong());
+        assertEquals(productIds.get(3).longValue(), products.get(1).get("id").asLong());
+        assertEquals(13, products.get(1).get("stock").asInt());
+    }
+
+    @Test
+    void shouldStreamMatchingProductsAsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/reactive/products/stream?search=" + search)
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(5_000);
+
+        assertTrue(result.getResponse().getContentType().startsWith(MediaType.APPLICATION_NDJSON_VALUE));
+        String[] lines = result.getResponse().getContentAsString().trim().split("\n");
+        assertEquals(5, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            JsonNode product = objectMapper.readTree(lines[i]);
+            assertEquals(productIds.get(i).longValue(), product.get("id").asLong());
+            assertTrue(product.get("active").asBoolean());
+        }
+    }
+
+    private String asyncBody(org.springframework.test.web.servlet.RequestBuilder requestBuilder) throws Exception {
+        MvcResult started = mockMvc.perform(requestBuilder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,120 @@
+package com.xunim.catalogo.datasource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadReplicaDataSourceTest {
+
+    private MeterRegistry meterRegistry;
+    private DataSource primary;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        meterRegistry = new SimpleMeterRegistry();
+        primary = database("primary");
+    }
+
+    @Test
+    void shouldAlternateBetweenReplicas() throws SQLException {
+        ReadReplicaDataSource replicas = new ReadReplicaDataSource(primary,
+                List.of(database("replica-a"), database("replica-b")), meterRegistry);
+
+        assertEquals(List.of("replica-a", "replica-b", "replica-a", "replica-b"),
+                List.of(read(replicas), read(replicas), read(replicas), read(replicas)));
+        assertEquals(2.0, reads("replica-0"));
+        assertEquals(2.0, reads("replica-1"));
+    }
+
+    @Test
+    void shouldSkipFailedReplicaUntilHealthCheckPasses() throws SQLException {
+        String name = "replica-down-" + UUID.randomUUID();
+        // IFEXISTS: a conexao falha enquanto o banco da replica nao existir
+        JdbcDataSource down = new JdbcDataSource();
+        down.setURL("jdbc:h2:mem:" + name + ";IFEXISTS=TRUE");
+        ReadReplicaDataSource replicas = new ReadReplicaDataSource(primary,
+                List.of(down, database("replica-b")), meterRegistry);
+
+        assertEquals("replica-b", read(replicas));
+        assertEquals(1, replicas.healthyReplicas());
+        assertEquals("replica-b", read(replicas));
+        assertEquals("replica-b", read(replicas));
+
+        createDatabase("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "replica-a");
+        replicas.checkHealth(1);
+
+        assertEquals(2, replicas.healthyReplicas());
+        assertEquals(List.of("replica-a", "replica-b"), List.of(read(replicas), read(replicas)).stream().sorted().toList());
+    }
+
+    @Test
+    void shouldFallBackToPrimaryWithoutHealthyReplicas() throws SQLException {
+        JdbcDataSource down = new JdbcDataSource();
+        down.setURL("jdbc:h2:mem:missing-" + UUID.randomUUID() + ";IFEXISTS=TRUE");
+        ReadReplicaDataSource replicas = new ReadReplicaDataSource(primary, List.of(down), meterRegistry);
+
+        assertEquals("primary", read(replicas));
+        assertEquals(0, replicas.healthyReplicas());
+        assertEquals(1.0, reads("primary"));
+    }
+
+    @Test
+    void shouldRouteOnlyReadOnlyTransactionsToReplicas() throws SQLException {
+        ReadReplicaDataSource replicas = new ReadReplicaDataSource(primary, List.of(database("replica-a")), meterRegistry);
+        LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(primary);
+        routing.setReadOnlyDataSource(replicas);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(routing);
+        TransactionTemplate readWrite = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        TransactionTemplate readOnly = new TransactionTemplate(new DataSourceTransactionManager(routing));
+        readOnly.setReadOnly(true);
+
+        String query = "SELECT name FROM marker";
+        assertEquals("replica-a", readOnly.execute(status -> jdbcTemplate.queryForObject(query, String.class)));
+        assertEquals("primary", readWrite.execute(status -> jdbcTemplate.queryForObject(query, String.class)));
+        assertEquals("primary", jdbcTemplate.queryForObject(query, String.class));
+    }
+
+    private double reads(String target) {
+        return meterRegistry.get("catalogo.datasource.read.connections").tag("target", target).counter().count();
+    }
+
+    private static String read(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT name FROM marker")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+
+    // Cada banco guarda o proprio nome, para o teste saber de onde veio a leitura
+    private static DataSource database(String name) throws SQLException {
+        return createDatabase("jdbc:h2:mem:" + name + "-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", name);
+    }
+
+    private static DataSource createDatabase(String url, String name) throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE marker (name VARCHAR(32))");
+            statement.execute("INSERT INTO marker VALUES ('" + name + "')");
+        }
+        return dataSource;
+    }
+}
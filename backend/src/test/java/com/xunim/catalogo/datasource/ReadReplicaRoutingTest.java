@@ -0,0 +1,105 @@
+package com.xunim.catalogo.datasource;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.entity.IdempotencyRecord;
+import com.xunim.catalogo.repository.IdempotencyRecordRepository;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.service.OrderService;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Roteamento pelo JpaTransactionManager da aplicacao: o perfil replica sobe um segundo H2 sem
+// replicacao, entao cada leitura mostra de qual banco veio
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("replica")
+public class ReadReplicaRoutingTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Value("${spring.datasource.url}")
+    private String primaryUrl;
+
+    @Value("${catalogo.datasource.replicas.urls}")
+    private String replicaUrl;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    private JdbcTemplate primary;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        primary = jdbcTemplate(primaryUrl);
+        replica = jdbcTemplate(replicaUrl);
+    }
+
+    @Test
+    void shouldListProductsFromReplica() {
+        String name = "Somente na replica " + UUID.randomUUID();
+        replica.update("INSERT INTO products (name, price, stock, active, version) VALUES (?, 5.00, 3, TRUE, 0)", name);
+
+        List<ProductDTO> listed = productRepository.findActiveProductsByName(name,
+                PageRequest.of(0, 10, Sort.by("name"))).getContent();
+
+        assertEquals(List.of(name), listed.stream().map(ProductDTO::getName).toList());
+        assertEquals(0, count(primary, "SELECT COUNT(*) FROM products WHERE name = ?", name));
+    }
+
+    @Test
+    void shouldPlaceOrderOnPrimary() {
+        Long productId = primary.queryForObject(
+                "SELECT MIN(id) FROM products WHERE active = TRUE AND stock > 0", Long.class);
+
+        long orderId = orderService.createOrder(
+                new OrderRequestDTO(List.of(new OrderItemRequestDTO(productId, 1)))).getId();
+
+        assertEquals(1, count(primary, "SELECT COUNT(*) FROM orders WHERE id = ?", orderId));
+        assertEquals(0, count(replica, "SELECT COUNT(*) FROM orders WHERE id = ?", orderId));
+    }
+
+    @Test
+    void shouldReadIdempotencyKeyFromPrimary() {
+        String key = UUID.randomUUID().toString();
+        idempotencyRecordRepository.save(new IdempotencyRecord(key, "{}", "{}", LocalDateTime.now()));
+
+        // existsById segue readOnly e vai para a replica, que nunca recebeu a chave; o findById
+        // sobrescrito nao
+        assertFalse(idempotencyRecordRepository.existsById(key));
+        assertTrue(idempotencyRecordRepository.findById(key).isPresent());
+    }
+
+    private int count(JdbcTemplate jdbcTemplate, String sql, Object argument) {
+        return jdbcTemplate.queryForObject(sql, Integer.class, argument);
+    }
+
+    private JdbcTemplate jdbcTemplate(String url) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL(url);
+        dataSource.setUser(username);
+        return new JdbcTemplate(dataSource);
+    }
+}
@@ -0,0 +1,193 @@
+package com.xunim.catalogo.idempotency;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.entity.IdempotencyRecord;
+import com.xunim.catalogo.exception.IdempotencyKeyMismatchException;
+import com.xunim.catalogo.exception.InsuffcientStockException;
+import com.xunim.catalogo.exception.InvalidIdempotencyKeyException;
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import com.xunim.catalogo.repository.IdempotencyRecordRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class IdempotencyStoreTest {
+
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2026-01-10T12:00:00Z"), ZoneOffset.UTC);
+
+    @Mock
+    private IdempotencyRecordRepository recordRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final OrderRequestDTO request = new OrderRequestDTO(List.of(new OrderItemRequestDTO(1L, 2)));
+
+    @Test
+    void shouldReplayResponseForRepeatedKey() {
+        IdempotencyStore store = store(Duration.ofMinutes(10), false);
+        AtomicInteger placed = new AtomicInteger();
+
+        IdempotencyStore.Result first = store.execute("k1", request, () -> order(placed.incrementAndGet()));
+        IdempotencyStore.Result second = store.execute("k1", request, () -> order(placed.incrementAndGet()));
+
+        assertEquals(1, placed.get());
+        assertFalse(first.replayed());
+        assertTrue(second.replayed());
+        assertSame(first.response(), second.response());
+    }
+
+    @Test
+    void shouldMakeConcurrentDuplicateWaitForInFlightOrder() throws Exception {
+        IdempotencyStore store = store(Duration.ofMinutes(10), false);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+
+        CompletableFuture<IdempotencyStore.Result> first = CompletableFuture.supplyAsync(() ->
+                store.execute("k1", request, () -> {
+                    started.countDown();
+                    await(release);
+                    return order(placed.incrementAndGet());
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<IdempotencyStore.Result> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute("k1", request, () -> order(placed.incrementAndGet())));
+
+        Thread.sleep(50);
+        assertFalse(duplicate.isDone());
+        release.countDown();
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).response().getId());
+        assertEquals(1L, duplicate.get(5, TimeUnit.SECONDS).response().getId());
+        assertTrue(duplicate.get().replayed());
+        assertEquals(1, placed.get());
+    }
+
+    @Test
+    void shouldRejectSameKeyWithDifferentRequest() {
+        IdempotencyStore store = store(Duration.ofMinutes(10), false);
+        store.execute("k1", request, () -> order(1));
+
+        OrderRequestDTO other = new OrderRequestDTO(List.of(new OrderItemRequestDTO(1L, 3)));
+
+        assertThrows(IdempotencyKeyMismatchException.class, () -> store.execute("k1", other, () -> order(2)));
+        assertThrows(InvalidIdempotencyKeyException.class, () -> store.execute(" ", request, () -> order(2)));
+    }
+
+    @Test
+    void shouldReleaseKeyWhenOrderFails() {
+        IdempotencyStore store = store(Duration.ofMinutes(10), false);
+
+        assertThrows(InsuffcientStockException.class, () -> store.execute("k1", request, () -> {
+            throw new InsuffcientStockException(List.of());
+        }));
+        IdempotencyStore.Result retry = store.execute("k1", request, () -> order(7));
+
+        assertFalse(retry.replayed());
+        assertEquals(7L, retry.response().getId());
+    }
+
+    @Test
+    void shouldRunAgainAfterTtl() {
+        IdempotencyStore store = store(Duration.ZERO, false);
+        AtomicInteger placed = new AtomicInteger();
+
+        store.execute("k1", request, () -> order(placed.incrementAndGet()));
+        store.execute("k1", request, () -> order(placed.incrementAndGet()));
+
+        assertEquals(2, placed.get());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void shouldNotEvictInFlightKeyWhenStripeIsFull() throws Exception {
+        // Uma chave por faixa: "k1" e a outra chave caem na mesma faixa
+        IdempotencyStore store = new IdempotencyStore(recordRepository, objectMapper, Duration.ofMinutes(10),
+                64, 5000, false, CLOCK);
+        String other = sameStripeAs("k1");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger placed = new AtomicInteger();
+
+        CompletableFuture<IdempotencyStore.Result> first = CompletableFuture.supplyAsync(() ->
+                store.execute("k1", request, () -> {
+                    started.countDown();
+                    await(release);
+                    return order(placed.incrementAndGet());
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ServiceOverloadedException.class, () -> store.execute(other, request, () -> order(99)));
+        CompletableFuture<IdempotencyStore.Result> duplicate = CompletableFuture.supplyAsync(() ->
+                store.execute("k1", request, () -> order(placed.incrementAndGet())));
+        release.countDown();
+
+        assertEquals(1L, first.get(5, TimeUnit.SECONDS).response().getId());
+        assertTrue(duplicate.get(5, TimeUnit.SECONDS).replayed());
+        assertEquals(1, placed.get());
+
+        // Concluida, a chave antiga pode ser descartada para a nova
+        assertFalse(store.execute(other, request, () -> order(2)).replayed());
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void shouldReplayPersistedResponseMissingFromMemory() throws Exception {
+        IdempotencyStore store = store(Duration.ofMinutes(10), true);
+        when(recordRepository.findById("k1")).thenReturn(Optional.of(new IdempotencyRecord("k1",
+                objectMapper.writeValueAsString(request), objectMapper.writeValueAsString(order(3)),
+                LocalDateTime.now(CLOCK).minusMinutes(1))));
+
+        IdempotencyStore.Result result = store.execute("k1", request, () -> fail("pedido executado de novo"));
+
+        assertTrue(result.replayed());
+        assertEquals(3L, result.response().getId());
+        verify(recordRepository, never()).save(any());
+    }
+
+    private IdempotencyStore store(Duration ttl, boolean persistenceEnabled) {
+        return new IdempotencyStore(recordRepository, objectMapper, ttl, 1000, 5000, persistenceEnabled, CLOCK);
+    }
+
+    private static String sameStripeAs(String key) {
+        for (int i = 0; ; i++) {
+            String candidate = "k" + i;
+            if (!candidate.equals(key) && Math.floorMod(candidate.hashCode(), 64) == Math.floorMod(key.hashCode(), 64)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static OrderResponseDTO order(long id) {
+        return new OrderResponseDTO(id, LocalDateTime.now(CLOCK), new BigDecimal("10.00"), List.of());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.xunim.catalogo.journal;
+
+import com.xunim.catalogo.stock.StockLedger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.MockedStatic;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private JournaledOrderWriter orderWriter;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private SequenceBlockAllocator orderIds;
+
+    @Captor
+    private ArgumentCaptor<List<JournaledOrder>> applied;
+
+    private final List<OrderJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        // O stop aplica o que sobrou antes de remover os segmentos
+        lenient().when(orderWriter.insertMissing(anyList())).thenReturn(new JournaledOrderWriter.Result(0, Map.of()));
+        for (OrderJournal journal : journals) {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void shouldReplayAcknowledgedOrdersAfterCrash() throws IOException {
+        OrderJournal journal = journal(true, 1024 * 1024);
+        List<JournaledOrder> orders = List.of(order(1), order(2), order(3));
+        orders.forEach(journal::append);
+
+        verify(stockLedger, times(3)).hold(Map.of(10L, 2));
+        assertEquals(3, journal.unappliedCount());
+        assertEquals(1, segmentFiles().size());
+
+        // Queda antes do apply: uma nova instancia reaplica o que esta em disco e remove os segmentos
+        when(orderWriter.insertMissing(anyList())).thenReturn(new JournaledOrderWriter.Result(3, Map.of(10L, 6)));
+        journal(false, 1024 * 1024);
+
+        verify(orderWriter).insertMissing(orders);
+        assertTrue(segmentFiles().isEmpty());
+    }
+
+    @Test
+    void shouldIgnoreTornRecordAtEndOfSegment() throws IOException {
+        OrderJournal journal = journal(true, 1024 * 1024);
+        journal.append(order(1));
+        journal.append(order(2));
+
+        // Conteudo do segundo registro corrompido: o CRC nao confere e a leitura para nele
+        Path segment = segmentFiles().get(0);
+        int secondPayload = 2 * JournalSegment.RECORD_HEADER_BYTES + order(1).encode().length;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f}), secondPayload);
+        }
+
+        assertEquals(List.of(order(1)), JournalSegment.read(segment));
+    }
+
+    @Test
+    void shouldNotReplayBatchWhoseForceFailed() throws IOException {
+        List<JournalSegment> opened = new ArrayList<>();
+        OrderJournal journal;
+        try (MockedStatic<JournalSegment> segments = mockStatic(JournalSegment.class, CALLS_REAL_METHODS)) {
+            segments.when(() -> JournalSegment.create(any(), anyLong(), anyInt())).thenAnswer(invocation -> {
+                JournalSegment segment = spy((JournalSegment) invocation.callRealMethod());
+                opened.add(segment);
+                return segment;
+            });
+            journal = journal(true, 1024 * 1024);
+        }
+        journal.append(order(1));
+
+        // O force do lote do pedido 2 falha: o checkout recebe o erro e o registro nao pode voltar na subida
+        doThrow(new UncheckedIOException(new IOException("erro de E/S"))).doCallRealMethod()
+                .when(opened.get(0)).force();
+        assertThrows(UncheckedIOException.class, () -> journal.append(order(2)));
+        journal.append(order(3));
+
+        verify(stockLedger, times(2)).hold(Map.of(10L, 2));
+        assertEquals(2, journal.unappliedCount());
+
+        when(orderWriter.insertMissing(anyList())).thenReturn(new JournaledOrderWriter.Result(2, Map.of(10L, 4)));
+        journal(false, 1024 * 1024);
+
+        verify(orderWriter).insertMissing(List.of(order(1), order(3)));
+    }
+
+    @Test
+    void shouldRollSegmentsAndDeleteThemOnceApplied() throws Exception {
+        int recordBytes = JournalSegment.RECORD_HEADER_BYTES + order(1).encode().length;
+        OrderJournal journal = journal(true, recordBytes * 2);
+        for (int id = 1; id <= 5; id++) {
+            journal.append(order(id));
+        }
+        assertEquals(3, segmentFiles().size());
+
+        when(orderWriter.insertMissing(anyList())).thenReturn(new JournaledOrderWriter.Result(5, Map.of(10L, 10)));
+        journal.apply();
+
+        verify(orderWriter).insertMissing(applied.capture());
+        assertEquals(5, applied.getValue().size());
+        verify(stockLedger).applied(Map.of(10L, 10));
+        assertEquals(0, journal.unappliedCount());
+        // O segmento atual continua aberto para as proximas escritas
+        assertEquals(1, segmentFiles().size());
+
+        journal.stop();
+        assertTrue(segmentFiles().isEmpty());
+    }
+
+    @Test
+    void shouldKeepOrdersForNextCycleWhenApplyFails() throws IOException {
+        OrderJournal journal = journal(true, 1024 * 1024);
+        journal.append(order(1));
+        journal.append(order(2));
+
+        when(orderWriter.insertMissing(anyList()))
+                .thenThrow(new IllegalStateException("banco indisponivel"))
+                .thenReturn(new JournaledOrderWriter.Result(2, Map.of(10L, 4)));
+        journal.apply();
+        assertEquals(2, journal.unappliedCount());
+        verify(stockLedger, never()).applied(anyMap());
+
+        journal.apply();
+        verify(orderWriter, times(2)).insertMissing(List.of(order(1), order(2)));
+        assertEquals(0, journal.unappliedCount());
+        assertEquals(1, segmentFiles().size());
+    }
+
+    private OrderJournal journal(boolean enabled, int segmentBytes) {
+        OrderJournal journal = new OrderJournal(orderWriter, stockLedger, orderIds, enabled, true, directory,
+                segmentBytes, 16, 64, 1000);
+        journal.start();
+        journals.add(journal);
+        return journal;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(JournalSegment::isSegment).sorted().toList();
+        }
+    }
+
+    private static JournaledOrder order(long id) {
+        return new JournaledOrder(id, LocalDateTime.of(2025, 3, 14, 10, 30, 15, 123456000), new BigDecimal("37.80"),
+                List.of(new JournaledOrder.Item(10L, 2, new BigDecimal("18.90"), new BigDecimal("37.80"))));
+    }
+}
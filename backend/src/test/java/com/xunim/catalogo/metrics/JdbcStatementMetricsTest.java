@@ -0,0 +1,88 @@
+package com.xunim.catalogo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JdbcStatementMetricsTest {
+
+    private MeterRegistry meterRegistry;
+    private JdbcStatementMetrics metrics;
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("meterRegistry", meterRegistry);
+        metrics = new JdbcStatementMetrics(beanFactory.getBeanProvider(MeterRegistry.class), true);
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:metrics-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        dataSource = (DataSource) metrics.postProcessAfterInitialization(h2, "dataSource");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE items (id INT PRIMARY KEY)");
+        }
+    }
+
+    @Test
+    void shouldAttributeStatementsToRepositoryMethod() throws Throwable {
+        metrics.track("ProductRepository", "saveAll", () -> {
+            try (Connection connection = dataSource.getConnection();
+                 PreparedStatement insert = connection.prepareStatement("INSERT INTO items VALUES (?)")) {
+                for (int i = 0; i < 3; i++) {
+                    insert.setInt(1, i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.createStatement().executeQuery("SELECT COUNT(*) FROM items");
+            }
+            return null;
+        });
+
+        assertEquals(1, meterRegistry.get("catalogo.repository.statements")
+                .tags("repository", "ProductRepository", "method", "saveAll").summary().count());
+        assertEquals(2, meterRegistry.get("catalogo.repository.statements")
+                .tags("repository", "ProductRepository", "method", "saveAll").summary().totalAmount());
+        // Apenas o CREATE TABLE do setUp, fora de repositorio
+        assertEquals(1, meterRegistry.get("catalogo.jdbc.statements.unattributed").counter().count());
+    }
+
+    @Test
+    void shouldCountNestedCallOnlyInInnermostMethod() throws Throwable {
+        metrics.track("OrderRepository", "save", () -> {
+            metrics.track("ProductRepository", "findById", () -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    connection.createStatement().executeQuery("SELECT 1");
+                }
+                return null;
+            });
+            try (Connection connection = dataSource.getConnection()) {
+                connection.createStatement().executeUpdate("INSERT INTO items VALUES (10)");
+            }
+            return null;
+        });
+
+        assertEquals(1, meterRegistry.get("catalogo.repository.statements")
+                .tags("method", "findById").summary().totalAmount());
+        assertEquals(1, meterRegistry.get("catalogo.repository.statements")
+                .tags("method", "save").summary().totalAmount());
+    }
+
+    @Test
+    void shouldKeepDataSourceUnwrappable() throws Exception {
+        assertTrue(dataSource.isWrapperFor(JdbcDataSource.class));
+        assertNotNull(dataSource.unwrap(JdbcDataSource.class));
+    }
+}
@@ -0,0 +1,61 @@
+package com.xunim.catalogo.pricing;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderTotalTest {
+
+    @Test
+    void shouldMatchBigDecimalRoundingForRandomCarts() {
+        Random random = new Random(42);
+        for (int cart = 0; cart < 10_000; cart++) {
+            OrderTotal total = new OrderTotal();
+            BigDecimal expectedTotal = BigDecimal.ZERO;
+            int lines = 1 + random.nextInt(20);
+            for (int line = 0; line < lines; line++) {
+                // Escalas de 0 a 4, inclusive precos com mais casas do que os centavos
+                BigDecimal price = BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(5));
+                int quantity = 1 + random.nextInt(1000);
+
+                BigDecimal expectedLine = price.multiply(BigDecimal.valueOf(quantity)).setScale(2, RoundingMode.HALF_EVEN);
+                assertSame(expectedLine, total.addLine(price, OrderTotal.toCents(price), quantity), expectedLine);
+                expectedTotal = expectedTotal.add(expectedLine);
+            }
+            assertSame(expectedTotal.setScale(2, RoundingMode.HALF_EVEN), total.total(), expectedTotal);
+        }
+    }
+
+    @Test
+    void shouldConvertOnlyExactCents() {
+        assertEquals(1290, OrderTotal.toCents(new BigDecimal("12.9")));
+        assertEquals(1290, OrderTotal.toCents(new BigDecimal("12.900")));
+        assertEquals(100_000, OrderTotal.toCents(new BigDecimal("1E+3")));
+        assertEquals(OrderTotal.NOT_EXACT, OrderTotal.toCents(new BigDecimal("12.905")));
+        assertEquals(OrderTotal.NOT_EXACT, OrderTotal.toCents(new BigDecimal("1E+30")));
+        assertEquals(OrderTotal.NOT_EXACT, OrderTotal.toCents(null));
+    }
+
+    @Test
+    void shouldFallBackToBigDecimalWhenCentsOverflow() {
+        BigDecimal price = BigDecimal.valueOf(Long.MAX_VALUE / 2, 2);
+        OrderTotal total = new OrderTotal();
+
+        total.addLine(price, OrderTotal.toCents(price), 1);
+        total.addLine(price, OrderTotal.toCents(price), 1);
+        BigDecimal line = total.addLine(price, OrderTotal.toCents(price), 3);
+
+        assertSame(price.multiply(BigDecimal.valueOf(3)), line, line);
+        assertSame(price.multiply(BigDecimal.valueOf(5)), total.total(), total.total());
+    }
+
+    // Mesmo valor e mesma escala: o JSON do pedido sai igual byte a byte
+    private static void assertSame(BigDecimal expected, BigDecimal actual, Object context) {
+        assertEquals(expected.toPlainString(), actual.toPlainString(), String.valueOf(context));
+        assertEquals(expected.scale(), actual.scale(), String.valueOf(context));
+    }
+}
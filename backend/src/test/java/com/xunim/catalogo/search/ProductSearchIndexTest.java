@@ -0,0 +1,137 @@
+package com.xunim.catalogo.search;
+
+import com.xunim.catalogo.dto.ProductCursor;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSearchIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findAllActiveProducts()).thenReturn(Arrays.asList(
+                new ProductDTO(1L, "Café Torrado 500g", new BigDecimal("18.90"), 5, true),
+                new ProductDTO(2L, "Caneca Inox 300ml", new BigDecimal("29.00"), 8, true),
+                new ProductDTO(3L, "Café Moído 250g", new BigDecimal("9.75"), 14, true),
+                new ProductDTO(4L, "Açúcar Mascavo 1Kg", new BigDecimal("16.00"), 0, true)
+        ));
+        index = new ProductSearchIndex(productRepository, true);
+        index.rebuild();
+    }
+
+    @Test
+    void shouldReturnAllProductsOrderedByName() {
+        ProductSearchIndex.SearchResult result = index.search("", 0, 10);
+
+        assertEquals(4, result.totalElements());
+        assertEquals(List.of(4L, 3L, 1L, 2L), ids(result));
+    }
+
+    @Test
+    void shouldMatchIgnoringCaseAndAccents() {
+        ProductSearchIndex.SearchResult result = index.search("CAFE", 0, 10);
+
+        assertEquals(2, result.totalElements());
+        assertEquals(List.of(3L, 1L), ids(result));
+    }
+
+    @Test
+    void shouldMatchSubstringLongerThanTrigram() {
+        ProductSearchIndex.SearchResult result = index.search("torrado 5", 0, 10);
+
+        assertEquals(1, result.totalElements());
+        assertEquals(List.of(1L), ids(result));
+    }
+
+    @Test
+    void shouldPageWithExactTotal() {
+        ProductSearchIndex.SearchResult result = index.search("caf", 1, 1);
+
+        assertEquals(2, result.totalElements());
+        assertEquals(List.of(1L), ids(result));
+    }
+
+    @Test
+    void shouldApplyIncrementalChanges() {
+        index.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(5L, "Cafeteira Italiana", new BigDecimal("120.00"), 3, true), false));
+        index.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(3L, "Café Moído 250g", new BigDecimal("9.75"), 14, false), false));
+        index.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(1L, "Café Torrado 500g", new BigDecimal("18.90"), 2, true), false));
+
+        ProductSearchIndex.SearchResult result = index.search("cafe", 0, 10);
+
+        assertEquals(List.of(5L, 1L), ids(result));
+        assertEquals(2, result.content().get(1).getStock());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void shouldMergeImportedChunk() {
+        index.onProductsImported(new ProductsImportedEvent(List.of(
+                new ProductDTO(6L, "Café Solúvel 200g", new BigDecimal("15.00"), 7, true),
+                new ProductDTO(2L, "Caneca Cerâmica 300ml", new BigDecimal("25.00"), 8, true),
+                new ProductDTO(5L, "Cafeteira Italiana", new BigDecimal("120.00"), 3, true),
+                new ProductDTO(4L, "Açúcar Mascavo 1Kg", new BigDecimal("16.00"), 0, false),
+                new ProductDTO(6L, "Café Solúvel 100g", new BigDecimal("9.00"), 7, true)
+        )));
+
+        assertEquals(List.of(5L, 3L, 6L, 1L), ids(index.search("cafe", 0, 10)));
+        assertEquals(List.of(2L), ids(index.search("ceramica", 0, 10)));
+        assertEquals(0, index.search("inox", 0, 10).totalElements());
+        assertEquals(0, index.search("acucar", 0, 10).totalElements());
+        assertEquals(List.of(5L, 3L, 6L, 1L, 2L), ids(index.search("", 0, 10)));
+    }
+
+    @Test
+    void shouldScrollFromCursor() {
+        ProductSearchIndex.ScrollResult first = index.scroll("", ProductCursor.START, 2);
+        ProductSearchIndex.ScrollResult second = index.scroll("",
+                ProductCursor.of(first.content().get(1)), 2);
+
+        assertEquals(List.of(4L, 3L), first.content().stream().map(ProductDTO::getId).toList());
+        assertTrue(first.hasNext());
+        assertEquals(List.of(1L, 2L), second.content().stream().map(ProductDTO::getId).toList());
+        assertFalse(second.hasNext());
+        assertEquals(4, second.totalElements());
+    }
+
+    @Test
+    void shouldScrollFilteredByLongTerm() {
+        ProductSearchIndex.ScrollResult result = index.scroll("cafe ", new ProductCursor("Café Moído 250g", 3L), 5);
+
+        assertEquals(List.of(1L), result.content().stream().map(ProductDTO::getId).toList());
+        assertFalse(result.hasNext());
+        assertEquals(2, result.totalElements());
+    }
+
+    @Test
+    void shouldReturnEmptyWhenTermIsUnknown() {
+        assertEquals(0, index.search("xyz", 0, 10).totalElements());
+        assertEquals(0, index.search("biscoito", 0, 10).totalElements());
+    }
+
+    private List<Long> ids(ProductSearchIndex.SearchResult result) {
+        return result.content().stream().map(ProductDTO::getId).toList();
+    }
+}
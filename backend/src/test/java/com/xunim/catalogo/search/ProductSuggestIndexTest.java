@@ -0,0 +1,145 @@
+package com.xunim.catalogo.search;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductSalesDTO;
+import com.xunim.catalogo.dto.ProductSuggestionDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.stats.SalesStatistics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductSuggestIndexTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private SalesStatistics salesStatistics;
+
+    private ProductSuggestIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(productRepository.findAllActiveProducts()).thenReturn(List.of(
+                product(1L, "Café Torrado 500g"),
+                product(2L, "Caneca Inox 300ml"),
+                product(3L, "Café Moído 250g"),
+                product(4L, "Açúcar Mascavo 1Kg"),
+                product(5L, "Cafeteira Italiana")
+        ));
+        lenient().when(salesStatistics.productSales(anyLong())).thenReturn(Optional.empty());
+        lenient().when(salesStatistics.productSales(1L)).thenReturn(Optional.of(sales(1L, 40)));
+        index = new ProductSuggestIndex(productRepository, salesStatistics, new SimpleMeterRegistry(), true, 3);
+        index.reload();
+    }
+
+    @Test
+    void shouldSuggestByPrefixIgnoringCaseAndAccentsMostSoldFirst() {
+        // Sem vendas o empate sai em ordem alfabetica do nome normalizado
+        assertEquals(List.of(1L, 3L, 5L), ids(index.suggest("CAFE", 10)));
+        assertEquals(List.of(1L, 3L), ids(index.suggest("café ", 10)));
+        assertEquals(List.of(4L), ids(index.suggest("acu", 10)));
+        assertEquals("Açúcar Mascavo 1Kg", index.suggest("acu", 10).get(0).getName());
+    }
+
+    @Test
+    void shouldHandlePrefixEndingInsideEdgeAndMisses() {
+        assertEquals(List.of(5L), ids(index.suggest("cafet", 10)));
+        assertEquals(List.of(2L), ids(index.suggest("caneca inox 3", 10)));
+        assertTrue(index.suggest("cafez", 10).isEmpty());
+        assertTrue(index.suggest("caneca inox 300ml extra", 10).isEmpty());
+        assertTrue(index.suggest("", 10).isEmpty());
+    }
+
+    @Test
+    void shouldLimitToRequestedAndTopK() {
+        assertEquals(List.of(1L, 3L), ids(index.suggest("ca", 2)));
+        assertEquals(3, index.suggest("c", 10).size());
+    }
+
+    @Test
+    void shouldApplyProductChangesOnRefresh() {
+        index.onProductChanged(new ProductChangedEvent(product(6L, "Café Solúvel 100g"), false));
+        index.onProductChanged(new ProductChangedEvent(inactive(1L, "Café Torrado 500g"), false));
+        index.onProductsImported(new ProductsImportedEvent(List.of(product(5L, "Chaleira Elétrica"))));
+
+        // Ate a remontagem as sugestoes continuam as anteriores
+        assertEquals(List.of(1L, 3L, 5L), ids(index.suggest("caf", 10)));
+        index.refresh();
+
+        assertEquals(List.of(3L, 6L), ids(index.suggest("caf", 10)));
+        assertEquals(List.of(5L), ids(index.suggest("chal", 10)));
+    }
+
+    @Test
+    void shouldNotRebuildForPriceOrStockChanges() {
+        index.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(2L, "Caneca Inox 300ml", new BigDecimal("31.00"), 3, true), false));
+        index.refresh();
+
+        // Sem remontagem as vendas nao sao consultadas de novo
+        verify(salesStatistics, times(1)).productSales(2L);
+    }
+
+    @Test
+    void shouldMatchBruteForceRanking() {
+        Random random = new Random(42);
+        String[] words = {"Café", "Cafe", "Caneca", "Chá", "Chaleira", "Arroz", "Açúcar", "Azeite"};
+        List<SuggestTrie.Candidate> candidates = new ArrayList<>();
+        for (long id = 1; id <= 2000; id++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                    + " " + random.nextInt(50);
+            candidates.add(new SuggestTrie.Candidate(id, name, random.nextInt(5)));
+        }
+        SuggestTrie trie = SuggestTrie.build(candidates, 7);
+
+        for (String prefix : List.of("c", "ca", "cafe", "cafe c", "cha", "chal", "a", "az", "acucar arroz 1",
+                "cafe cafe 4", "x", "caneca cha 49")) {
+            List<Long> expected = candidates.stream()
+                    .filter(candidate -> SearchNormalizer.normalize(candidate.name()).startsWith(prefix))
+                    .sorted(Comparator.comparingLong(SuggestTrie.Candidate::score).reversed()
+                            .thenComparing(candidate -> SearchNormalizer.normalize(candidate.name()))
+                            .thenComparingLong(SuggestTrie.Candidate::id))
+                    .limit(5)
+                    .map(SuggestTrie.Candidate::id)
+                    .toList();
+            assertEquals(expected, ids(trie.suggest(prefix, 5)), "prefixo " + prefix);
+        }
+        assertEquals(2000, trie.size());
+        assertTrue(trie.estimatedBytes() > 0);
+    }
+
+    private static List<Long> ids(List<ProductSuggestionDTO> suggestions) {
+        return suggestions.stream().map(ProductSuggestionDTO::getId).toList();
+    }
+
+    private static ProductDTO product(Long id, String name) {
+        return new ProductDTO(id, name, new BigDecimal("10.00"), 1, true);
+    }
+
+    private static ProductDTO inactive(Long id, String name) {
+        return new ProductDTO(id, name, new BigDecimal("10.00"), 1, false);
+    }
+
+    private static ProductSalesDTO sales(Long productId, long units) {
+        return new ProductSalesDTO(productId, null, units, BigDecimal.ZERO);
+    }
+}
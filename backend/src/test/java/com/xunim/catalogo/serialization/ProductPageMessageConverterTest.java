@@ -0,0 +1,100 @@
+package com.xunim.catalogo.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProductPageMessageConverterTest {
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper cborMapper;
+    private ProductFragmentCache fragmentCache;
+    private ProductPageMessageConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+        cborMapper = Jackson2ObjectMapperBuilder.cbor().build();
+        fragmentCache = new ProductFragmentCache(jsonMapper, cborMapper, 100);
+        converter = new ProductPageMessageConverter(fragmentCache);
+    }
+
+    @Test
+    void shouldWriteSameJsonAsJackson() throws IOException {
+        ProductPageDTO page = page(
+                new ProductDTO(1L, "Café \"Especial\" 500g", new BigDecimal("12.90"), 3, true),
+                new ProductDTO(2L, "Chá Verde", new BigDecimal("7.50"), 0, true),
+                new ProductDTO(3L, null, null, null, null));
+
+        // Segunda escrita vem dos fragmentos em cache
+        assertEquals(jsonMapper.writeValueAsString(page), write(ResponseFormat.JSON, page));
+        assertEquals(jsonMapper.writeValueAsString(page), write(ResponseFormat.JSON, page));
+        assertEquals(jsonMapper.writeValueAsString(page(/* vazia */)), write(ResponseFormat.JSON, page()));
+    }
+
+    @Test
+    void shouldWriteCborReadableByJackson() throws IOException {
+        ProductPageDTO page = page(
+                new ProductDTO(1L, "Café 500g", new BigDecimal("12.90"), 3, true),
+                new ProductDTO(2L, "Chá Verde", new BigDecimal("7.50"), 0, true));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        converter.write(ResponseFormat.CBOR, page, body);
+
+        assertEquals(page, cborMapper.readValue(body.toByteArray(), ProductPageDTO.class));
+    }
+
+    @Test
+    void shouldNotReuseFragmentOfAnotherVersion() throws IOException {
+        ProductDTO product = new ProductDTO(1L, "Café 500g", new BigDecimal("12.90"), 3, true);
+        write(ResponseFormat.JSON, page(product));
+
+        // Pagina lida com o estoque novo antes do evento do commit chegar
+        product.setStock(2);
+        assertTrue(write(ResponseFormat.JSON, page(product)).contains("\"stock\":2"));
+
+        // Leitor atrasado com o valor antigo tambem nao recebe o fragmento novo
+        ProductDTO stale = new ProductDTO(1L, "Café 500g", new BigDecimal("12.90"), 3, true);
+        assertTrue(write(ResponseFormat.JSON, page(stale)).contains("\"stock\":3"));
+
+        product.setPrice(new BigDecimal("12.9"));
+        assertTrue(write(ResponseFormat.JSON, page(product)).contains("\"price\":12.9,"));
+    }
+
+    @Test
+    void shouldDropFragmentsOnProductAndStockEvents() throws IOException {
+        ProductDTO first = new ProductDTO(1L, "Café 500g", new BigDecimal("12.90"), 3, true);
+        ProductDTO second = new ProductDTO(2L, "Chá Verde", new BigDecimal("7.50"), 5, true);
+        write(ResponseFormat.JSON, page(first, second));
+        write(ResponseFormat.CBOR, page(first, second));
+
+        fragmentCache.onProductChanged(new ProductChangedEvent(first, false));
+        fragmentCache.onStockChanged(new StockChangedEvent(Map.of(2L, 4)));
+
+        assertTrue(fragmentCache.stats().stream().allMatch(stats -> stats.getSize() == 0));
+    }
+
+    private String write(ResponseFormat format, ProductPageDTO page) throws IOException {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        converter.write(format, page, body);
+        return body.toString(StandardCharsets.UTF_8);
+    }
+
+    private static ProductPageDTO page(ProductDTO... products) {
+        return new ProductPageDTO(List.of(products), 0, 10, products.length, 1, true, true);
+    }
+}
@@ -0,0 +1,128 @@
+package com.xunim.catalogo.service;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.dto.StockErrorDTO;
+import com.xunim.catalogo.exception.InsuffcientStockException;
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OrderGroupCommitPipelineTest {
+
+    @Mock
+    private OrderService orderService;
+
+    private OrderGroupCommitPipeline pipeline;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        pipeline.stop();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentOrdersIntoOneBatch() throws Exception {
+        when(orderService.createOrders(anyList())).thenAnswer(invocation -> {
+            List<OrderRequestDTO> requests = invocation.getArgument(0);
+            List<OrderOutcome> outcomes = new ArrayList<>();
+            for (OrderRequestDTO request : requests) {
+                outcomes.add(OrderOutcome.success(response(request.getItems().get(0).getProductId())));
+            }
+            return outcomes;
+        });
+        pipeline = start(200);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<OrderResponseDTO>> results = new ArrayList<>();
+        for (long i = 1; i <= 8; i++) {
+            OrderRequestDTO request = request(i);
+            results.add(executor.submit(() -> pipeline.submit(request)));
+        }
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i + 1L, results.get(i).get().getId());
+        }
+        executor.shutdown();
+
+        verify(orderService, atMost(7)).createOrders(anyList());
+        verify(orderService, never()).createOrder(any());
+    }
+
+    @Test
+    void shouldReprocessIndividuallyWhenBatchFails() {
+        InsuffcientStockException conflict = new InsuffcientStockException(List.of(new StockErrorDTO(1L, 0)));
+        when(orderService.createOrders(anyList())).thenThrow(conflict);
+        when(orderService.createOrder(any())).thenThrow(conflict);
+        pipeline = start(0);
+
+        InsuffcientStockException exception = assertThrows(
+                InsuffcientStockException.class,
+                () -> pipeline.submit(request(1L))
+        );
+
+        assertSame(conflict, exception);
+        verify(orderService, times(1)).createOrder(any());
+    }
+
+    @Test
+    void shouldGiveUpWithOverloadWhenBatchDoesNotAnswerInTime() {
+        // Sem committer o pedido nunca sai da fila
+        pipeline = start(0, 0, 50);
+
+        assertThrows(ServiceOverloadedException.class, () -> pipeline.submit(request(1L)));
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void shouldFailOrdersStillQueuedOnStop() throws Exception {
+        pipeline = start(0, 0, 60_000);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<OrderResponseDTO> result = executor.submit(() -> pipeline.submit(request(1L)));
+        Thread.sleep(100);
+
+        pipeline.stop();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ServiceOverloadedException.class, exception.getCause());
+        assertThrows(ServiceOverloadedException.class, () -> pipeline.submit(request(2L)));
+        executor.shutdown();
+        verifyNoInteractions(orderService);
+    }
+
+    private OrderGroupCommitPipeline start(long maxWaitMs) {
+        return start(maxWaitMs, 1, 60_000);
+    }
+
+    private OrderGroupCommitPipeline start(long maxWaitMs, int committers, long submitTimeoutMs) {
+        OrderGroupCommitPipeline started = new OrderGroupCommitPipeline(orderService, true, 64, maxWaitMs, 16,
+                committers, submitTimeoutMs);
+        started.start();
+        return started;
+    }
+
+    private OrderRequestDTO request(Long productId) {
+        return new OrderRequestDTO(List.of(new OrderItemRequestDTO(productId, 1)));
+    }
+
+    private OrderResponseDTO response(Long id) {
+        return new OrderResponseDTO(id, LocalDateTime.now(), BigDecimal.ONE, List.of());
+    }
+}
@@ -0,0 +1,102 @@
+package com.xunim.catalogo.service;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.dto.OrderSliceDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.exception.OrderNotFoundException;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.support.JdbcRoundTripCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Historico de pedidos em numero fixo de consultas: pedidos e itens (com o produto) em duas
+ * idas ao banco, qualquer que seja o tamanho da pagina ou do carrinho.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Import(JdbcRoundTripCounter.class)
+public class OrderHistoryRoundTripTest {
+
+    private static final int ORDERS = 12;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcRoundTripCounter roundTripCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldLoadOrderPagesInFixedNumberOfQueries() {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Product product = new Product(0L, "Historico " + i, new BigDecimal("2.50"), 1_000_000, true, 0);
+            productIds.add(productRepository.save(product).getId());
+        }
+        // Carrinhos de 1 a 20 itens, o mais novo com mais itens
+        List<Long> orderIds = new ArrayList<>();
+        for (int n = 0; n < ORDERS; n++) {
+            List<OrderItemRequestDTO> items = new ArrayList<>();
+            for (int i = 0; i <= n * 19 / (ORDERS - 1); i++) {
+                items.add(new OrderItemRequestDTO(productIds.get(i), 2));
+            }
+            orderIds.add(0, orderService.createOrder(new OrderRequestDTO(items)).getId());
+        }
+
+        for (int size : new int[]{1, 5, ORDERS}) {
+            roundTripCounter.reset();
+            OrderSliceDTO slice = orderService.findOrders(null, size);
+            assertEquals(2, roundTripCounter.get(), "pagina de " + size);
+            assertEquals(orderIds.subList(0, size), slice.getContent().stream().map(OrderResponseDTO::getId).toList());
+        }
+
+        // Percorre as paginas pelo cursor, sempre duas consultas por pagina
+        List<Long> visited = new ArrayList<>();
+        String after = null;
+        do {
+            roundTripCounter.reset();
+            OrderSliceDTO slice = orderService.findOrders(after, 5);
+            assertEquals(2, roundTripCounter.get());
+            slice.getContent().forEach(order -> visited.add(order.getId()));
+            after = slice.getNextCursor();
+        } while (after != null && visited.size() < ORDERS);
+        assertEquals(orderIds, visited.subList(0, ORDERS));
+
+        roundTripCounter.reset();
+        OrderResponseDTO newest = orderService.findOrder(orderIds.get(0));
+        assertEquals(2, roundTripCounter.get());
+        assertEquals(20, newest.getItems().size());
+        assertEquals("Historico 0", newest.getItems().get(0).getProductName());
+        assertEquals(new BigDecimal("5.00"), newest.getItems().get(0).getLineTotal());
+        assertEquals(new BigDecimal("100.00"), newest.getTotal());
+    }
+
+    @Test
+    void shouldRejectUnknownOrder() {
+        assertThrows(OrderNotFoundException.class, () -> orderService.findOrder(-1L));
+    }
+
+    @Test
+    void shouldReadHistoryThroughCreatedAtIndex() {
+        String plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT id FROM orders WHERE created_at < CURRENT_TIMESTAMP ORDER BY created_at DESC, id DESC LIMIT 10",
+                String.class);
+        assertTrue(plan.contains("IDX_ORDERS_CREATED_AT"), plan);
+    }
+}
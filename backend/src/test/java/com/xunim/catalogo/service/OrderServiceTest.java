@@ -1,21 +1,36 @@
 package com.xunim.catalogo.service;
 
+import com.xunim.catalogo.cache.ProductCache;
 import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderQuoteDTO;
 import com.xunim.catalogo.dto.OrderRequestDTO;
 import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.dto.ProductDTO;
 import com.xunim.catalogo.entity.Product;
 import com.xunim.catalogo.exception.InsuffcientStockException;
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import com.xunim.catalogo.journal.JournaledOrder;
+import com.xunim.catalogo.journal.OrderJournal;
+import com.xunim.catalogo.repository.OrderItemRepository;
 import com.xunim.catalogo.repository.OrderRepository;
 import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.repository.ProductRepositoryCustom.StockDecrement;
+import com.xunim.catalogo.stock.StockLedger;
+import com.xunim.catalogo.stock.StockReservation;
+import com.xunim.catalogo.stock.StockShards;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -30,7 +45,24 @@ public class OrderServiceTest {
     @Mock
     private OrderRepository orderRepository;
 
-    @InjectMocks
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private StockLedger stockLedger;
+
+    @Mock
+    private StockShards stockShards;
+
+    @Mock
+    private OrderJournal orderJournal;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private EntityManager entityManager;
+
     private OrderService orderService;
 
     private Product product1;
@@ -38,6 +70,9 @@ public class OrderServiceTest {
 
     @BeforeEach
     void setUp() {
+        ProductCache productCache = new ProductCache(productRepository, 100, 100);
+        orderService = new OrderService(orderRepository, orderItemRepository, productRepository, productCache, stockLedger, stockShards,
+                orderJournal, eventPublisher, entityManager);
         product1 = new Product(1L, "Café Torrado 500g", new BigDecimal("18.90"), 5, true, 0);
         product2 = new Product(2L, "Garrafa Térmica 1L", new BigDecimal("79.90"), 2, true,0);
     }
@@ -51,8 +86,8 @@ public class OrderServiceTest {
 
         when(productRepository.findActiveProductByIds(anyList()))
                 .thenReturn(Arrays.asList(product1, product2));
-        when(productRepository.save(any(Product.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.decrementStockIfAvailable(Map.of(1L, 2, 2L, 1)))
+                .thenReturn(decremented(product1, product2));
         when(orderRepository.save(any()))
                 .thenAnswer(invocation -> {
                     var order = invocation.getArgument(0);
@@ -61,7 +96,8 @@ public class OrderServiceTest {
 
         assertDoesNotThrow(() -> orderService.createOrder(orderRequest));
 
-        verify(productRepository, times(2)).save(any(Product.class));
+        verify(productRepository, times(1)).decrementStockIfAvailable(Map.of(1L, 2, 2L, 1));
+        verify(productRepository, never()).save(any(Product.class));
     }
 
     @Test
@@ -72,6 +108,8 @@ public class OrderServiceTest {
 
         when(productRepository.findActiveProductByIds(anyList()))
                 .thenReturn(Arrays.asList(product2));
+        when(productRepository.decrementStockIfAvailable(Map.of(2L, 3)))
+                .thenReturn(new StockDecrement(Map.of(2L, 2), Map.of()));
 
         InsuffcientStockException exception = assertThrows(
                 InsuffcientStockException.class,
@@ -95,8 +133,8 @@ public class OrderServiceTest {
 
         when(productRepository.findActiveProductByIds(anyList()))
                 .thenReturn(Arrays.asList(testProduct));
-        when(productRepository.save(any(Product.class)))
-                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(productRepository.decrementStockIfAvailable(Map.of(3L, 3)))
+                .thenReturn(decremented(testProduct));
         when(orderRepository.save(any()))
                 .thenAnswer(invocation -> {
                     var order = invocation.getArgument(0);
@@ -120,6 +158,8 @@ public class OrderServiceTest {
 
         when(productRepository.findActiveProductByIds(anyList()))
                 .thenReturn(Arrays.asList(product1, product2));
+        when(productRepository.decrementStockIfAvailable(Map.of(1L, 2, 2L, 1)))
+                .thenReturn(new StockDecrement(Map.of(1L, 1, 2L, 0), Map.of()));
 
         InsuffcientStockException exception = assertThrows(
                 InsuffcientStockException.class,
@@ -132,6 +172,68 @@ public class OrderServiceTest {
         verify(orderRepository, never()).save(any());
     }
 
+    @Test
+    void shouldFailWhenStockIsTakenByConcurrentOrder() {
+
+        OrderItemRequestDTO item = new OrderItemRequestDTO(1L, 4);
+        OrderRequestDTO orderRequest = new OrderRequestDTO(Arrays.asList(item));
+
+        when(productRepository.findActiveProductByIds(anyList()))
+                .thenReturn(Arrays.asList(product1));
+        when(productRepository.decrementStockIfAvailable(Map.of(1L, 4)))
+                .thenReturn(new StockDecrement(Map.of(1L, 3), Map.of()));
+
+        InsuffcientStockException exception = assertThrows(
+                InsuffcientStockException.class,
+                () -> orderService.createOrder(orderRequest)
+        );
+
+        assertEquals(3, exception.getStockErrors().get(0).getAvailable());
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldIgnoreCachedStockAndPriceWhenDatabaseAccepts() {
+
+        // Snapshot em cache sem estoque e com o preco antigo; o banco tem saldo e o preco novo
+        product1.setStock(0);
+        Product current = new Product(1L, "Café Torrado 500g", new BigDecimal("19.90"), 4, true, 1);
+        OrderRequestDTO orderRequest = new OrderRequestDTO(Arrays.asList(new OrderItemRequestDTO(1L, 2)));
+
+        when(productRepository.findActiveProductByIds(anyList())).thenReturn(Arrays.asList(product1));
+        when(productRepository.decrementStockIfAvailable(Map.of(1L, 2))).thenReturn(decremented(current));
+        when(orderRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        OrderResponseDTO result = orderService.createOrder(orderRequest);
+
+        assertEquals(new BigDecimal("19.90"), result.getItems().get(0).getUnitPrice());
+        assertEquals(new BigDecimal("39.80"), result.getTotal());
+    }
+
+    @Test
+    void shouldValidateBatchedOrdersAgainstRemainingStock() {
+
+        OrderRequestDTO first = new OrderRequestDTO(Arrays.asList(new OrderItemRequestDTO(2L, 2)));
+        OrderRequestDTO second = new OrderRequestDTO(Arrays.asList(new OrderItemRequestDTO(2L, 1)));
+        OrderRequestDTO third = new OrderRequestDTO(Arrays.asList(new OrderItemRequestDTO(1L, 5)));
+
+        when(productRepository.lockActiveProducts(List.of(2L, 1L)))
+                .thenReturn(Arrays.asList(toDTO(product1), toDTO(product2)));
+        when(productRepository.decrementStockIfAvailable(Map.of(2L, 2, 1L, 5)))
+                .thenReturn(decremented(product1, product2));
+
+        List<OrderOutcome> outcomes = orderService.createOrders(Arrays.asList(first, second, third));
+
+        assertTrue(outcomes.get(0).isSuccess());
+        assertFalse(outcomes.get(1).isSuccess());
+        assertEquals(0, outcomes.get(1).error().getStockErrors().get(0).getAvailable());
+        assertTrue(outcomes.get(2).isSuccess());
+
+        verify(productRepository, never()).findActiveProductByIds(anyList());
+        verify(productRepository, times(1)).decrementStockIfAvailable(Map.of(2L, 2, 1L, 5));
+        verify(orderRepository, times(1)).saveAll(anyList());
+    }
+
     @Test
     void shouldRejectNonExistentProduct() {
 
@@ -148,4 +250,84 @@ public class OrderServiceTest {
 
         assertEquals("Produto não encontrado.", exception.getStockErrors().get(0).getProductName());
     }
+
+    @Test
+    void shouldQuoteCartWithoutReservingStock() {
+
+        OrderRequestDTO orderRequest = new OrderRequestDTO(Arrays.asList(
+                new OrderItemRequestDTO(1L, 3),
+                new OrderItemRequestDTO(2L, 2),
+                new OrderItemRequestDTO(2L, 1),
+                new OrderItemRequestDTO(99L, 1)));
+
+        when(productRepository.findActiveProductByIds(anyList()))
+                .thenReturn(Arrays.asList(product1, product2));
+
+        OrderQuoteDTO quote = orderService.quote(orderRequest);
+
+        assertEquals(3, quote.getItems().size());
+        assertEquals(new BigDecimal("56.70"), quote.getItems().get(0).getLineTotal());
+        assertEquals(new BigDecimal("296.40"), quote.getTotal());
+        assertEquals(2, quote.getStockErrors().size());
+        assertEquals(2, quote.getStockErrors().get(0).getAvailable());
+        assertEquals("Produto não encontrado.", quote.getStockErrors().get(1).getProductName());
+
+        verify(productRepository, never()).decrementStockIfAvailable(anyMap());
+        verifyNoInteractions(orderRepository, eventPublisher, stockShards);
+    }
+
+    @Test
+    void shouldAcknowledgeJournaledOrderWithoutDatabaseWrites() {
+
+        OrderRequestDTO orderRequest = new OrderRequestDTO(Arrays.asList(
+                new OrderItemRequestDTO(1L, 2),
+                new OrderItemRequestDTO(2L, 1)));
+        Map<Long, Integer> quantities = Map.of(1L, 2, 2L, 1);
+
+        when(productRepository.findActiveProductByIds(anyList()))
+                .thenReturn(Arrays.asList(product1, product2));
+        when(stockLedger.reserve(quantities)).thenReturn(new StockReservation(quantities, Map.of()));
+        when(orderJournal.nextOrderId()).thenReturn(51L);
+
+        OrderResponseDTO response = orderService.journalOrder(orderRequest);
+
+        assertEquals(51L, response.getId());
+        assertEquals(new BigDecimal("117.70"), response.getTotal());
+        verify(orderJournal).append(argThat((JournaledOrder order) -> order.orderId() == 51L
+                && order.total().equals(new BigDecimal("117.70"))
+                && order.quantities().equals(quantities)));
+        verify(stockLedger, never()).release(any());
+        verifyNoInteractions(orderRepository);
+        verify(productRepository, never()).decrementStockIfAvailable(anyMap());
+    }
+
+    @Test
+    void shouldReleaseReservationWhenJournalRejectsOrder() {
+
+        OrderRequestDTO orderRequest = new OrderRequestDTO(Arrays.asList(new OrderItemRequestDTO(1L, 2)));
+        StockReservation reservation = new StockReservation(Map.of(1L, 2), Map.of());
+
+        when(productRepository.findActiveProductByIds(anyList())).thenReturn(Arrays.asList(product1));
+        when(stockLedger.reserve(Map.of(1L, 2))).thenReturn(reservation);
+        doThrow(new ServiceOverloadedException("Diario de pedidos cheio, tente novamente", 1))
+                .when(orderJournal).append(any());
+
+        assertThrows(ServiceOverloadedException.class, () -> orderService.journalOrder(orderRequest));
+
+        verify(stockLedger).release(reservation);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private static StockDecrement decremented(Product... products) {
+        Map<Long, ProductDTO> rows = new HashMap<>();
+        for (Product product : products) {
+            rows.put(product.getId(), toDTO(product));
+        }
+        return new StockDecrement(Map.of(), rows);
+    }
+
+    private static ProductDTO toDTO(Product product) {
+        return new ProductDTO(product.getId(), product.getName(), product.getPrice(), product.getStock(),
+                product.getActive());
+    }
 }
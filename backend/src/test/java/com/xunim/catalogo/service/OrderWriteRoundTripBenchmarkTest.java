@@ -0,0 +1,67 @@
+package com.xunim.catalogo.service;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.support.JdbcRoundTripCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Idas ao banco por pedido para carrinhos de 1, 10 e 100 itens. O numero nao deve
+ * crescer com o tamanho do carrinho: sao 4 em qualquer caso (antes do batching eram 2N+2:
+ * 4, 22 e 202). Buscas de sequence nao entram na conta.
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@Import(JdbcRoundTripCounter.class)
+public class OrderWriteRoundTripBenchmarkTest {
+
+    private static final int[] CART_SIZES = {1, 10, 100};
+    private static final int ORDERS_PER_SIZE = 20;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcRoundTripCounter roundTripCounter;
+
+    @Test
+    void roundTripsPerOrderShouldNotGrowWithCartSize() {
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Product product = new Product(0L, "Benchmark " + i, new BigDecimal("1.99"), 1_000_000, true, 0);
+            productIds.add(productRepository.save(product).getId());
+        }
+
+        Map<Integer, Long> roundTrips = new LinkedHashMap<>();
+        for (int cartSize : CART_SIZES) {
+            List<OrderItemRequestDTO> items = new ArrayList<>();
+            for (int i = 0; i < cartSize; i++) {
+                items.add(new OrderItemRequestDTO(productIds.get(i), 1));
+            }
+            orderService.createOrder(new OrderRequestDTO(items));
+
+            roundTripCounter.reset();
+            for (int i = 0; i < ORDERS_PER_SIZE; i++) {
+                orderService.createOrder(new OrderRequestDTO(items));
+            }
+            roundTrips.put(cartSize, roundTripCounter.get() / ORDERS_PER_SIZE);
+        }
+
+        assertEquals(Map.of(1, 4L, 10, 4L, 100, 4L), roundTrips);
+    }
+}
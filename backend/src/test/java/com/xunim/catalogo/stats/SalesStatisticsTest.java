@@ -0,0 +1,107 @@
+package com.xunim.catalogo.stats;
+
+import com.xunim.catalogo.dto.OrderItemResponseDTO;
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductSalesDTO;
+import com.xunim.catalogo.event.OrderPlacedEvent;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.ProductsImportedEvent;
+import com.xunim.catalogo.repository.OrderItemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class SalesStatisticsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 18, 12, 30);
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    private SalesStatistics salesStatistics;
+
+    @BeforeEach
+    void setUp() {
+        when(orderItemRepository.sumSalesByProduct()).thenReturn(List.of(
+                new Object[]{1L, "Café Torrado 500g", 4L, new BigDecimal("75.60"), true},
+                new Object[]{2L, "Garrafa Térmica 1L", 1L, new BigDecimal("79.90"), true},
+                new Object[]{3L, "Chaleira Elétrica", 9L, new BigDecimal("899.10"), false}
+        ));
+        when(orderItemRepository.findSalesSince(any())).thenReturn(List.<Object[]>of(
+                new Object[]{1L, NOW.minusMinutes(90), 4, new BigDecimal("75.60")},
+                new Object[]{2L, NOW.minusMinutes(5), 1, new BigDecimal("79.90")}
+        ));
+        Clock clock = Clock.fixed(Instant.from(NOW.atOffset(ZoneOffset.UTC)), ZoneOffset.UTC);
+        salesStatistics = new SalesStatistics(orderItemRepository, 1440, clock);
+        salesStatistics.rebuild();
+    }
+
+    @Test
+    void shouldRankTopSellersByUnits() {
+        salesStatistics.onOrderPlaced(order(NOW, new OrderItemResponseDTO(
+                2L, "Garrafa Térmica 1L", 5, new BigDecimal("79.90"), new BigDecimal("399.50"))));
+
+        List<ProductSalesDTO> top = salesStatistics.topSellers(1);
+
+        assertEquals(1, top.size());
+        assertEquals(2L, top.get(0).getProductId());
+        assertEquals(6, top.get(0).getUnitsSold());
+        assertEquals(new BigDecimal("479.40"), top.get(0).getRevenue());
+    }
+
+    @Test
+    void shouldLeaveInactiveProductsOutOfTopSellers() {
+        // O produto 3 vendeu mais, mas ja estava inativo na subida
+        assertEquals(List.of(1L, 2L), topIds(3));
+
+        salesStatistics.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(1L, "Café Torrado 500g", new BigDecimal("18.90"), 5, false), false));
+        salesStatistics.onProductsImported(new ProductsImportedEvent(List.of(
+                new ProductDTO(3L, "Chaleira Elétrica", new BigDecimal("99.90"), 2, true))));
+        assertEquals(List.of(3L, 2L), topIds(3));
+
+        salesStatistics.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(2L, "Garrafa Térmica 1L", new BigDecimal("79.90"), 1, true), true));
+        assertEquals(List.of(3L), topIds(3));
+    }
+
+    @Test
+    void shouldSumSalesInsideTimeWindow() {
+        salesStatistics.onOrderPlaced(order(NOW, new OrderItemResponseDTO(
+                1L, "Café Torrado 500g", 2, new BigDecimal("18.90"), new BigDecimal("37.80"))));
+
+        assertEquals(3, salesStatistics.salesInWindow(60, null).getUnitsSold());
+        assertEquals(new BigDecimal("117.70"), salesStatistics.salesInWindow(60, null).getRevenue());
+        assertEquals(2, salesStatistics.salesInWindow(60, 1L).getUnitsSold());
+        assertEquals(6, salesStatistics.salesInWindow(120, 1L).getUnitsSold());
+    }
+
+    @Test
+    void shouldReportRevenuePerProduct() {
+        assertEquals(new BigDecimal("75.60"), salesStatistics.productSales(1L).orElseThrow().getRevenue());
+        assertTrue(salesStatistics.productSales(99L).isEmpty());
+    }
+
+    private List<Long> topIds(int limit) {
+        return salesStatistics.topSellers(limit).stream().map(ProductSalesDTO::getProductId).toList();
+    }
+
+    private OrderPlacedEvent order(LocalDateTime createdAt, OrderItemResponseDTO item) {
+        return new OrderPlacedEvent(new OrderResponseDTO(1L, createdAt, item.getLineTotal(), List.of(item)));
+    }
+}
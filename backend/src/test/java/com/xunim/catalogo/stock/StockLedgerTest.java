@@ -0,0 +1,116 @@
+package com.xunim.catalogo.stock;
+
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.repository.OrderItemRepository;
+import com.xunim.catalogo.repository.OrderRepository;
+import com.xunim.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class StockLedgerTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderItemRepository orderItemRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private StockLedger stockLedger;
+
+    @BeforeEach
+    void setUp() {
+        when(orderItemRepository.sumUnsyncedQuantitiesByProduct())
+                .thenReturn(List.<Object[]>of(new Object[]{1L, 3L}));
+        when(productRepository.findAll()).thenReturn(Arrays.asList(
+                new Product(1L, "Café Torrado 500g", new BigDecimal("18.90"), 100, true, 0),
+                new Product(2L, "Garrafa Térmica 1L", new BigDecimal("79.90"), 2, true, 0)
+        ));
+        stockLedger = new StockLedger(productRepository, orderRepository, orderItemRepository,
+                new TransactionTemplate(transactionManager), eventPublisher, true, 1000);
+        stockLedger.recover();
+    }
+
+    @Test
+    void shouldApplyUnsyncedOrdersOnRecovery() {
+        verify(productRepository).decrementStock(Map.of(1L, 3));
+        verify(orderRepository).markAllStockSynced();
+    }
+
+    @Test
+    void shouldNeverOversellUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            results.add(executor.submit(() -> stockLedger.reserve(Map.of(1L, 1)).isAccepted()));
+        }
+        int accepted = 0;
+        for (Future<Boolean> result : results) {
+            accepted += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertEquals(100, accepted);
+        assertEquals(0, stockLedger.available(1L));
+    }
+
+    @Test
+    void shouldReserveAllOrNothing() {
+        StockReservation reservation = stockLedger.reserve(new LinkedHashMap<>(Map.of(1L, 5, 2L, 3)));
+
+        assertFalse(reservation.isAccepted());
+        assertEquals(Map.of(2L, 2), reservation.shortages());
+        assertEquals(100, stockLedger.available(1L));
+        assertEquals(2, stockLedger.available(2L));
+    }
+
+    @Test
+    void shouldFlushConfirmedReservationsInOneBatch() {
+        StockReservation first = stockLedger.reserve(Map.of(1L, 4));
+        StockReservation second = stockLedger.reserve(Map.of(1L, 1, 2L, 1));
+        stockLedger.confirm(10L, first);
+        stockLedger.confirm(11L, second);
+
+        stockLedger.flush();
+
+        verify(productRepository).decrementStock(Map.of(1L, 5, 2L, 1));
+        verify(orderRepository).markStockSynced(List.of(10L, 11L));
+        verify(eventPublisher).publishEvent(new StockChangedEvent(Map.of(1L, 95, 2L, 1)));
+    }
+
+    @Test
+    void shouldReturnStockWhenReleased() {
+        StockReservation reservation = stockLedger.reserve(Map.of(2L, 2));
+        stockLedger.release(reservation);
+
+        assertEquals(2, stockLedger.available(2L));
+        stockLedger.flush();
+        verify(orderRepository, never()).markStockSynced(anyList());
+    }
+}
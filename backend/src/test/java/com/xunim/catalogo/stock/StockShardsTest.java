@@ -0,0 +1,205 @@
+package com.xunim.catalogo.stock;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.exception.InsuffcientStockException;
+import com.xunim.catalogo.exception.ServiceOverloadedException;
+import com.xunim.catalogo.repository.ProductRepository;
+import com.xunim.catalogo.service.OrderService;
+import com.xunim.catalogo.service.ProductService;
+import com.xunim.catalogo.service.ReactiveProductService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "catalogo.stock.sharding.shards=4"})
+public class StockShardsTest {
+
+    @Autowired
+    private StockShards stockShards;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ReactiveProductService reactiveProductService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        stockShards.configure(List.of());
+    }
+
+    @Test
+    void shouldNotOversellHotProductUnderConcurrentCheckouts() throws Exception {
+        long productId = createShardedProduct(100);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 160; i++) {
+            results.add(executor.submit(() -> {
+                try {
+                    orderService.createOrder(order(productId, 1));
+                    return true;
+                } catch (InsuffcientStockException ex) {
+                    return false;
+                }
+            }));
+        }
+        int placed = 0;
+        for (Future<Boolean> result : results) {
+            placed += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, placed);
+        assertEquals(0, shardTotal(productId));
+
+        stockShards.sync();
+        assertEquals(0, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    @Test
+    void shouldRebalanceWhenDrawnShardCannotCoverItem() {
+        // 10 unidades em 4 fracoes (3, 3, 2, 2): nenhuma cobre 7 sozinha
+        long productId = createShardedProduct(10);
+
+        orderService.createOrder(order(productId, 7));
+        assertEquals(3, shardTotal(productId));
+        assertEquals(List.of(1, 1, 1, 0), jdbcTemplate.queryForList(
+                "SELECT stock FROM product_stock_shards WHERE product_id = ? ORDER BY shard", Integer.class, productId));
+
+        InsuffcientStockException ex = assertThrows(InsuffcientStockException.class,
+                () -> orderService.createOrder(order(productId, 4)));
+        assertEquals(3, ex.getStockErrors().get(0).getAvailable());
+        assertEquals(3, shardTotal(productId));
+    }
+
+    @Test
+    void shouldDebitFreeShardWithoutWaitingForLockedOnes() throws Exception {
+        // 8 unidades em 4 fracoes (2 cada); as tres primeiras ficam travadas por outro checkout
+        long productId = createShardedProduct(8);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdShards(productId, 3, release);
+
+        for (int i = 0; i < 2; i++) {
+            orderService.createOrder(order(productId, 1));
+        }
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2, 2, 2, 0), jdbcTemplate.queryForList(
+                "SELECT stock FROM product_stock_shards WHERE product_id = ? ORDER BY shard", Integer.class, productId));
+    }
+
+    @Test
+    void shouldRejectWithOverloadWhileAllShardsStayLocked() throws Exception {
+        long productId = createShardedProduct(8);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> holder = holdShards(productId, 4, release);
+
+        // Nem a fracao nem a redistribuicao esperam: o pedido desiste em lock-wait-ms
+        assertThrows(ServiceOverloadedException.class, () -> orderService.createOrder(order(productId, 1)));
+        release.countDown();
+        holder.get(5, TimeUnit.SECONDS);
+
+        orderService.createOrder(order(productId, 3));
+        assertEquals(5, shardTotal(productId));
+    }
+
+    @Test
+    void shouldReturnStockToProductWhenNoLongerSharded() {
+        long productId = createShardedProduct(10);
+        orderService.createOrder(order(productId, 4));
+
+        stockShards.configure(List.of());
+
+        assertFalse(stockShards.isSharded(productId));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM product_stock_shards WHERE product_id = ?", Integer.class, productId));
+        assertEquals(6, productRepository.findById(productId).orElseThrow().getStock());
+    }
+
+    @Test
+    void shouldListShardTotalInsteadOfCachedStock() {
+        long productId = createShardedProduct(10);
+        orderService.createOrder(order(productId, 4));
+        productService.findProducts("", 0, 1000);
+
+        // Ajuste direto nas fracoes, sem evento: cache, indice e products.stock nao ficam sabendo
+        jdbcTemplate.update("UPDATE product_stock_shards SET stock = stock + 5 WHERE product_id = ? AND shard = 0",
+                productId);
+
+        assertEquals(11, listedStock(productService.findProducts("", 0, 1000).getContent(), productId));
+        assertEquals(11, listedStock(productService.scrollProducts("", null, 1000).getContent(), productId));
+        assertEquals(11, listedStock(reactiveProductService.findProducts("", 0, 1000).block().getContent(), productId));
+        assertEquals(11, reactiveProductService.findProductsByIds(List.of(productId)).blockFirst().getStock());
+    }
+
+    private long createShardedProduct(int stock) {
+        Product product = new Product(0L, "Produto em promocao", new BigDecimal("9.90"), stock, true, 0);
+        long productId = productRepository.save(product).getId();
+        stockShards.configure(List.of(productId));
+        assertTrue(stockShards.isSharded(productId));
+        return productId;
+    }
+
+    // Trava as fracoes 0 .. count - 1 em outra transacao ate release
+    private Future<?> holdShards(long productId, int count, CountDownLatch release) throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        Future<?> holder = Executors.newSingleThreadExecutor().submit(() ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.queryForList("SELECT stock FROM product_stock_shards WHERE product_id = ? AND shard < ? "
+                            + "FOR UPDATE", Integer.class, productId, count);
+                    locked.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        return holder;
+    }
+
+    private static int listedStock(List<ProductDTO> products, long productId) {
+        return products.stream().filter(product -> product.getId() == productId).findFirst().orElseThrow().getStock();
+    }
+
+    private int shardTotal(long productId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT SUM(stock) FROM product_stock_shards WHERE product_id = ?", Integer.class, productId);
+    }
+
+    private static OrderRequestDTO order(long productId, int quantity) {
+        return new OrderRequestDTO(List.of(new OrderItemRequestDTO(productId, quantity)));
+    }
+}
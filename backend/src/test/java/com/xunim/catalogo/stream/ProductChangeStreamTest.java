@@ -0,0 +1,198 @@
+package com.xunim.catalogo.stream;
+
+import com.xunim.catalogo.cache.ProductCache;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductDeltaDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.event.ProductChangedEvent;
+import com.xunim.catalogo.event.StockChangedEvent;
+import com.xunim.catalogo.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ProductChangeStreamTest {
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductChangeStream stream;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        stream = new ProductChangeStream(new ProductCache(productRepository, 100, 100), meterRegistry, 500, 0, 2, 60_000);
+        when(productRepository.findActiveProductByIds(anyList())).thenReturn(List.of(
+                new Product(1L, "Café 500g", new BigDecimal("12.90"), 5, true, 0),
+                new Product(2L, "Chá Verde", new BigDecimal("7.50"), 8, true, 0)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.stop();
+    }
+
+    @Test
+    void shouldSendCurrentStateOnSubscribe() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.register(Set.of(1L, 3L), emitter);
+
+        List<ProductDeltaDTO> snapshot = emitter.next();
+        assertEquals(2, snapshot.size());
+        assertTrue(snapshot.contains(new ProductDeltaDTO(1L, 5, new BigDecimal("12.90"), true)));
+        // Inexistente ou inativo
+        assertTrue(snapshot.contains(new ProductDeltaDTO(3L, null, null, false)));
+    }
+
+    @Test
+    void shouldCoalesceChangesWhileClientIsSlow() throws Exception {
+        CountDownLatch slowClient = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(slowClient);
+        stream.register(Set.of(1L), emitter);
+        assertEquals(List.of(new ProductDeltaDTO(1L, 5, new BigDecimal("12.90"), true)), emitter.next());
+
+        // O envio do snapshot esta preso no cliente; quem publica segue sem esperar
+        for (int stock = 4; stock >= 0; stock--) {
+            stream.onStockChanged(new StockChangedEvent(Map.of(1L, stock)));
+        }
+        stream.onProductChanged(new ProductChangedEvent(
+                new ProductDTO(1L, "Café 500g", new BigDecimal("11.90"), 0, true), false));
+        slowClient.countDown();
+
+        assertEquals(List.of(new ProductDeltaDTO(1L, 0, new BigDecimal("11.90"), true)), emitter.next());
+        assertNull(emitter.sent.poll(100, TimeUnit.MILLISECONDS));
+        assertEquals(5, meterRegistry.counter("catalogo.stream.coalesced").count());
+    }
+
+    @Test
+    void shouldOnlySendSubscribedProducts() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        RecordingEmitter second = new RecordingEmitter();
+        stream.register(Set.of(1L), first);
+        stream.register(Set.of(2L), second);
+        first.next();
+        second.next();
+
+        stream.onStockChanged(new StockChangedEvent(Map.of(2L, 7)));
+
+        assertEquals(List.of(new ProductDeltaDTO(2L, 7, null, null)), second.next());
+        assertNull(first.sent.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void shouldDropSubscriberWhenClientDisconnects() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        stream.register(Set.of(1L), emitter);
+        emitter.next();
+        assertEquals(1, meterRegistry.get("catalogo.stream.subscribers").gauge().value());
+
+        emitter.disconnected = true;
+        stream.onStockChanged(new StockChangedEvent(Map.of(1L, 4)));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("catalogo.stream.subscribers").gauge().value() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, meterRegistry.get("catalogo.stream.subscribers").gauge().value());
+    }
+
+    @Test
+    void shouldDropStalledSubscriberWithoutHoldingOthers() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProductChangeStream singleThread = new ProductChangeStream(new ProductCache(productRepository, 100, 100),
+                registry, 500, 0, 1, 50);
+        CountDownLatch stalledClient = new CountDownLatch(1);
+        RecordingEmitter stalled = new RecordingEmitter(stalledClient);
+        RecordingEmitter other = new RecordingEmitter();
+        try {
+            singleThread.register(Set.of(1L), stalled);
+            stalled.next();
+            // A unica thread do pool esta presa no envio do primeiro assinante
+            singleThread.register(Set.of(2L), other);
+            assertNull(other.sent.poll(100, TimeUnit.MILLISECONDS));
+
+            singleThread.dropStalledSubscribers();
+
+            assertEquals(List.of(new ProductDeltaDTO(2L, 8, new BigDecimal("7.50"), true)), other.next());
+            assertEquals(1, registry.counter("catalogo.stream.stalled").count());
+            assertEquals(1, registry.get("catalogo.stream.subscribers").gauge().value());
+
+            singleThread.onStockChanged(new StockChangedEvent(Map.of(1L, 4, 2L, 7)));
+            assertEquals(List.of(new ProductDeltaDTO(2L, 7, null, null)), other.next());
+            stalledClient.countDown();
+            assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+            assertNull(stalled.sent.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            stalledClient.countDown();
+            singleThread.stop();
+        }
+    }
+
+    // Guarda as listas de mudancas enviadas; com latch, o primeiro envio fica preso como um cliente lento
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<List<ProductDeltaDTO>> sent = new LinkedBlockingQueue<>();
+        private final CountDownLatch release;
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean disconnected;
+
+        RecordingEmitter() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void send(SseEventBuilder builder) throws IOException {
+            if (disconnected) {
+                throw new IOException("Broken pipe");
+            }
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof List<?> changes) {
+                    sent.add((List<ProductDeltaDTO>) changes);
+                }
+            }
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+            super.complete();
+        }
+
+        List<ProductDeltaDTO> next() throws InterruptedException {
+            List<ProductDeltaDTO> changes = sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(changes);
+            return changes;
+        }
+    }
+}
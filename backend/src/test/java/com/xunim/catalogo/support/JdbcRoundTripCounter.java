@@ -0,0 +1,86 @@
+package com.xunim.catalogo.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conta idas ao banco (execute*, incluindo executeBatch como uma unica ida) em todos os
+ * statements abertos pelo DataSource da aplicacao. Buscas de bloco de sequence sao contadas
+ * a parte, pois sao amortizadas pelo allocationSize. Importar via {@code @Import} no teste.
+ */
+@TestConfiguration
+public class JdbcRoundTripCounter implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong sequenceRoundTrips = new AtomicLong();
+
+    // Total de idas ao banco, sem contar buscas de sequence
+    public long get() {
+        return roundTrips.get();
+    }
+
+    public long sequenceFetches() {
+        return sequenceRoundTrips.get();
+    }
+
+    public void reset() {
+        roundTrips.set(0);
+        sequenceRoundTrips.set(0);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !Proxy.isProxyClass(bean.getClass())) {
+            return proxy(dataSource, DataSource.class, null);
+        }
+        return bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(T target, Class<T> type, String sql) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (EXECUTE_METHODS.contains(method.getName())) {
+                String executed = sql != null ? sql : (args != null && args.length > 0 ? String.valueOf(args[0]) : "");
+                if (executed.toLowerCase(Locale.ROOT).contains("next value for")) {
+                    sequenceRoundTrips.incrementAndGet();
+                } else {
+                    roundTrips.incrementAndGet();
+                }
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getTargetException();
+            }
+            String statementSql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            if (result instanceof Connection connection) {
+                return proxy(connection, Connection.class, null);
+            }
+            if (result instanceof CallableStatement statement) {
+                return proxy(statement, CallableStatement.class, statementSql);
+            }
+            if (result instanceof PreparedStatement statement) {
+                return proxy(statement, PreparedStatement.class, statementSql);
+            }
+            if (result instanceof Statement statement) {
+                return proxy(statement, Statement.class, null);
+            }
+            return result;
+        });
+    }
+}
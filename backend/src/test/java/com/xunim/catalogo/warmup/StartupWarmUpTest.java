@@ -0,0 +1,45 @@
+package com.xunim.catalogo.warmup;
+
+import com.xunim.catalogo.cache.ProductCache;
+import com.xunim.catalogo.dto.CacheStatsDTO;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"spring.jpa.show-sql=false", "catalogo.warmup.enabled=true",
+        "catalogo.warmup.iterations=5"})
+public class StartupWarmUpTest {
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private ProductCache productCache;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void shouldLoadCatalogSnapshotsBeforeAcceptingTraffic() {
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+
+        // O aquecimento ja deixou todo o catalogo ativo no cache: nenhuma falta ao pedir os snapshots
+        List<Long> productIds = productRepository.findAllActiveProducts().stream().map(ProductDTO::getId).toList();
+        long misses = productsStats().getMisses();
+
+        assertEquals(productIds.size(), productCache.getActive(productIds).size());
+        assertEquals(misses, productsStats().getMisses());
+    }
+
+    private CacheStatsDTO productsStats() {
+        return productCache.stats().stream().filter(stats -> stats.getName().equals("products")).findFirst().orElseThrow();
+    }
+}
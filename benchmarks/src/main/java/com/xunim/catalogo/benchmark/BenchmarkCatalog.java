@@ -0,0 +1,108 @@
+package com.xunim.catalogo.benchmark;
+
+import com.xunim.catalogo.CatalogoApplication;
+import com.xunim.catalogo.search.ProductSearchIndex;
+import com.xunim.catalogo.stock.StockLedger;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Sobe a aplicacao sem servidor web sobre um H2 em memoria exclusivo e popula o catalogo
+ * com {@code catalogSize} produtos alem dos da migracao inicial.
+ *
+ * <p>Os nomes seguem o formato {@code Produto <Grao> SerieNN ItemNNNNNN}, o que permite buscas
+ * com seletividade conhecida: o grao aparece em 10% dos produtos, a serie em 1% e o item em um so.</p>
+ */
+public final class BenchmarkCatalog implements AutoCloseable {
+
+    private static final String[] GRAINS = {
+            "Arroz", "Feijao", "Milho", "Trigo", "Aveia", "Soja", "Cevada", "Centeio", "Quinoa", "Sorgo"
+    };
+    private static final int SEED_BATCH_SIZE = 1000;
+
+    private final ConfigurableApplicationContext context;
+    private final List<Long> productIds;
+
+    private BenchmarkCatalog(ConfigurableApplicationContext context, List<Long> productIds) {
+        this.context = context;
+        this.productIds = productIds;
+    }
+
+    /**
+     * @param properties propriedades da aplicacao no formato {@code chave=valor}, aplicadas por cima das padrao
+     */
+    public static BenchmarkCatalog start(int catalogSize, int stock, String... properties) {
+        // Passadas como argumentos de linha de comando para terem precedencia sobre o application.properties
+        List<String> args = new ArrayList<>(List.of(
+                "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID(),
+                "spring.jpa.show-sql=false",
+                // O catalogo e populado depois da subida e o JMH tem o proprio aquecimento
+                "catalogo.warmup.enabled=false",
+                "logging.level.root=WARN"));
+        args.addAll(List.of(properties));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(CatalogoApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run(args.stream().map(property -> "--" + property).toArray(String[]::new));
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        seed(jdbcTemplate, catalogSize, stock);
+        List<Long> productIds = jdbcTemplate.queryForList(
+                "SELECT id FROM products WHERE name LIKE 'Produto %' ORDER BY id", Long.class);
+
+        // Indice e razao carregam na subida, antes da carga; recarrega com o catalogo completo
+        if (context.getEnvironment().getProperty("catalogo.search.index.enabled", Boolean.class, true)) {
+            context.getBean(ProductSearchIndex.class).rebuild();
+        }
+        StockLedger stockLedger = context.getBean(StockLedger.class);
+        if (stockLedger.isEnabled()) {
+            stockLedger.recover();
+        }
+        return new BenchmarkCatalog(context, productIds);
+    }
+
+    public static String productName(int index) {
+        return String.format("Produto %s Serie%02d Item%06d", GRAINS[index % GRAINS.length], (index / 10) % 100, index);
+    }
+
+    public List<Long> productIds() {
+        return productIds;
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public void deleteOrders() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+
+    private static void seed(JdbcTemplate jdbcTemplate, int catalogSize, int stock) {
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < catalogSize; i++) {
+            batch.add(new Object[]{productName(i), BigDecimal.valueOf(100 + i % 9900, 2), stock});
+            if (batch.size() == SEED_BATCH_SIZE || i == catalogSize - 1) {
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO products (name, price, stock, active, version) VALUES (?, ?, ?, true, 0)", batch);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.xunim.catalogo.benchmark;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderQuoteDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.service.OrderService;
+import com.xunim.catalogo.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Montagem de DTOs pela API publica dos servicos, sem ida ao banco no caminho medido: uma pagina de
+ * produtos servida pelo cache de paginas ({@code ProductService.findProducts} com o indice desligado)
+ * e a cotacao de um carrinho ({@code OrderService.quote}), que precifica os itens a partir dos
+ * snapshots em cache e monta a resposta como o checkout.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+    // Tamanho da pagina de produtos e numero de itens do carrinho
+    @Param({"1", "20", "100"})
+    private int size;
+
+    private BenchmarkCatalog catalog;
+    private ProductService productService;
+    private OrderService orderService;
+
+    private OrderRequestDTO orderRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(1000, 100, "catalogo.search.index.enabled=false");
+        productService = catalog.bean(ProductService.class);
+        orderService = catalog.bean(OrderService.class);
+
+        List<OrderItemRequestDTO> items = new ArrayList<>(size);
+        for (Long productId : catalog.productIds().subList(0, size)) {
+            items.add(new OrderItemRequestDTO(productId, 2));
+        }
+        orderRequest = new OrderRequestDTO(items);
+
+        // Carrega a pagina e os snapshots no cache antes da medicao
+        productService.findProducts("", 0, size);
+        orderService.quote(orderRequest);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public ProductPageDTO productPage() {
+        return productService.findProducts("", 0, size);
+    }
+
+    @Benchmark
+    public OrderQuoteDTO orderQuote() {
+        return orderService.quote(orderRequest);
+    }
+}
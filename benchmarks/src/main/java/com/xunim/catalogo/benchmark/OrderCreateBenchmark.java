@@ -0,0 +1,129 @@
+package com.xunim.catalogo.benchmark;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.dto.OrderResponseDTO;
+import com.xunim.catalogo.service.OrderService;
+import com.xunim.catalogo.stock.StockShards;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code OrderService.createOrder} por tamanho de carrinho, disputa de SKUs e numero de threads.
+ *
+ * <p>Com {@code skus=shared} todas as threads compram os mesmos produtos (linhas quentes em
+ * {@code products}); com {@code disjoint} cada thread tem sua faixa de produtos. O estoque e
+ * grande o bastante para nenhum pedido ser recusado, e os pedidos sao apagados a cada iteracao.</p>
+ *
+ * <p>{@code commitLatencyMs} segura a transacao aberta depois da baixa, como a latencia de rede e de
+ * commit de um banco fora do processo; sem ela o H2 em memoria solta a linha quente quase na hora e
+ * a disputa pelo produto nao aparece.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderCreateBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "10", "50"})
+    private int cartSize;
+
+    @Param({"shared", "disjoint"})
+    private String skus;
+
+    // database: baixa condicional no banco (padrao); ledger: razao de estoque em memoria;
+    // sharded: produtos da faixa compartilhada com o estoque dividido em fracoes
+    @Param({"database", "ledger", "sharded"})
+    private String stockMode;
+
+    @Param({"0", "5"})
+    private int commitLatencyMs;
+
+    private BenchmarkCatalog catalog;
+    private OrderService orderService;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(CATALOG_SIZE, STOCK,
+                "catalogo.stock.ledger.enabled=" + stockMode.equals("ledger"));
+        orderService = catalog.bean(OrderService.class);
+        transactionTemplate = new TransactionTemplate(catalog.bean(PlatformTransactionManager.class));
+        if (stockMode.equals("sharded")) {
+            catalog.bean(StockShards.class).configure(catalog.productIds().subList(0, 50));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteOrders() {
+        catalog.deleteOrders();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cart {
+
+        private OrderRequestDTO request;
+
+        @Setup(Level.Trial)
+        public void setUp(OrderCreateBenchmark benchmark, ThreadParams threadParams) {
+            int offset = benchmark.skus.equals("shared") ? 0 : threadParams.getThreadIndex() * benchmark.cartSize;
+            List<Long> productIds = benchmark.catalog.productIds();
+
+            List<OrderItemRequestDTO> items = new ArrayList<>(benchmark.cartSize);
+            for (int i = 0; i < benchmark.cartSize; i++) {
+                items.add(new OrderItemRequestDTO(productIds.get(offset + i), 1));
+            }
+            request = new OrderRequestDTO(items);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public OrderResponseDTO createOrder1Thread(Cart cart) {
+        return createOrder(cart.request);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public OrderResponseDTO createOrder4Threads(Cart cart) {
+        return createOrder(cart.request);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public OrderResponseDTO createOrder16Threads(Cart cart) {
+        return createOrder(cart.request);
+    }
+
+    // O createOrder entra na transacao externa, que so faz commit depois da espera
+    private OrderResponseDTO createOrder(OrderRequestDTO request) {
+        if (commitLatencyMs == 0) {
+            return orderService.createOrder(request);
+        }
+        return transactionTemplate.execute(status -> {
+            OrderResponseDTO response = orderService.createOrder(request);
+            try {
+                Thread.sleep(commitLatencyMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return response;
+        });
+    }
+}
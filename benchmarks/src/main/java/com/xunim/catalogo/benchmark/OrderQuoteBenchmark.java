@@ -0,0 +1,87 @@
+package com.xunim.catalogo.benchmark;
+
+import com.xunim.catalogo.dto.OrderItemRequestDTO;
+import com.xunim.catalogo.dto.OrderQuoteDTO;
+import com.xunim.catalogo.dto.OrderRequestDTO;
+import com.xunim.catalogo.pricing.OrderTotal;
+import com.xunim.catalogo.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calculo do total de um carrinho: o {@link OrderTotal} em centavos contra a soma em {@code BigDecimal}
+ * que o checkout fazia antes, e a cotacao completa ({@code OrderService.quote}, com cache de produtos
+ * e conferencia de estoque). Rodar com {@code -prof gc} para comparar a alocacao por carrinho.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderQuoteBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int items;
+
+    private BenchmarkCatalog catalog;
+    private OrderService orderService;
+    private OrderRequestDTO orderRequest;
+
+    private BigDecimal[] prices;
+    private long[] priceCents;
+    private int[] quantities;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(1000, 100);
+        orderService = catalog.bean(OrderService.class);
+
+        Random random = new Random(42);
+        prices = new BigDecimal[items];
+        priceCents = new long[items];
+        quantities = new int[items];
+        List<OrderItemRequestDTO> requestItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            priceCents[i] = OrderTotal.toCents(prices[i]);
+            quantities[i] = 1 + random.nextInt(5);
+            requestItems.add(new OrderItemRequestDTO(catalog.productIds().get(i), quantities[i]));
+        }
+        orderRequest = new OrderRequestDTO(requestItems);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTotal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < items; i++) {
+            total = total.add(prices[i].multiply(BigDecimal.valueOf(quantities[i])).setScale(2, RoundingMode.HALF_EVEN));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal centsTotal() {
+        OrderTotal total = new OrderTotal();
+        for (int i = 0; i < items; i++) {
+            total.addLine(prices[i], priceCents[i], quantities[i]);
+        }
+        return total.total();
+    }
+
+    @Benchmark
+    public OrderQuoteDTO quote() {
+        return orderService.quote(orderRequest);
+    }
+}
@@ -0,0 +1,104 @@
+package com.xunim.catalogo.benchmark;
+
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.entity.Product;
+import com.xunim.catalogo.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Uma pagina da listagem lida do banco por dois caminhos, para comparar latencia e alocacao
+ * (rodar com {@code -prof gc} e olhar {@code gc.alloc.rate.norm}, em bytes por pagina):
+ *
+ * <ul>
+ *     <li>{@code entity}: a consulta anterior, que hidrata entidades {@code Product} gerenciadas numa
+ *     transacao somente leitura e as copia para {@code ProductDTO};</li>
+ *     <li>{@code projection}: {@code ProductRepository.findActiveProductsByName}, que projeta direto no DTO.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductListingBenchmark {
+
+    private static final String SEARCH_FILTER = "p.active = true AND "
+            + "(:search = '' OR LOWER(p.name) LIKE LOWER(CONCAT('%', :search, '%')))";
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    // all: sem filtro; grain: 10% do catalogo
+    @Param({"all", "grain"})
+    private String selectivity;
+
+    @Param({"entity", "projection"})
+    private String mode;
+
+    private BenchmarkCatalog catalog;
+    private ProductRepository productRepository;
+    private EntityManager entityManager;
+    private TransactionTemplate readOnlyTransaction;
+    private Pageable pageable;
+    private String search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize, 100, "catalogo.search.index.enabled=false");
+        productRepository = catalog.bean(ProductRepository.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(
+                catalog.bean(EntityManagerFactory.class));
+        readOnlyTransaction = new TransactionTemplate(catalog.bean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+        pageable = PageRequest.of(1, pageSize, Sort.by("name").ascending());
+        search = selectivity.equals("all") ? "" : "aveia";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public Page<ProductDTO> listPage() {
+        return mode.equals("entity") ? listEntities() : productRepository.findActiveProductsByName(search, pageable);
+    }
+
+    // Mesmo SQL e mesma transacao que o repositorio usava antes da projecao
+    private Page<ProductDTO> listEntities() {
+        return readOnlyTransaction.execute(status -> {
+            List<Product> products = entityManager
+                    .createQuery("SELECT p FROM Product p WHERE " + SEARCH_FILTER + " ORDER BY p.name ASC", Product.class)
+                    .setParameter("search", search)
+                    .setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize())
+                    .getResultList();
+            long total = entityManager
+                    .createQuery("SELECT COUNT(p) FROM Product p WHERE " + SEARCH_FILTER, Long.class)
+                    .setParameter("search", search)
+                    .getSingleResult();
+            List<ProductDTO> content = products.stream()
+                    .map(product -> new ProductDTO(product.getId(), product.getName(), product.getPrice(),
+                            product.getStock(), product.getActive()))
+                    .toList();
+            return new PageImpl<>(content, pageable, total);
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package com.xunim.catalogo.benchmark;
+
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.service.ProductService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ProductService.findProducts} por tamanho de catalogo, seletividade da busca e caminho de leitura:
+ *
+ * <ul>
+ *     <li>{@code index}: indice de busca em memoria (padrao da aplicacao);</li>
+ *     <li>{@code page-cache}: sem indice, paginas vindas do {@code ProductCache};</li>
+ *     <li>{@code database}: sem indice e sem cache de paginas, query paginada a cada chamada.</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSearchBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int catalogSize;
+
+    // all: sem filtro; grain: 10% do catalogo; series: 1%; item: um produto
+    @Param({"all", "grain", "series", "item"})
+    private String selectivity;
+
+    @Param({"index", "page-cache", "database"})
+    private String mode;
+
+    @Param({"0"})
+    private int page;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private BenchmarkCatalog catalog;
+    private ProductService productService;
+    private String search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = BenchmarkCatalog.start(catalogSize, 100,
+                "catalogo.search.index.enabled=" + mode.equals("index"),
+                "catalogo.cache.pages.maximum-size=" + (mode.equals("page-cache") ? 10000 : 0));
+        productService = catalog.bean(ProductService.class);
+        search = switch (selectivity) {
+            case "all" -> "";
+            case "grain" -> "aveia";
+            case "series" -> "serie07";
+            case "item" -> "item000042";
+            default -> throw new IllegalArgumentException("Seletividade desconhecida: " + selectivity);
+        };
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        catalog.close();
+    }
+
+    @Benchmark
+    public ProductPageDTO findProducts() {
+        return productService.findProducts(search, page, pageSize);
+    }
+}
@@ -0,0 +1,56 @@
+package com.xunim.catalogo.benchmark;
+
+import com.xunim.catalogo.dto.ProductSuggestionDTO;
+import com.xunim.catalogo.search.SuggestTrie;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sugestoes por prefixo na {@link SuggestTrie}, sem Spring, sobre nomes no formato do
+ * {@link BenchmarkCatalog}: prefixo curto (topo pre-calculado no no), grao, serie e quase um item
+ * (intervalo pequeno ordenado na consulta). O {@code rebuild} mede a remontagem completa, que roda
+ * fora do caminho da requisicao apos mudancas no catalogo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSuggestBenchmark {
+
+    @Param({"10000", "100000"})
+    private int catalogSize;
+
+    @Param({"p", "produto aveia", "produto aveia serie07", "produto aveia serie07 item00007"})
+    private String prefix;
+
+    private List<SuggestTrie.Candidate> candidates;
+    private SuggestTrie trie;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        candidates = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            candidates.add(new SuggestTrie.Candidate(i, BenchmarkCatalog.productName(i), i % 97));
+        }
+        trie = SuggestTrie.build(candidates, 10);
+    }
+
+    @Benchmark
+    public List<ProductSuggestionDTO> suggest() {
+        return trie.suggest(prefix, 8);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 5)
+    @Measurement(iterations = 10)
+    public SuggestTrie rebuild() {
+        return SuggestTrie.build(candidates, 10);
+    }
+}
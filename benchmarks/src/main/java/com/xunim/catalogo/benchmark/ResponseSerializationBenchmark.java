@@ -0,0 +1,82 @@
+package com.xunim.catalogo.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.xunim.catalogo.dto.ProductDTO;
+import com.xunim.catalogo.dto.ProductPageDTO;
+import com.xunim.catalogo.serialization.ProductFragmentCache;
+import com.xunim.catalogo.serialization.ProductPageMessageConverter;
+import com.xunim.catalogo.serialization.ResponseFormat;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializacao de uma pagina de produtos, sem banco nem servidor, para comparar ns e bytes
+ * alocados por pagina (rodar com {@code -prof gc} e olhar {@code gc.alloc.rate.norm}):
+ *
+ * <ul>
+ *     <li>{@code jackson}: o {@code ObjectMapper} serializando o {@code ProductPageDTO} inteiro;</li>
+ *     <li>{@code fragments}: o {@code ProductPageMessageConverter}, que copia os produtos ja serializados.</li>
+ * </ul>
+ *
+ * <p>A saida e um buffer reaproveitado entre as chamadas, como o buffer de resposta do Tomcat.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"10", "100"})
+    private int pageSize;
+
+    @Param({"json", "cbor"})
+    private String format;
+
+    @Param({"jackson", "fragments"})
+    private String mode;
+
+    private ProductPageDTO page;
+    private ObjectWriter pageWriter;
+    private ProductPageMessageConverter converter;
+    private ResponseFormat responseFormat;
+    private ByteArrayOutputStream body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<ProductDTO> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(new ProductDTO((long) i + 1, BenchmarkCatalog.productName(i),
+                    BigDecimal.valueOf(100 + i % 9900, 2), 100, true));
+        }
+        page = new ProductPageDTO(content, 0, pageSize, 10_000, 10_000 / pageSize, true, false);
+
+        responseFormat = ResponseFormat.valueOf(format.toUpperCase());
+        ProductFragmentCache fragmentCache = new ProductFragmentCache(
+                Jackson2ObjectMapperBuilder.json().build(),
+                new MappingJackson2CborHttpMessageConverter(Jackson2ObjectMapperBuilder.cbor().build()), 100_000);
+        pageWriter = fragmentCache.mapper(responseFormat).writerFor(ProductPageDTO.class);
+        converter = new ProductPageMessageConverter(fragmentCache);
+        body = new ByteArrayOutputStream(64 * 1024);
+    }
+
+    @Benchmark
+    public int productPage() throws IOException {
+        body.reset();
+        if (mode.equals("jackson")) {
+            pageWriter.writeValue(body, page);
+        } else {
+            converter.write(responseFormat, page, body);
+        }
+        return body.size();
+    }
+}
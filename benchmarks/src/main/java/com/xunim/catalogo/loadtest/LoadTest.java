@@ -0,0 +1,200 @@
+package com.xunim.catalogo.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de carga em laco fechado contra uma instancia ja em execucao: {@code concurrency} clientes
+ * repetem requisicoes sem pausa durante {@code duration} segundos, depois de {@code warmup} segundos
+ * descartados. Imprime uma linha JSON com vazao, latencias (p50/p90/p99/max) e contagem por status.
+ *
+ * <p>Cenarios: {@code catalog} (GET /products com busca e pagina aleatorias), {@code checkout}
+ * (POST /orders de um item; 409 conta como resposta valida) e {@code mixed} (9 leituras para 1 pedido).
+ * Recusas do controle de admissao (503) aparecem em {@code rejected}, e {@code goodput} conta so as 2xx/409;
+ * o cliente recusado espera o {@code Retry-After} antes da proxima requisicao ({@code honorRetryAfter=false}
+ * repete na hora).
+ * {@code catalogPath} troca o endpoint de leitura, por exemplo {@code /reactive/products}.</p>
+ *
+ * <pre>java -cp ... com.xunim.catalogo.loadtest.LoadTest baseUrl=http://localhost:8080/api/v1 concurrency=200 duration=30 warmup=10 scenario=mixed label=platform</pre>
+ */
+public class LoadTest {
+
+    private static final String[] SEARCHES = {"", "cafe", "acucar", "cha", "oleo", "molho", "queijo", "pao"};
+    private static final int PRODUCTS = 45;
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = option(args, "baseUrl", "http://localhost:8080/api/v1");
+        int concurrency = Integer.parseInt(option(args, "concurrency", "200"));
+        int duration = Integer.parseInt(option(args, "duration", "30"));
+        int warmup = Integer.parseInt(option(args, "warmup", "10"));
+        String scenario = option(args, "scenario", "mixed");
+        String label = option(args, "label", "");
+        String catalogPath = option(args, "catalogPath", "/products");
+        boolean honorRetryAfter = Boolean.parseBoolean(option(args, "honorRetryAfter", "true"));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        AtomicBoolean recording = new AtomicBoolean();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong transportErrors = new AtomicLong();
+        List<Worker> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Worker worker = new Worker(client, baseUrl + catalogPath, baseUrl, scenario, honorRetryAfter,
+                    recording, running, transportErrors);
+            workers.add(worker);
+            worker.thread.start();
+        }
+
+        Thread.sleep(warmup * 1000L);
+        recording.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(duration * 1000L);
+        recording.set(false);
+        long elapsed = System.nanoTime() - start;
+        running.set(false);
+        for (Worker worker : workers) {
+            worker.thread.join();
+        }
+
+        int total = workers.stream().mapToInt(worker -> worker.count).sum();
+        long[] latencies = new long[total];
+        int offset = 0;
+        long ok = 0, conflicts = 0, rejected = 0, errors = transportErrors.get();
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+            ok += worker.ok;
+            conflicts += worker.conflicts;
+            rejected += worker.rejected;
+            errors += worker.errors;
+        }
+        Arrays.sort(latencies);
+
+        System.out.printf(Locale.ROOT,
+                "{\"label\":\"%s\",\"scenario\":\"%s\",\"concurrency\":%d,\"durationSeconds\":%d,\"requests\":%d,"
+                        + "\"throughput\":%.1f,\"goodput\":%.1f,\"ok\":%d,\"conflicts\":%d,\"rejected\":%d,\"errors\":%d,"
+                        + "\"p50Ms\":%.2f,\"p90Ms\":%.2f,\"p99Ms\":%.2f,\"maxMs\":%.2f}%n",
+                label, scenario, concurrency, duration, total,
+                total / (elapsed / 1e9), (ok + conflicts) / (elapsed / 1e9), ok, conflicts, rejected, errors,
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static String option(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
+    }
+
+    private static final class Worker {
+
+        private final Thread thread;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long ok;
+        private long conflicts;
+        private long rejected;
+        private long errors;
+
+        private Worker(HttpClient client, String catalogUrl, String baseUrl, String scenario, boolean honorRetryAfter,
+                       AtomicBoolean recording, AtomicBoolean running, AtomicLong transportErrors) {
+            this.thread = new Thread(() -> {
+                while (running.get()) {
+                    HttpRequest request = nextRequest(catalogUrl, baseUrl, scenario);
+                    long begin = System.nanoTime();
+                    HttpResponse<Void> response;
+                    try {
+                        response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                    } catch (Exception ex) {
+                        if (recording.get()) {
+                            transportErrors.incrementAndGet();
+                        }
+                        continue;
+                    }
+                    if (recording.get()) {
+                        record(System.nanoTime() - begin, response.statusCode());
+                    }
+                    if (honorRetryAfter && response.statusCode() == 503) {
+                        pause(response.headers().firstValueAsLong("Retry-After").orElse(0), running);
+                    }
+                }
+            }, "load-client");
+            this.thread.setDaemon(true);
+        }
+
+        private static void pause(long seconds, AtomicBoolean running) {
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            while (running.get() && System.nanoTime() < deadline) {
+                try {
+                    Thread.sleep(Math.min(100, Math.max(1, (deadline - System.nanoTime()) / 1_000_000)));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+
+        private void record(long latency, int status) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latency;
+            if (status / 100 == 2) {
+                ok++;
+            } else if (status == 409) {
+                conflicts++;
+            } else if (status == 503) {
+                rejected++;
+            } else {
+                errors++;
+            }
+        }
+
+        private static HttpRequest nextRequest(String catalogUrl, String baseUrl, String scenario) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            boolean checkout = switch (scenario) {
+                case "catalog" -> false;
+                case "checkout" -> true;
+                default -> random.nextInt(10) == 0;
+            };
+            if (checkout) {
+                String body = "{\"items\":[{\"productId\":" + (1 + random.nextInt(PRODUCTS)) + ",\"quantity\":1}]}";
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/orders"))
+                        .timeout(Duration.ofSeconds(60))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build();
+            }
+            String search = SEARCHES[random.nextInt(SEARCHES.length)];
+            return HttpRequest.newBuilder(URI.create(catalogUrl + "?search=" + search
+                            + "&page=" + random.nextInt(3) + "&size=12"))
+                    .timeout(Duration.ofSeconds(60))
+                    .GET()
+                    .build();
+        }
+    }
+}
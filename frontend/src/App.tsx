@@ -1,4 +1,4 @@
-import React, {useCallback, useEffect, useState} from 'react';
+import React, {useCallback, useEffect, useRef, useState} from 'react';
 import './App.css';
 
 interface Product {
@@ -9,14 +9,24 @@ interface Product {
     active: boolean;
 }
 
-interface ProductPage {
+interface ProductSuggestion {
+    id: number;
+    name: string;
+}
+
+interface ProductSlice {
     content: Product[];
-    page: number;
     size: number;
-    totalElements: number;
-    totalPages: number;
-    first: boolean;
-    last: boolean;
+    hasNext: boolean;
+    nextCursor: string | null;
+    totalElements: number | null;
+}
+
+interface ProductDelta {
+    id: number;
+    stock?: number;
+    price?: number;
+    active?: boolean;
 }
 
 interface CartItem {
@@ -42,6 +52,17 @@ interface StockError {
     productName?: string;
 }
 
+interface OrderQuote {
+    items: Array<{
+        productId: number;
+        quantity: number;
+        unitPrice: number;
+        lineTotal: number;
+    }>;
+    total: number;
+    stockErrors: StockError[];
+}
+
 interface OrderResponse {
     id: number;
     createAt: string;
@@ -61,30 +82,79 @@ function App() {
     const [products, setProducts] = useState<Product[]>([]);
     const [cart, setCart] = useState<CartItem[]>([]);
     const [searchTerm, setSearchTerm] = useState('');
-    const [currentPage, setCurrentPage] = useState<number>(0);
-    const [totalPages, setTotalPages] = useState<number>(0);
+    const [suggestions, setSuggestions] = useState<ProductSuggestion[]>([]);
+    const [nextCursor, setNextCursor] = useState<string | null>(null);
+    const [totalElements, setTotalElements] = useState<number | null>(null);
     const [isLoading, setIsLoading] = useState(false);
     const [isCartOpen, setIsCartOpen] = useState(false);
     const [message, setMessage] = useState<{ type: 'success' | 'error', content: string } | null>(null);
     const [stockErrors, setStockErrors] = useState<StockError[]>([]);
+    const [quoted, setQuoted] = useState<{ cartKey: string, quote: OrderQuote } | null>(null);
 
     const PAGE_SIZE = 6;
+    const sentinelRef = useRef<HTMLDivElement>(null);
+    // Mesma chave enquanto o carrinho nao muda: reenviar apos timeout nao gera um segundo pedido
+    const idempotencyKeyRef = useRef<string | null>(null);
 
-    const fetchProducts = useCallback(async (search: string, page: number) => {
+    useEffect(() => {
+        idempotencyKeyRef.current = null;
+    }, [cart]);
+
+    // Itens e quantidades do carrinho: mudancas de estoque por SSE nao disparam nova cotacao
+    const cartKey = cart.map(item => `${item.productId}:${item.quantity}`).join(',');
+    // Cotacao de um carrinho anterior e descartada ate a nova chegar
+    const quote = quoted?.cartKey === cartKey ? quoted.quote : null;
+
+    // Totais calculados pelo servidor, os mesmos do checkout; a cotacao nao reserva estoque
+    useEffect(() => {
+        if (cartKey === '') {
+            return;
+        }
+        const controller = new AbortController();
+        const timeoutId = setTimeout(async () => {
+            const items = cartKey.split(',').map(entry => {
+                const [productId, quantity] = entry.split(':').map(Number);
+                return {productId, quantity};
+            });
+            try {
+                const response = await fetch(`${API_BASE_URL}/orders/quote`, {
+                    method: 'POST',
+                    headers: {'Content-Type': 'application/json'},
+                    body: JSON.stringify({items}),
+                    signal: controller.signal
+                });
+                if (response.ok) {
+                    setQuoted({cartKey, quote: await response.json()});
+                }
+            } catch (error) {
+                if (!controller.signal.aborted) {
+                    console.error('Erro ao cotar carrinho: ', error);
+                }
+            }
+        }, 250);
+
+        return () => {
+            clearTimeout(timeoutId);
+            controller.abort();
+        };
+    }, [cartKey]);
+
+    // Paginacao por cursor: after vazio reinicia a lista, sem COUNT no backend
+    const fetchProducts = useCallback(async (search: string, after: string) => {
         setIsLoading(true);
         try {
             const response = await fetch(
-                `${API_BASE_URL}/products?search=${encodeURIComponent(search)}&page=${page}&size=${PAGE_SIZE}`
+                `${API_BASE_URL}/products?search=${encodeURIComponent(search)}&size=${PAGE_SIZE}&after=${encodeURIComponent(after)}`
             );
 
             if (!response.ok) {
                 throw new Error('Erro ao carregar produtos');
             }
 
-            const data: ProductPage = await response.json();
-            setProducts(data.content);
-            // @ts-ignore
-            setTotalPages(data.totalPages);
+            const data: ProductSlice = await response.json();
+            setProducts(prevProducts => after === '' ? data.content : [...prevProducts, ...data.content]);
+            setNextCursor(data.hasNext ? data.nextCursor : null);
+            setTotalElements(data.totalElements);
         } catch (error) {
             console.error('Erro ao buscar produtos: ', error);
             setMessage({type: 'error', content: 'Erro ao carregar produtos'});
@@ -93,25 +163,106 @@ function App() {
         }
     }, []);
 
+    // Sugestoes por prefixo enquanto digita (trie em memoria no backend); a listagem completa segue com debounce maior
+    useEffect(() => {
+        if (searchTerm.trim() === '') {
+            setSuggestions([]);
+            return;
+        }
+        const controller = new AbortController();
+        const timeoutId = setTimeout(async () => {
+            try {
+                const response = await fetch(
+                    `${API_BASE_URL}/products/suggest?prefix=${encodeURIComponent(searchTerm)}&limit=8`,
+                    {signal: controller.signal}
+                );
+                if (response.ok) {
+                    setSuggestions(await response.json());
+                }
+            } catch (error) {
+                if ((error as Error).name !== 'AbortError') {
+                    console.error('Erro ao buscar sugestoes: ', error);
+                }
+            }
+        }, 80);
+
+        return () => {
+            clearTimeout(timeoutId);
+            controller.abort();
+        };
+    }, [searchTerm]);
+
     useEffect(() => {
         const timeoutId = setTimeout(() => {
-            setCurrentPage(0);
-            fetchProducts(searchTerm,0);
+            fetchProducts(searchTerm, '');
         }, 300);
 
         return () => clearTimeout(timeoutId);
     }, [searchTerm, fetchProducts]);
 
     useEffect(() => {
-        fetchProducts(searchTerm, currentPage);
-    }, [currentPage, searchTerm, fetchProducts]);
+        const sentinel = sentinelRef.current;
+        if (!sentinel || !nextCursor || isLoading) {
+            return;
+        }
+
+        const observer = new IntersectionObserver(entries => {
+            if (entries[0].isIntersecting) {
+                fetchProducts(searchTerm, nextCursor);
+            }
+        });
+        observer.observe(sentinel);
+
+        return () => observer.disconnect();
+    }, [nextCursor, isLoading, searchTerm, fetchProducts]);
+
+    // Ids exibidos em ordem estavel: a assinatura so e refeita quando a lista muda, nao a cada delta
+    const productIdsKey = products.map(product => product.id).join(',');
+
+    // Estoque, preco e ativacao chegam por SSE; o stock dos produtos e sempre o saldo do servidor
+    useEffect(() => {
+        if (productIdsKey === '') {
+            return;
+        }
+        const source = new EventSource(`${API_BASE_URL}/products/changes?ids=${productIdsKey}`);
+        source.addEventListener('changes', event => {
+            const deltas: ProductDelta[] = JSON.parse((event as MessageEvent).data);
+            const byId = new Map(deltas.map(delta => [delta.id, delta]));
+
+            setProducts(prevProducts => prevProducts
+                .filter(product => byId.get(product.id)?.active !== false)
+                .map(product => {
+                    const delta = byId.get(product.id);
+                    return delta ? {
+                        ...product,
+                        stock: delta.stock ?? product.stock,
+                        price: delta.price ?? product.price,
+                    } : product;
+                }));
+            setCart(prevCart => prevCart.map(item => {
+                const delta = byId.get(item.productId);
+                return delta ? {
+                    ...item,
+                    stock: delta.stock ?? item.stock,
+                    price: delta.price ?? item.price,
+                } : item;
+            }));
+        });
+
+        return () => source.close();
+    }, [productIdsKey]);
+
+    const quantityInCart = (productId: number) =>
+        cart.find(item => item.productId === productId)?.quantity ?? 0;
+
+    const availableStock = (product: Product) => product.stock - quantityInCart(product.id);
 
     const addToCart = (product: Product) => {
         setCart(prevCart => {
             const existingItem = prevCart.find(item => item.productId === product.id);
 
             if (existingItem) {
-                if (product.stock <= 0) {
+                if (existingItem.quantity >= product.stock) {
                     setMessage({type: 'error', content: 'Quantidade máxima atingida'});
                     return prevCart;
                 }
@@ -121,7 +272,7 @@ function App() {
                 : item
                 );
             } else {
-                if (product.stock === 0) {
+                if (product.stock <= 0) {
                     setMessage({type: 'error', content: 'Produto fora de estoque'});
                     return prevCart;
                 }
@@ -134,14 +285,6 @@ function App() {
                 }];
             }
         });
-
-        setProducts(prevProducts =>
-            prevProducts.map(item =>
-                item.id === product.id
-                    ? { ...item, stock: item.stock - 1}
-                    : item
-            )
-        );
     };
 
     const removeFromCart = (productId: number) => {
@@ -158,33 +301,22 @@ function App() {
                 return prevCart.filter(item => item.productId !== productId);
             }
         });
-
-        setProducts(prevProducts =>
-            prevProducts.map(item =>
-                item.id === productId
-                    ? { ...item, stock: item.stock + 1}
-                    : item
-            )
-        );
     };
 
     const removeItemCompletely = (productId: number) => {
-        const itemToRemove = cart.find(item => item.productId === productId);
-        if (itemToRemove) {
-            setProducts(prevProducts =>
-                prevProducts.map(item =>
-                    item.id === productId
-                        ? { ...item, stock: item.stock + itemToRemove.quantity}
-                        : item
-                )
-            );
-        }
         setCart(prevCart => prevCart.filter(item => item.productId !== productId));
     };
 
+    // Enquanto a cotacao do carrinho atual nao chega, soma local como estimativa
     const getCartTotal = () => {
-        return cart.reduce((total, item) => total + (item.price * item.quantity), 0);
+        return quote?.total ?? cart.reduce((total, item) => total + (item.price * item.quantity), 0);
     };
+
+    const getLineTotal = (item: CartItem) =>
+        quote?.items.find(line => line.productId === item.productId)?.lineTotal ?? item.price * item.quantity;
+
+    const getQuoteStockError = (productId: number) =>
+        quote?.stockErrors.find(error => error.productId === productId);
     const getCartItemCount = () => {
         return cart.reduce((total, item) => total + item.quantity, 0);
     };
@@ -202,11 +334,16 @@ function App() {
             }))
         };
 
+        if (idempotencyKeyRef.current === null) {
+            idempotencyKeyRef.current = crypto.randomUUID();
+        }
+
         try {
             const response = await fetch(`${API_BASE_URL}/orders`, {
                 method: 'POST',
                 headers: {
                     'Content-Type': 'application/json',
+                    'Idempotency-Key': idempotencyKeyRef.current,
                 },
                 body: JSON.stringify(orderRequest)
             });
@@ -218,6 +355,13 @@ function App() {
                 return;
             }
 
+            // Checkout saturado: a mesma Idempotency-Key e mantida para a nova tentativa
+            if (response.status === 503) {
+                const retryAfter = response.headers.get('Retry-After') ?? '1';
+                setMessage({type: 'error', content: `Muitos pedidos no momento, tente novamente em ${retryAfter}s`});
+                return;
+            }
+
             if (!response.ok) {
                 throw new Error('Erro ao finalizar pedido');
             }
@@ -230,8 +374,6 @@ function App() {
             setCart([]);
             setStockErrors([]);
             setIsCartOpen(false);
-
-            fetchProducts(searchTerm, currentPage);
         } catch (error) {
             console.error('Erro no checkout: ', error);
             setMessage({type:'error', content: 'Erro ao finalizar pedido'});
@@ -291,54 +433,44 @@ function App() {
                         onChange={(e) => setSearchTerm(e.target.value)}
                         className="search-input"
                         aria-label="Buscar produtos"
+                        list="product-suggestions"
+                        autoComplete="off"
                     />
+                    <datalist id="product-suggestions">
+                        {suggestions.map(suggestion => (
+                            <option key={suggestion.id} value={suggestion.name}/>
+                        ))}
+                    </datalist>
                 </div>
 
                 <div className="products-container">
-                    {isLoading ? (
-                        <div className="loading">Carregando produtos...</div>
-                    ) : (
-                        <>
-                            <div className="products-grid">
-                                {products.map(product => (
-                                    <div key={product.id} className="product-card">
-                                        <h3>{product.name}</h3>
-                                        <p className="product-price">R$ {product.price.toFixed(2)}</p>
-                                        <p className="product-stock">
-                                            Estoque: {product.stock} unidade(s)
-                                        </p>
-                                        <button
-                                            onClick={() => addToCart(product)}
-                                            disabled={product.stock === 0}
-                                            className="add-to-cart-btn"
-                                            aria-label={`Adicionar ${product.name} ao carrinho`}
-                                        >
-                                            {product.stock === 0 ? 'Fora de Estoque' : 'Adicionar ao Carrinho'}
-                                        </button>
-                                    </div>
-                                ))}
-                            </div>
-
-                            <div className="pagination">
-                                <button
-                                    onClick={() => setCurrentPage(prev => Math.max(0, prev - 1))}
-                                    disabled={currentPage === 0}
-                                    aria-label="Página anterior"
-                                    >
-                                    Anterior
-                                </button>
-                                <span>
-                                    Página {currentPage +1} de {totalPages}
-                                </span>
+                    {totalElements !== null && (
+                        <p className="products-count">{totalElements} produto(s) encontrado(s)</p>
+                    )}
+                    <div className="products-grid">
+                        {products.map(product => (
+                            <div key={product.id} className="product-card">
+                                <h3>{product.name}</h3>
+                                <p className="product-price">R$ {product.price.toFixed(2)}</p>
+                                <p className="product-stock">
+                                    Estoque: {Math.max(availableStock(product), 0)} unidade(s)
+                                </p>
                                 <button
-                                    onClick={() => setCurrentPage(prev => Math.min(totalPages - 1, prev + 1))}
-                                    disabled={currentPage === totalPages - 1}
-                                    aria-label="Próxima página"
+                                    onClick={() => addToCart(product)}
+                                    disabled={availableStock(product) <= 0}
+                                    className="add-to-cart-btn"
+                                    aria-label={`Adicionar ${product.name} ao carrinho`}
                                 >
-                                    Próxima
+                                    {availableStock(product) <= 0 ? 'Fora de Estoque' : 'Adicionar ao Carrinho'}
                                 </button>
                             </div>
-                        </>
+                        ))}
+                    </div>
+
+                    <div ref={sentinelRef} className="scroll-sentinel" aria-hidden="true"/>
+
+                    {isLoading && (
+                        <div className="loading">Carregando produtos...</div>
                     )}
                 </div>
             </main>
@@ -389,8 +521,13 @@ function App() {
                                                 </button>
                                             </div>
                                             <p className="item-total">
-                                                Subtotal: R$ {(item.price * item.quantity).toFixed(2)}
+                                                Subtotal: R$ {getLineTotal(item).toFixed(2)}
                                             </p>
+                                            {getQuoteStockError(item.productId) && (
+                                                <p className="item-stock-error">
+                                                    Disponível: {getQuoteStockError(item.productId)?.available}
+                                                </p>
+                                            )}
                                             <button
                                                 onClick={() => removeItemCompletely(item.productId)}
                                                 className="remove-item"
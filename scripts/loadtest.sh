@@ -0,0 +1,63 @@
+#!/bin/bash
+# Compara o backend com threads de plataforma (padrao) e com threads virtuais (Java 21+).
+# Para cada modo sobe uma instancia nova, roda o LoadTest em cada nivel de concorrencia e
+# grava uma linha JSON por execucao em loadtest-results.jsonl.
+#
+# Variaveis: CONCURRENCY ("50 200 800"), DURATION (30), WARMUP (10), SCENARIO (mixed|catalog|checkout),
+# APP_ARGS (argumentos extras da aplicacao, ex.: "--catalogo.search.index.enabled=false").
+
+set -e
+
+if [[ ! -d "backend" || ! -d "benchmarks" ]]; then
+    echo -e "\033[31mRun this script in the project root!\033[0m"
+    exit 1
+fi
+
+CONCURRENCY=${CONCURRENCY:-"50 200 800"}
+DURATION=${DURATION:-30}
+WARMUP=${WARMUP:-10}
+SCENARIO=${SCENARIO:-mixed}
+RESULTS=loadtest-results.jsonl
+BASE_URL=http://localhost:8080/api/v1
+
+echo -e "\033[34mBuilding backend and load generator...\033[0m"
+(cd backend && bash ./mvnw -q -B install -DskipTests)
+(cd benchmarks && bash ../backend/mvnw -q -B compile)
+JAR=$(ls backend/target/catalogo-*-SNAPSHOT.jar)
+
+JAVA_MAJOR=$(java -XshowSettings:properties -version 2>&1 | awk -F'= ' '/java.specification.version/ {print $2}')
+MODES="platform"
+if [[ "$JAVA_MAJOR" -ge 21 ]]; then
+    MODES="platform virtual"
+else
+    echo -e "\033[33mJava $JAVA_MAJOR detected: virtual threads need Java 21+, running platform mode only\033[0m"
+fi
+
+for MODE in $MODES; do
+    VIRTUAL=false
+    JVM_ARGS=""
+    if [[ "$MODE" == "virtual" ]]; then
+        VIRTUAL=true
+        # Registra no log toda thread virtual que bloquear presa ao carrier (synchronized)
+        JVM_ARGS="-Djdk.tracePinnedThreads=short"
+    fi
+
+    LOG=loadtest-$MODE.log
+    echo -e "\033[34mStarting backend ($MODE threads)...\033[0m"
+    java $JVM_ARGS -jar "$JAR" --spring.threads.virtual.enabled=$VIRTUAL --spring.jpa.show-sql=false $APP_ARGS > "$LOG" 2>&1 &
+    APP_PID=$!
+    until curl -s "$BASE_URL/products?size=1" > /dev/null; do sleep 1; done
+
+    for C in $CONCURRENCY; do
+        java -cp benchmarks/target/classes com.xunim.catalogo.loadtest.LoadTest \
+            baseUrl=$BASE_URL concurrency=$C duration=$DURATION warmup=$WARMUP scenario=$SCENARIO label=$MODE \
+            | tee -a "$RESULTS"
+    done
+
+    kill $APP_PID && wait $APP_PID 2>/dev/null || true
+    if [[ "$MODE" == "virtual" ]]; then
+        echo -e "\033[36mPinned virtual threads reported: $(grep -c '<== monitors' "$LOG" || true) (see $LOG)\033[0m"
+    fi
+done
+
+echo -e "\033[32mResults appended to $RESULTS\033[0m"